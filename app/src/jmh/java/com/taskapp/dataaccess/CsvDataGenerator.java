@@ -0,0 +1,114 @@
+package com.taskapp.dataaccess;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * ベンチマーク用のusers.csv・tasks.csv・logs.csvを生成します。
+ * 同じ行数・同じシードであれば同じ内容のファイルを生成します。
+ */
+public final class CsvDataGenerator {
+    /** ユーザー数の上限。タスク数が多くても担当者の数はこの程度に収まる想定です */
+    public static final int MAX_USERS = 5_000;
+
+    private static final long SEED = 42L;
+
+    private final Path directory;
+
+    private final int rows;
+
+    /**
+     * @param directory 生成先のディレクトリ
+     * @param rows      タスク・ログの行数
+     */
+    public CsvDataGenerator(Path directory, int rows) {
+        this.directory = directory;
+        this.rows = rows;
+    }
+
+    public Path usersFile() {
+        return directory.resolve("users.csv");
+    }
+
+    public Path tasksFile() {
+        return directory.resolve("tasks.csv");
+    }
+
+    public Path logsFile() {
+        return directory.resolve("logs.csv");
+    }
+
+    /**
+     * @return 生成するユーザー数
+     */
+    public int userCount() {
+        return Math.max(1, Math.min(rows, MAX_USERS));
+    }
+
+    /**
+     * 3つのCSVファイルを生成します。
+     *
+     * @throws IOException 書き込みに失敗した場合
+     */
+    public void generate() throws IOException {
+        Files.createDirectories(directory);
+        Random random = new Random(SEED);
+        int users = userCount();
+        try (BufferedWriter writer = Files.newBufferedWriter(usersFile(), StandardCharsets.UTF_8)) {
+            writer.write("Code,Name,Email,Password");
+            writer.newLine();
+            for (int code = 1; code <= users; code++) {
+                writer.write(code + ",ユーザー" + code + "," + email(code) + "," + password(code));
+                writer.newLine();
+            }
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(tasksFile(), StandardCharsets.UTF_8)) {
+            writer.write("Code,Name,Status,Rep_User_Code");
+            writer.newLine();
+            for (int code = 1; code <= rows; code++) {
+                writer.write(code + ",task" + code + "," + random.nextInt(3) + "," + (random.nextInt(users) + 1));
+                writer.newLine();
+            }
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(logsFile(), StandardCharsets.UTF_8)) {
+            writer.write("Task_Code,Change_User_Code,Status,Change_Date");
+            writer.newLine();
+            for (int i = 0; i < rows; i++) {
+                int day = 1 + random.nextInt(28);
+                writer.write((random.nextInt(rows) + 1) + "," + (random.nextInt(users) + 1) + ","
+                        + random.nextInt(3) + ",2024-01-" + (day < 10 ? "0" + day : day));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * 生成先のディレクトリごと削除します。
+     *
+     * @throws IOException 削除に失敗した場合
+     */
+    public void delete() throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    public static String email(int code) {
+        return "user" + code + "@example.com";
+    }
+
+    public static String password(int code) {
+        return "password" + code;
+    }
+}
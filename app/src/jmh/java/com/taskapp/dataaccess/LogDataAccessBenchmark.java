@@ -0,0 +1,62 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import com.taskapp.model.Log;
+
+/**
+ * {@link LogDataAccess#save(Log)}のベンチマークです。
+ * 複数スレッドから同時に保存した場合にまとめて書き込まれる効果も計測します。
+ */
+@State(Scope.Benchmark)
+public class LogDataAccessBenchmark {
+    @Param({ "1000", "100000", "10000000" })
+    public int rows;
+
+    private CsvDataGenerator generator;
+
+    private LogDataAccess logDataAccess;
+
+    private final LocalDate today = LocalDate.now();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        generator = new CsvDataGenerator(Files.createTempDirectory("taskapp-bench"), rows);
+        generator.generate();
+        logDataAccess = new LogDataAccess(generator.logsFile().toString());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        logDataAccess.close();
+        generator.delete();
+    }
+
+    @Benchmark
+    public void save() {
+        logDataAccess.save(randomLog());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void saveConcurrently() {
+        logDataAccess.save(randomLog());
+    }
+
+    private Log randomLog() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new Log(random.nextInt(rows) + 1, 1, random.nextInt(3), today);
+    }
+}
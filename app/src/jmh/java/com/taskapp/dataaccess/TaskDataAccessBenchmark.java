@@ -0,0 +1,66 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.taskapp.model.Task;
+
+/**
+ * {@link TaskDataAccess}の一覧取得・コード検索・更新のベンチマークです。
+ */
+@State(Scope.Benchmark)
+public class TaskDataAccessBenchmark {
+    @Param({ "1000", "100000", "10000000" })
+    public int rows;
+
+    private CsvDataGenerator generator;
+
+    private TaskDataAccess taskDataAccess;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        generator = new CsvDataGenerator(Files.createTempDirectory("taskapp-bench"), rows);
+        generator.generate();
+        UserDataAccess userDataAccess = new UserDataAccess(generator.usersFile().toString());
+        taskDataAccess = new TaskDataAccess(generator.tasksFile().toString(), userDataAccess);
+        // 索引の作成を計測に含めないよう、事前に1回検索しておく
+        taskDataAccess.findByCode(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        generator.delete();
+    }
+
+    @Benchmark
+    public List<Task> findAll() {
+        return taskDataAccess.findAll();
+    }
+
+    @Benchmark
+    public Task findByCode() {
+        return taskDataAccess.findByCode(randomCode());
+    }
+
+    @Benchmark
+    public Task update() {
+        Task task = taskDataAccess.findByCode(randomCode());
+        task.setStatus((task.getStatus() + 1) % 3);
+        taskDataAccess.update(task);
+        return task;
+    }
+
+    private int randomCode() {
+        return ThreadLocalRandom.current().nextInt(rows) + 1;
+    }
+}
@@ -0,0 +1,47 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.taskapp.model.User;
+
+/**
+ * {@link UserDataAccess#findByEmailAndPassword(String, String)}のベンチマークです。
+ * ユーザー数は{@link CsvDataGenerator#MAX_USERS}が上限のため、行数の指定はそれ以下になります。
+ */
+@State(Scope.Benchmark)
+public class UserDataAccessBenchmark {
+    @Param({ "1000", "100000", "10000000" })
+    public int rows;
+
+    private CsvDataGenerator generator;
+
+    private UserDataAccess userDataAccess;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        generator = new CsvDataGenerator(Files.createTempDirectory("taskapp-bench"), rows);
+        generator.generate();
+        userDataAccess = new UserDataAccess(generator.usersFile().toString());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        generator.delete();
+    }
+
+    @Benchmark
+    public User findByEmailAndPassword() {
+        int code = ThreadLocalRandom.current().nextInt(generator.userCount()) + 1;
+        return userDataAccess.findByEmailAndPassword(CsvDataGenerator.email(code), CsvDataGenerator.password(code));
+    }
+}
@@ -1,11 +1,83 @@
 package com.taskapp;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+
+import com.taskapp.config.AppConfig;
+import com.taskapp.dataaccess.StorageEngine;
+import com.taskapp.logic.TaskLogic;
+import com.taskapp.logic.TaskRenderer;
+import com.taskapp.logic.UserLogic;
+import com.taskapp.metrics.MetricsRegistry;
+import com.taskapp.server.TaskServer;
 import com.taskapp.ui.TaskUI;
 
 public class App {
 
+    /**
+     * 引数なしで起動するとメニューを表示します。
+     * {@code --import <CSVファイル>}を指定すると、ログイン後にファイルのタスクを一括登録して終了します。
+     * {@code --export <tsv|jsonl>}を指定すると、ログイン後に全てのタスクを指定した形式で標準出力に出力して終了します。
+     * {@code --server [ポート]}を指定すると、HTTPサーバーとして起動します。
+     * データファイルの場所などは{@link AppConfig}で設定します。設定{@value AppConfig#PRELOAD}がtrueの場合は、
+     * メニューの表示やサーバーの起動の前に{@link #startUp(StorageEngine, TaskLogic, long)}を行います。
+     *
+     * @param args コマンドライン引数
+     */
     public static void main(String[] args) {
-        TaskUI ui = new TaskUI();
+        AppConfig config = AppConfig.global();
+        StorageEngine storageEngine = StorageEngine.configured();
+        TaskLogic taskLogic = new TaskLogic(storageEngine);
+        UserLogic userLogic = new UserLogic(storageEngine.users());
+        if (config.preload()) {
+            startUp(storageEngine, taskLogic, config.warmupMillis());
+        }
+        if (args.length >= 1 && "--server".equals(args[0])) {
+            serve(args.length >= 2 ? Integer.parseInt(args[1]) : TaskServer.DEFAULT_PORT, taskLogic, userLogic);
+            return;
+        }
+        TaskUI ui = new TaskUI(userLogic, taskLogic);
+        if (args.length == 2 && "--import".equals(args[0])) {
+            ui.inputImport(Paths.get(args[1]));
+            return;
+        }
+        if (args.length == 2 && "--export".equals(args[0])) {
+            ui.inputExport(TaskRenderer.Format.of(args[1]));
+            return;
+        }
         ui.displayMenu();
     }
+
+    /**
+     * 索引の読み込みとファイルのメモリマップを済ませ、解析と一覧表示の処理をウォームアップします。
+     * ウォームアップ中の計測値は実際の利用と区別できないため、最後に0に戻します。
+     *
+     * @param storageEngine 保存形式のエンジン
+     * @param taskLogic     タスクのロジック
+     * @param warmupMillis  ウォームアップに使う時間(ミリ秒)。解析と一覧表示で半分ずつ使います
+     */
+    private static void startUp(StorageEngine storageEngine, TaskLogic taskLogic, long warmupMillis) {
+        storageEngine.preload();
+        storageEngine.warmUp(warmupMillis / 2);
+        taskLogic.warmUp(warmupMillis / 2);
+        MetricsRegistry.global().reset();
+    }
+
+    /**
+     * 全てのセッションで共有するロジックでHTTPサーバーを起動します。
+     *
+     * @param port      待ち受けるポート
+     * @param taskLogic タスクのロジック
+     * @param userLogic ユーザーのロジック
+     */
+    private static void serve(int port, TaskLogic taskLogic, UserLogic userLogic) {
+        try {
+            TaskServer server = new TaskServer(new InetSocketAddress("localhost", port), taskLogic, userLogic);
+            server.start();
+            System.out.println("http://localhost:" + server.getAddress().getPort() + "/ で待ち受けています。");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
 }
@@ -0,0 +1,188 @@
+package com.taskapp.config;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.function.Function;
+
+/**
+ * アプリケーションの設定を読み取ります。
+ * 設定はキーごとに、システムプロパティ・環境変数・設定ファイル・既定値の順に探し、最初に見つかった値を使います。
+ * 環境変数の名前はキーを大文字にしてドットをアンダースコアに置き換えたもの(「taskapp.dataDir」なら「TASKAPP_DATADIR」)です。
+ * 設定ファイルはProperties形式で、場所は{@value #CONFIG_FILE}で指定します。指定がなければ作業ディレクトリの
+ * {@value #DEFAULT_CONFIG_FILE}を、存在する場合だけ読み込みます。
+ */
+public final class AppConfig {
+    /** 設定ファイルの場所を指定するキー */
+    public static final String CONFIG_FILE = "taskapp.config";
+
+    /** 既定の設定ファイル */
+    public static final String DEFAULT_CONFIG_FILE = "taskapp.properties";
+
+    /** データファイルを置くディレクトリを指定するキー */
+    public static final String DATA_DIRECTORY = "taskapp.dataDir";
+
+    /** データファイルを置く既定のディレクトリ */
+    public static final String DEFAULT_DATA_DIRECTORY = "app/src/main/resources";
+
+    /** 起動時に索引の読み込みとウォームアップを行うかどうかを指定するキー。値は"true"または"false"(既定)です */
+    public static final String PRELOAD = "taskapp.preload";
+
+    /** 起動時のウォームアップに使う時間(ミリ秒)を指定するキー */
+    public static final String WARMUP_MILLIS = "taskapp.warmupMillis";
+
+    /** 既定のウォームアップの時間(ミリ秒) */
+    public static final long DEFAULT_WARMUP_MILLIS = 1000;
+
+    private static volatile AppConfig global;
+
+    private final Function<String, String> systemProperties;
+
+    private final Function<String, String> environment;
+
+    private final Properties file;
+
+    /**
+     * @param systemProperties キーからシステムプロパティの値を返す関数
+     * @param environment      環境変数の名前から値を返す関数
+     * @param file             設定ファイルの内容
+     */
+    AppConfig(Function<String, String> systemProperties, Function<String, String> environment, Properties file) {
+        this.systemProperties = systemProperties;
+        this.environment = environment;
+        this.file = file;
+    }
+
+    /**
+     * アプリケーション全体で共有する設定を返します。初めて呼び出した時に設定ファイルを読み込みます。
+     * システムプロパティと環境変数は値を取得するたびに参照します。
+     *
+     * @return 共有の設定
+     */
+    public static AppConfig global() {
+        AppConfig current = global;
+        if (current == null) {
+            synchronized (AppConfig.class) {
+                current = global;
+                if (current == null) {
+                    current = load();
+                    global = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * システムプロパティ・環境変数・設定ファイルから設定を作成します。
+     *
+     * @return 作成した設定
+     */
+    public static AppConfig load() {
+        AppConfig withoutFile = new AppConfig(System::getProperty, System::getenv, new Properties());
+        String configFile = withoutFile.get(CONFIG_FILE, null);
+        Path path = Paths.get(configFile != null ? configFile : DEFAULT_CONFIG_FILE);
+        Properties file = new Properties();
+        if (configFile != null || Files.exists(path)) {
+            try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                file.load(reader);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return new AppConfig(System::getProperty, System::getenv, file);
+    }
+
+    /**
+     * @param key          設定のキー
+     * @param defaultValue どこにも指定がない場合の値
+     * @return 設定の値
+     */
+    public String get(String key, String defaultValue) {
+        String value = systemProperties.apply(key);
+        if (value == null) {
+            value = environment.apply(environmentName(key));
+        }
+        if (value == null) {
+            value = file.getProperty(key);
+        }
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * @param key          設定のキー
+     * @param defaultValue どこにも指定がない、または数値でない場合の値
+     * @return 設定の値
+     */
+    public long getLong(String key, long defaultValue) {
+        String value = get(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * @param key          設定のキー
+     * @param defaultValue どこにも指定がない、または数値でない場合の値
+     * @return 設定の値
+     */
+    public int getInt(String key, int defaultValue) {
+        long value = getLong(key, defaultValue);
+        return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE ? (int) value : defaultValue;
+    }
+
+    /**
+     * @param key 設定のキー
+     * @return 値が"true"(大文字・小文字は区別しない)の場合はtrue
+     */
+    public boolean getBoolean(String key) {
+        return Boolean.parseBoolean(get(key, "false").trim());
+    }
+
+    /**
+     * @return データファイルを置くディレクトリ
+     */
+    public String dataDirectory() {
+        return get(DATA_DIRECTORY, DEFAULT_DATA_DIRECTORY);
+    }
+
+    /**
+     * @param name データファイルの名前
+     * @return データファイルを置くディレクトリ内のパス
+     */
+    public String dataFile(String name) {
+        return Paths.get(dataDirectory(), name).toString();
+    }
+
+    /**
+     * @return 起動時に索引の読み込みとウォームアップを行う場合はtrue
+     */
+    public boolean preload() {
+        return getBoolean(PRELOAD);
+    }
+
+    /**
+     * @return 起動時のウォームアップに使う時間(ミリ秒)
+     */
+    public long warmupMillis() {
+        return getLong(WARMUP_MILLIS, DEFAULT_WARMUP_MILLIS);
+    }
+
+    /**
+     * @param key 設定のキー
+     * @return キーに対応する環境変数の名前
+     */
+    static String environmentName(String key) {
+        return key.toUpperCase(Locale.ROOT).replace('.', '_');
+    }
+}
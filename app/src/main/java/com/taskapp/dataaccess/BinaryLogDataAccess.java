@@ -0,0 +1,125 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.taskapp.model.Log;
+
+/**
+ * ログデータを長さ付きのバイナリレコードで保存する{@link LogRepository}です。
+ * 1レコードは「タスクコード(int)・変更ユーザーコード(int)・ステータス(int)・変更日(エポック日数のlong)」です。
+ *
+ * @see RecordFile
+ */
+public class BinaryLogDataAccess implements LogRepository {
+    /** ファイルの種類を表すマジックナンバー("LOGB") */
+    private static final int MAGIC = 0x4C4F4742;
+
+    private static final int RECORD_SIZE = Integer.BYTES * 3 + Long.BYTES;
+
+    private final RecordFile file;
+
+    /** 参照は共有ロック、追記・削除は排他ロックで行います */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * @param filePath 保存先のファイルのパス
+     */
+    public BinaryLogDataAccess(String filePath) {
+        this.file = new RecordFile(Paths.get(filePath), MAGIC);
+    }
+
+    @Override
+    public void save(Log log) {
+        byte[] payload = encode(log);
+        lock.writeLock().lock();
+        try {
+            file.append(payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void saveAll(List<Log> logs) {
+        List<byte[]> payloads = new ArrayList<>(logs.size());
+        for (Log log : logs) {
+            payloads.add(encode(log));
+        }
+        lock.writeLock().lock();
+        try {
+            file.appendAll(payloads);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Log> findAll() {
+        return find(-1, false);
+    }
+
+    @Override
+    public List<Log> findByTaskCode(int taskCode) {
+        return find(taskCode, true);
+    }
+
+    /**
+     * 先頭のタスクコードだけを見て該当するレコードを選び、該当したものだけを復元します。
+     */
+    private List<Log> find(int taskCode, boolean filter) {
+        List<Log> logs = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            file.scan((offset, payload) -> {
+                if (!filter || payload.getInt(payload.position()) == taskCode) {
+                    logs.add(new Log(payload.getInt(), payload.getInt(), payload.getInt(),
+                            LocalDate.ofEpochDay(payload.getLong())));
+                }
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            lock.readLock().unlock();
+        }
+        return logs;
+    }
+
+    @Override
+    public void deleteByTaskCode(int taskCode) {
+        lock.writeLock().lock();
+        try {
+            file.rewrite(payload -> payload.getInt(payload.position()) != taskCode);
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static byte[] encode(Log log) {
+        return ByteBuffer.allocate(RECORD_SIZE)
+                .putInt(log.getTaskCode())
+                .putInt(log.getChangeUserCode())
+                .putInt(log.getStatus())
+                .putLong(log.getChangeDate().toEpochDay())
+                .array();
+    }
+
+    /**
+     * 書き込みは都度完了しているため、解放するリソースはありません。
+     */
+    @Override
+    public void close() {
+    }
+}
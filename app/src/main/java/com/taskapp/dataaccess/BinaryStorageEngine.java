@@ -0,0 +1,67 @@
+package com.taskapp.dataaccess;
+
+import java.nio.file.Paths;
+
+/**
+ * タスクとログを長さ付きのバイナリレコード(tasks.bin・logs.bin)に保存するエンジンです。
+ * 件数の多いタスクとログの読み込みをCSVより高速に行えます。
+ * ユーザーは件数が少なく手で編集されることもあるため、users.csvをそのまま使います。
+ */
+public class BinaryStorageEngine implements StorageEngine {
+    static final String NAME = "binary";
+
+    private final String directory;
+
+    private UserDataAccess users;
+
+    private BinaryTaskDataAccess tasks;
+
+    private BinaryLogDataAccess logs;
+
+    private Journal journal;
+
+    /**
+     * @param directory データファイルを置くディレクトリ
+     */
+    public BinaryStorageEngine(String directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public synchronized UserDataAccess users() {
+        if (users == null) {
+            users = new UserDataAccess(file("users.csv"));
+        }
+        return users;
+    }
+
+    @Override
+    public synchronized BinaryTaskDataAccess tasks() {
+        if (tasks == null) {
+            tasks = new BinaryTaskDataAccess(file("tasks.bin"), users());
+        }
+        return tasks;
+    }
+
+    @Override
+    public synchronized BinaryLogDataAccess logs() {
+        if (logs == null) {
+            logs = new BinaryLogDataAccess(file("logs.bin"));
+        }
+        return logs;
+    }
+
+    @Override
+    public synchronized Journal journal() {
+        if (journal == null) {
+            journal = new Journal(Paths.get(directory, "journal.wal"), Paths.get(file("tasks.bin")),
+                    Paths.get(file("logs.bin")));
+            journal.recover(tasks(), logs(), users());
+        }
+        return journal;
+    }
+
+    private String file(String name) {
+        return Paths.get(directory, name).toString();
+    }
+}
@@ -0,0 +1,311 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * タスクデータを長さ付きのバイナリレコードで保存する{@link TaskRepository}です。
+ * 1レコードは「コード(int)・ステータス(int)・担当ユーザーコード(int)・タスク名(UTF-8)」です。
+ * 更新時にレコードのバイト数が変わらなければその位置に上書きし、変わる場合は末尾に追記します。
+ * 一覧の取得に使う全タスクの行はメモリに保持し、ファイルが変更されていなければ読み込み直しません。
+ * 自身の書き込みは保持している行に反映します。
+ *
+ * @see RecordFile
+ */
+public class BinaryTaskDataAccess implements TaskRepository {
+    /** ファイルの種類を表すマジックナンバー("TASK") */
+    private static final int MAGIC = 0x5441534B;
+
+    private static final int FIXED_SIZE = Integer.BYTES * 3;
+
+    private final RecordFile file;
+
+    private final UserRepository userRepository;
+
+    /** 参照は共有ロック、追記・上書きは排他ロックで行います */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private IntLongHashMap offsets;
+
+    private FileStamp indexedStamp;
+
+    /** {@link #findAll()}と{@link #find(TaskQuery)}で使う全タスクの行。書き込みのたびに新しいものに差し替えます */
+    private Snapshot snapshot;
+
+    /**
+     * @param filePath       保存先のファイルのパス
+     * @param userRepository 担当ユーザーの取得に使うリポジトリ
+     */
+    public BinaryTaskDataAccess(String filePath, UserRepository userRepository) {
+        this.file = new RecordFile(Paths.get(filePath), MAGIC);
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    public List<Task> findAll() {
+        Snapshot current;
+        lock.readLock().lock();
+        try {
+            current = snapshot();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new ArrayList<>();
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Set<Integer> userCodes = new HashSet<>();
+        for (int[] row : current.rows) {
+            userCodes.add(row[2]);
+        }
+        Map<Integer, User> users = userRepository.findByCodes(userCodes);
+        List<Task> tasks = new ArrayList<>(current.rows.size());
+        for (int i = 0; i < current.rows.size(); i++) {
+            int[] row = current.rows.get(i);
+            tasks.add(new Task(row[0], current.names.get(i), row[1], users.get(row[2])));
+        }
+        return tasks;
+    }
+
+    /**
+     * 保持している行の固定長部分だけで絞り込み、ページに含まれる行のタスクだけを作成します。
+     */
+    @Override
+    public TaskPage find(TaskQuery query) {
+        Snapshot current;
+        lock.readLock().lock();
+        try {
+            current = snapshot();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new TaskPage(new ArrayList<>(), false);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return query.select(current.rows, current.names::get, userRepository);
+    }
+
+    @Override
+    public void save(Task task) {
+        lock.writeLock().lock();
+        try {
+            FileStamp before = FileStamp.of(file.path());
+            long offset = file.append(encode(task));
+            indexAppended(task.getCode(), offset);
+            written(before, List.of(task));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void saveAll(List<Task> tasks) {
+        List<byte[]> payloads = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            payloads.add(encode(task));
+        }
+        lock.writeLock().lock();
+        try {
+            FileStamp before = FileStamp.of(file.path());
+            long[] offsets = file.appendAll(payloads);
+            for (int i = 0; i < offsets.length; i++) {
+                indexAppended(tasks.get(i).getCode(), offsets[i]);
+            }
+            written(before, tasks);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Task findByCode(int code) {
+        lock.readLock().lock();
+        try {
+            long offset = offsets().get(code);
+            if (offset == IntLongHashMap.MISSING) {
+                return null;
+            }
+            ByteBuffer payload = file.read(offset);
+            if (payload == null) {
+                return null;
+            }
+            int taskCode = payload.getInt();
+            int status = payload.getInt();
+            int repUserCode = payload.getInt();
+            return new Task(taskCode, decodeName(payload), status, userRepository.findByCode(repUserCode));
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            lock.readLock().unlock();
+        }
+        return null;
+    }
+
+    @Override
+    public void update(Task updateTask) {
+        lock.writeLock().lock();
+        try {
+            long offset = offsets().get(updateTask.getCode());
+            if (offset == IntLongHashMap.MISSING) {
+                return;
+            }
+            byte[] payload = encode(updateTask);
+            FileStamp before = FileStamp.of(file.path());
+            if (file.overwrite(offset, payload)) {
+                synchronized (this) {
+                    indexedStamp = FileStamp.of(file.path());
+                }
+            } else {
+                indexAppended(updateTask.getCode(), file.append(payload));
+            }
+            written(before, List.of(updateTask));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public FileStamp stamp() {
+        return FileStamp.of(file.path());
+    }
+
+    /**
+     * コードから最新のレコードの位置への索引を返します。
+     * ファイルが索引作成時から変更されていれば作り直します。
+     * 共有ロックを保持した複数のスレッドから呼ばれるため、索引の差し替えは同期して行います。
+     */
+    private synchronized IntLongHashMap offsets() throws IOException {
+        FileStamp stamp = FileStamp.of(file.path());
+        if (offsets == null || !stamp.equals(indexedStamp)) {
+            IntLongHashMap index = new IntLongHashMap();
+            file.scan((offset, payload) -> index.put(payload.getInt(payload.position()), offset));
+            offsets = index;
+            indexedStamp = stamp;
+        }
+        return offsets;
+    }
+
+    /**
+     * 自身が追記したレコードを索引に反映します。排他ロックを保持した状態で呼び出します。
+     */
+    private synchronized void indexAppended(int code, long offset) {
+        if (offsets != null) {
+            offsets.put(code, offset);
+            indexedStamp = FileStamp.of(file.path());
+        }
+    }
+
+    /**
+     * 全タスクの行を返します。ファイルが読み込み時から変更されていれば読み込み直します。
+     * 共有ロックを保持した複数のスレッドから呼ばれるため、差し替えは同期して行います。
+     */
+    private synchronized Snapshot snapshot() throws IOException {
+        FileStamp stamp = FileStamp.of(file.path());
+        if (snapshot == null || !stamp.equals(snapshot.stamp)) {
+            ChunkedList.Editor<String> names = ChunkedList.<String>of(List.of()).edit();
+            ChunkedList.Editor<int[]> rows = ChunkedList.<int[]>of(List.of()).edit();
+            IntLongHashMap positions = new IntLongHashMap();
+            file.scan((offset, payload) -> {
+                int[] row = { payload.getInt(), payload.getInt(), payload.getInt() };
+                String name = decodeName(payload);
+                long position = positions.get(row[0]);
+                if (position == IntLongHashMap.MISSING) {
+                    positions.put(row[0], rows.size());
+                    names.add(name);
+                    rows.add(row);
+                } else {
+                    names.set((int) position, name);
+                    rows.set((int) position, row);
+                }
+            });
+            snapshot = new Snapshot(stamp, names.build(), rows.build(), positions);
+        }
+        return snapshot;
+    }
+
+    /**
+     * 自身が書き込んだタスクを保持している行に反映します。排他ロックを保持した状態で呼び出します。
+     * 書き込み前に他から変更されていた場合は反映せず、次の参照で読み込み直します。
+     *
+     * @param before 書き込み前のファイルのスタンプ
+     * @param tasks  書き込んだタスク
+     */
+    private synchronized void written(FileStamp before, List<Task> tasks) {
+        if (snapshot != null && snapshot.stamp.equals(before)) {
+            snapshot = snapshot.apply(tasks, FileStamp.of(file.path()));
+        }
+    }
+
+    private static byte[] encode(Task task) {
+        byte[] name = task.getName().getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(FIXED_SIZE + name.length)
+                .putInt(task.getCode())
+                .putInt(task.getStatus())
+                .putInt(TaskDataAccess.repUserCode(task))
+                .put(name)
+                .array();
+    }
+
+    private static String decodeName(ByteBuffer payload) {
+        byte[] name = new byte[payload.remaining()];
+        payload.get(name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * ある時点の全タスクの行です。最初に現れた位置に、最後に書き込まれた内容を保持します。
+     * 作成後は変更せず、書き込みを反映する際は{@link #apply(List, FileStamp)}で新しいものを作成します。
+     */
+    private static final class Snapshot {
+        private final FileStamp stamp;
+        private final ChunkedList<String> names;
+        private final ChunkedList<int[]> rows;
+
+        /** コードから行番号への対応。新しいコードを追加するだけで、既存のコードの行番号は変わりません */
+        private final IntLongHashMap positions;
+
+        private Snapshot(FileStamp stamp, ChunkedList<String> names, ChunkedList<int[]> rows,
+                IntLongHashMap positions) {
+            this.stamp = stamp;
+            this.names = names;
+            this.rows = rows;
+            this.positions = positions;
+        }
+
+        private Snapshot apply(List<Task> tasks, FileStamp stamp) {
+            ChunkedList.Editor<String> newNames = names.edit();
+            ChunkedList.Editor<int[]> newRows = rows.edit();
+            for (Task task : tasks) {
+                int[] row = { task.getCode(), task.getStatus(), TaskDataAccess.repUserCode(task) };
+                long position = positions.get(task.getCode());
+                if (position == IntLongHashMap.MISSING) {
+                    positions.put(task.getCode(), newRows.size());
+                    newNames.add(task.getName());
+                    newRows.add(row);
+                } else {
+                    newNames.set((int) position, task.getName());
+                    newRows.set((int) position, row);
+                }
+            }
+            return new Snapshot(stamp, newNames.build(), newRows.build(), positions);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.taskapp.dataaccess;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * 要素を固定長のチャンクに分けて保持する不変のリストです。
+ * {@link #edit()}で変更した新しいリストを作成する際は、チャンクの配列と変更のあったチャンクだけを複写し、
+ * 残りのチャンクは元のリストと共有します。書き込みのたびに作り直すスナップショットで、全体の複写を避けるために使います。
+ *
+ * @param <E> 要素の型
+ */
+final class ChunkedList<E> extends AbstractList<E> implements RandomAccess {
+    private static final int CHUNK_SHIFT = 10;
+
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final Object[][] chunks;
+
+    private final int size;
+
+    private ChunkedList(Object[][] chunks, int size) {
+        this.chunks = chunks;
+        this.size = size;
+    }
+
+    /**
+     * @param elements 要素
+     * @return 要素を順に保持するリスト
+     */
+    static <E> ChunkedList<E> of(List<? extends E> elements) {
+        Editor<E> editor = new ChunkedList<E>(new Object[0][], 0).edit();
+        for (E element : elements) {
+            editor.add(element);
+        }
+        return editor.build();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        Objects.checkIndex(index, size);
+        return (E) chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * このリストを元に変更を加えるための編集用オブジェクトを作成します。このリスト自体は変更されません。
+     *
+     * @return 編集用オブジェクト
+     */
+    Editor<E> edit() {
+        return new Editor<>(this);
+    }
+
+    /**
+     * {@link ChunkedList}に変更をまとめて加え、新しいリストを作成します。
+     * 同じチャンクへの変更は、最初の1回だけ複写します。
+     * {@link #build()}の後は使わないでください。
+     *
+     * @param <E> 要素の型
+     */
+    static final class Editor<E> {
+        /** 元のリストのチャンク。これと同じチャンクは書き換える前に複写します */
+        private final Object[][] original;
+
+        private Object[][] chunks;
+
+        private int size;
+
+        private Editor(ChunkedList<E> list) {
+            this.original = list.chunks;
+            this.chunks = list.chunks.clone();
+            this.size = list.size;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void set(int index, E element) {
+            Objects.checkIndex(index, size);
+            writable(index >>> CHUNK_SHIFT)[index & CHUNK_MASK] = element;
+        }
+
+        void add(E element) {
+            int chunk = size >>> CHUNK_SHIFT;
+            if (chunk == chunks.length) {
+                chunks = Arrays.copyOf(chunks, chunk * 2 + 1);
+            }
+            writable(chunk)[size & CHUNK_MASK] = element;
+            size++;
+        }
+
+        ChunkedList<E> build() {
+            return new ChunkedList<>(chunks, size);
+        }
+
+        private Object[] writable(int index) {
+            Object[] chunk = chunks[index];
+            if (chunk == null) {
+                chunk = new Object[CHUNK_SIZE];
+                chunks[index] = chunk;
+            } else if (index < original.length && chunk == original[index]) {
+                chunk = chunk.clone();
+                chunks[index] = chunk;
+            }
+            return chunk;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.taskapp.metrics.IoMetrics;
+
+/**
+ * CSVファイルを行の位置(バイト単位)で扱うための処理をまとめたクラスです。
+ */
+final class CsvFiles {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int LINE_BUFFER_SIZE = 256;
+
+    private CsvFiles() {
+    }
+
+    /**
+     * 各行の先頭の列(コード)と行の先頭位置を受け取る処理です。
+     */
+    @FunctionalInterface
+    interface RowVisitor {
+        void visit(int code, long offset);
+    }
+
+    /**
+     * 指定した位置からファイルの終端までをバイト単位で走査し、
+     * 各行の先頭の列の数値と行の先頭位置を通知します。
+     * 先頭の列が数値でない行(ヘッダー行など)や、intの範囲を超える行は通知しません。
+     * 数値の判定は{@link CsvReader#nextInt()}と同じで、先頭の'-'は負の数として扱います。
+     * ダブルクォートで囲まれた列の中の改行は行の区切りとして扱いません。
+     *
+     * @param path    走査するファイル
+     * @param start   走査を開始する位置。行の先頭である必要があります
+     * @param visitor 通知先
+     * @return 走査を終えた位置(ファイルのサイズ)
+     * @throws IOException 読み込みに失敗した場合
+     */
+    static long scanCodes(Path path, long start, RowVisitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            IoMetrics.opened();
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            long position = start;
+            long lineStart = start;
+            long code = 0;
+            // 0: コードを読み込み中, 1: コードを読み終えた, 2: 対象外の行
+            int state = 0;
+            boolean hasDigit = false;
+            boolean negative = false;
+            boolean quoted = false;
+            int read;
+            while ((read = channel.read(buffer, position)) > 0) {
+                IoMetrics.read(read);
+                byte[] bytes = buffer.array();
+                for (int i = 0; i < read; i++, position++) {
+                    byte b = bytes[i];
+                    if (b == '"') {
+                        quoted = !quoted;
+                    }
+                    if (b == '\n' && !quoted) {
+                        if (state == 1) {
+                            visitor.visit((int) (negative ? -code : code), lineStart);
+                        }
+                        lineStart = position + 1;
+                        code = 0;
+                        state = 0;
+                        hasDigit = false;
+                        negative = false;
+                    } else if (state == 0) {
+                        if (b >= '0' && b <= '9') {
+                            code = code * 10 + (b - '0');
+                            hasDigit = true;
+                            if (code > (negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE)) {
+                                state = 2;
+                            }
+                        } else if (b == '-' && position == lineStart) {
+                            negative = true;
+                        } else {
+                            state = b == ',' && hasDigit ? 1 : 2;
+                        }
+                    }
+                }
+                buffer.clear();
+            }
+            if (state == 1) {
+                visitor.visit((int) (negative ? -code : code), lineStart);
+            }
+            return position;
+        }
+    }
+
+    /**
+     * 指定した位置から改行までの1行を読み込みます。
+     *
+     * @param channel 読み込むファイル
+     * @param offset  行の先頭位置
+     * @return 改行文字を除いた行
+     * @throws IOException 読み込みに失敗した場合
+     */
+    static String readLine(FileChannel channel, long offset) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(LINE_BUFFER_SIZE);
+        long position = offset;
+        int searched = 0;
+        while (true) {
+            int read = channel.read(buffer, position);
+            if (read > 0) {
+                IoMetrics.read(read);
+                position += read;
+            }
+            for (int i = searched; i < buffer.position(); i++) {
+                if (buffer.get(i) == '\n') {
+                    return decode(buffer, i);
+                }
+            }
+            searched = buffer.position();
+            if (read < 0) {
+                return decode(buffer, searched);
+            }
+            if (!buffer.hasRemaining()) {
+                ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+        }
+    }
+
+    /**
+     * 指定した位置から始まる行の終端(改行文字の次の位置)を探します。
+     *
+     * @param channel 読み込むファイル
+     * @param offset  行の先頭位置
+     * @return 行の終端。最後の行が改行で終わっていない場合はファイルのサイズ
+     * @throws IOException 読み込みに失敗した場合
+     */
+    static long lineEnd(FileChannel channel, long offset) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(LINE_BUFFER_SIZE);
+        long position = offset;
+        int read;
+        while ((read = channel.read(buffer, position)) > 0) {
+            IoMetrics.read(read);
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+            buffer.clear();
+        }
+        return position;
+    }
+
+    /**
+     * ファイルの最後の1バイトを読み込みます。
+     *
+     * @param channel 読み込むファイル
+     * @param size    ファイルのサイズ
+     * @return 最後の1バイト
+     * @throws IOException 読み込みに失敗した場合
+     */
+    static byte lastByte(FileChannel channel, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1);
+        IoMetrics.read(channel.read(buffer, size - 1));
+        return buffer.get(0);
+    }
+
+    /**
+     * 文字列をCSVの列として書き込める形式にします。
+     * カンマ・ダブルクォート・改行を含む場合はダブルクォートで囲みます。
+     *
+     * @param value 列の値
+     * @return CSVに書き込む列
+     */
+    static String escape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String decode(ByteBuffer buffer, int end) {
+        if (end > 0 && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        return new String(buffer.array(), 0, end, StandardCharsets.UTF_8);
+    }
+}
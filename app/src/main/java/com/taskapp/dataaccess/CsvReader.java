@@ -0,0 +1,426 @@
+package com.taskapp.dataaccess;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import com.taskapp.metrics.IoMetrics;
+
+/**
+ * UTF-8のCSVを行単位・列単位で読み進めるトークナイザーです。
+ * 読み込みバッファのバイト列から数値や日付を直接読み取り、文字列が必要な列だけ{@link String}を作ります。
+ * ダブルクォートで囲まれた列(列内のカンマ・改行・{@code ""}によるダブルクォート)にも対応します。
+ * {@link #map(MappedCsvFile)}で作成した場合は、メモリマップしたファイルをコピーせずに直接読み取ります。
+ *
+ * <pre>
+ * try (CsvReader reader = CsvReader.open(path)) {
+ *     while (reader.nextRow()) {
+ *         int code = reader.nextInt();
+ *         String name = reader.nextString();
+ *     }
+ * }
+ * </pre>
+ */
+final class CsvReader implements Closeable {
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /** 1行だけを読み込む場合のバッファサイズ */
+    static final int LINE_BUFFER_SIZE = 256;
+
+    private final FileChannel channel;
+
+    private final boolean ownsChannel;
+
+    /** 次にファイルから読み込む位置 */
+    private long filePosition;
+
+    /** 読み込みバッファ。位置やリミットは使わず、絶対位置で読み取ります */
+    private ByteBuffer buffer;
+
+    /** バッファの先頭がファイル内のどの位置にあたるか */
+    private long bufferOffset;
+
+    private int limit;
+
+    private boolean eof;
+
+    /** 現在の行の先頭 */
+    private int rowStart;
+
+    /** 現在の行の終端(改行文字の位置) */
+    private int rowEnd;
+
+    /** 次の行の先頭 */
+    private int nextRowStart;
+
+    /** 次に読む列の先頭。現在の行の列を全て読んだ場合は{@code rowEnd + 1} */
+    private int position;
+
+    private boolean inRow;
+
+    /**
+     * @param channel     読み込むファイル
+     * @param start       読み込みを開始する位置。行の先頭である必要があります
+     * @param bufferSize  読み込みバッファの初期サイズ
+     * @param ownsChannel {@link #close()}でファイルを閉じるかどうか
+     */
+    CsvReader(FileChannel channel, long start, int bufferSize, boolean ownsChannel) {
+        this.channel = channel;
+        this.filePosition = start;
+        this.bufferOffset = start;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+        this.ownsChannel = ownsChannel;
+    }
+
+    /**
+     * メモリマップしたファイル全体を読み込むトークナイザーを作成します。
+     *
+     * @param mapped ファイル全体をマップしたバッファ
+     */
+    private CsvReader(ByteBuffer mapped) {
+        this.channel = null;
+        this.ownsChannel = false;
+        this.buffer = mapped;
+        this.limit = mapped.limit();
+        this.eof = true;
+    }
+
+    /**
+     * ファイルの先頭から読み込むトークナイザーを作成します。
+     *
+     * @param path 読み込むファイル
+     * @return トークナイザー
+     * @throws IOException ファイルを開けなかった場合
+     */
+    static CsvReader open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        IoMetrics.opened();
+        return new CsvReader(channel, 0, DEFAULT_BUFFER_SIZE, true);
+    }
+
+    /**
+     * メモリマップしたファイルを先頭から読み込むトークナイザーを作成します。
+     * ファイルがマップできない大きさの場合は、通常の読み込みを行うトークナイザーを返します。
+     *
+     * @param file 読み込むファイル
+     * @return トークナイザー
+     * @throws IOException ファイルを開けなかった場合
+     */
+    static CsvReader map(MappedCsvFile file) throws IOException {
+        ByteBuffer mapped = file.map();
+        return mapped != null ? new CsvReader(mapped) : open(file.path());
+    }
+
+    /**
+     * メモリ上のバイト列を読み込むトークナイザーを作成します。
+     * 行の位置はバッファの先頭からの位置になります。
+     *
+     * @param bytes positionからlimitまでが読み込む範囲のバッファ
+     * @return トークナイザー
+     */
+    static CsvReader of(ByteBuffer bytes) {
+        return new CsvReader(bytes.slice());
+    }
+
+    /**
+     * 指定した位置から始まる1行を読み込むためのトークナイザーを作成します。
+     * 読み込みは行が収まるだけの小さい単位で行います。
+     *
+     * @param channel 読み込むファイル。トークナイザーを閉じても閉じられません
+     * @param offset  行の先頭位置
+     * @return 最初の行に進んだ状態のトークナイザー。行がない場合はnull
+     * @throws IOException 読み込みに失敗した場合
+     */
+    static CsvReader at(FileChannel channel, long offset) throws IOException {
+        CsvReader reader = new CsvReader(channel, offset, LINE_BUFFER_SIZE, false);
+        return reader.nextRow() ? reader : null;
+    }
+
+    /**
+     * 次の行に進みます。空行は読み飛ばします。
+     *
+     * @return 次の行があればtrue
+     * @throws IOException 読み込みに失敗した場合
+     */
+    boolean nextRow() throws IOException {
+        int start = inRow ? nextRowStart : rowStart;
+        inRow = false;
+        while (true) {
+            int i = start;
+            boolean quoted = false;
+            while (true) {
+                if (i >= limit) {
+                    if (eof) {
+                        if (start >= limit) {
+                            rowStart = limit;
+                            return false;
+                        }
+                        rowEnd = limit;
+                        nextRowStart = limit;
+                        break;
+                    }
+                    int shift = compact(start);
+                    start -= shift;
+                    i -= shift;
+                    fill();
+                    continue;
+                }
+                byte b = buffer.get(i);
+                if (b == '"') {
+                    quoted = !quoted;
+                } else if (b == '\n' && !quoted) {
+                    rowEnd = i;
+                    nextRowStart = i + 1;
+                    break;
+                }
+                i++;
+            }
+            if (rowEnd > start && buffer.get(rowEnd - 1) == '\r') {
+                rowEnd--;
+            }
+            if (rowEnd > start) {
+                rowStart = start;
+                position = start;
+                inRow = true;
+                return true;
+            }
+            start = nextRowStart;
+        }
+    }
+
+    /**
+     * @return 現在の行の先頭のファイル内の位置
+     */
+    long rowOffset() {
+        return bufferOffset + rowStart;
+    }
+
+    /**
+     * @return 現在の行の終端(改行文字の次)のファイル内の位置
+     */
+    long rowEndOffset() {
+        return bufferOffset + nextRowStart;
+    }
+
+    /**
+     * @return 現在の行にまだ読んでいない列があればtrue
+     */
+    boolean hasField() {
+        return inRow && position <= rowEnd;
+    }
+
+    /**
+     * 次の列が数値(先頭が数字、または負号と数字)かどうかを判定します。列は読み進めません。
+     *
+     * @return 数値であればtrue
+     */
+    boolean isIntField() {
+        if (!hasField() || position >= rowEnd) {
+            return false;
+        }
+        int i = buffer.get(position) == '-' ? position + 1 : position;
+        return i < rowEnd && buffer.get(i) >= '0' && buffer.get(i) <= '9';
+    }
+
+    /**
+     * 次の列を数値として読み取ります。
+     *
+     * @return 読み取った数値
+     * @throws NumberFormatException 列が数値でない、またはintの範囲を超える場合
+     */
+    int nextInt() {
+        requireField();
+        if (position < rowEnd && buffer.get(position) == '"') {
+            return Integer.parseInt(nextString());
+        }
+        int i = position;
+        boolean negative = i < rowEnd && buffer.get(i) == '-';
+        if (negative) {
+            i++;
+        }
+        int digitsStart = i;
+        long max = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+        long value = 0;
+        for (; i < rowEnd && buffer.get(i) != ','; i++) {
+            byte b = buffer.get(i);
+            if (b < '0' || b > '9') {
+                throw new NumberFormatException("数値ではない列です: " + text(position, fieldEnd(position)));
+            }
+            value = value * 10 + (b - '0');
+            if (value > max) {
+                throw new NumberFormatException("数値の範囲を超えています: " + text(position, fieldEnd(position)));
+            }
+        }
+        if (i == digitsStart) {
+            throw new NumberFormatException("数値の列が空です");
+        }
+        position = i + 1;
+        return (int) (negative ? -value : value);
+    }
+
+    /**
+     * 次の列を{@code yyyy-MM-dd}形式の日付として読み取ります。
+     *
+     * @return 読み取った日付
+     */
+    LocalDate nextDate() {
+        requireField();
+        int end = fieldEnd(position);
+        if (end - position == 10 && buffer.get(position + 4) == '-' && buffer.get(position + 7) == '-') {
+            int year = digits(position, 4);
+            int month = digits(position + 5, 2);
+            int day = digits(position + 8, 2);
+            if (year >= 0 && month >= 0 && day >= 0) {
+                position = end + 1;
+                return LocalDate.of(year, month, day);
+            }
+        }
+        return LocalDate.parse(nextString());
+    }
+
+    /**
+     * 次の列を文字列として読み取ります。
+     *
+     * @return 読み取った文字列。ダブルクォートで囲まれている場合は外した値
+     */
+    String nextString() {
+        requireField();
+        if (position < rowEnd && buffer.get(position) == '"') {
+            return nextQuoted();
+        }
+        int end = fieldEnd(position);
+        String value = text(position, end);
+        position = end + 1;
+        return value;
+    }
+
+    /**
+     * 次の列を読み飛ばします。
+     */
+    void skipField() {
+        requireField();
+        if (position < rowEnd && buffer.get(position) == '"') {
+            nextQuoted();
+            return;
+        }
+        position = fieldEnd(position) + 1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (ownsChannel) {
+            channel.close();
+        }
+    }
+
+    private String nextQuoted() {
+        ByteArrayOutputStream value = new ByteArrayOutputStream();
+        int i = position + 1;
+        int chunkStart = i;
+        while (i < rowEnd) {
+            if (buffer.get(i) == '"') {
+                write(value, chunkStart, i);
+                if (i + 1 < rowEnd && buffer.get(i + 1) == '"') {
+                    value.write('"');
+                    i += 2;
+                    chunkStart = i;
+                    continue;
+                }
+                i++;
+                chunkStart = -1;
+                break;
+            }
+            i++;
+        }
+        if (chunkStart >= 0) {
+            write(value, chunkStart, i);
+        }
+        position = fieldEnd(i) + 1;
+        return new String(value.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private void requireField() {
+        if (!hasField()) {
+            throw new IllegalStateException("読み込める列がありません");
+        }
+    }
+
+    private int fieldEnd(int from) {
+        int i = from;
+        while (i < rowEnd && buffer.get(i) != ',') {
+            i++;
+        }
+        return i;
+    }
+
+    private int digits(int from, int length) {
+        int value = 0;
+        for (int i = from; i < from + length; i++) {
+            byte b = buffer.get(i);
+            if (b < '0' || b > '9') {
+                return -1;
+            }
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+
+    private String text(int from, int to) {
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), from, to - from, StandardCharsets.UTF_8);
+        }
+        return new String(bytes(from, to), StandardCharsets.UTF_8);
+    }
+
+    private void write(ByteArrayOutputStream out, int from, int to) {
+        if (buffer.hasArray()) {
+            out.write(buffer.array(), from, to - from);
+        } else {
+            out.writeBytes(bytes(from, to));
+        }
+    }
+
+    private byte[] bytes(int from, int to) {
+        byte[] bytes = new byte[to - from];
+        buffer.duplicate().position(from).get(bytes);
+        return bytes;
+    }
+
+    /**
+     * 未読の部分をバッファの先頭に詰め、空きがなければバッファを拡張します。
+     *
+     * @param keepFrom 残しておく部分の先頭
+     * @return 詰めたバイト数
+     */
+    private int compact(int keepFrom) {
+        int remaining = limit - keepFrom;
+        byte[] array = buffer.array();
+        if (keepFrom > 0) {
+            System.arraycopy(array, keepFrom, array, 0, remaining);
+            bufferOffset += keepFrom;
+            limit = remaining;
+        }
+        if (limit == array.length) {
+            buffer = ByteBuffer.wrap(Arrays.copyOf(array, array.length * 2));
+        }
+        return keepFrom;
+    }
+
+    private void fill() throws IOException {
+        int read = channel.read(ByteBuffer.wrap(buffer.array(), limit, buffer.capacity() - limit), filePosition);
+        if (read < 0) {
+            eof = true;
+            return;
+        }
+        IoMetrics.read(read);
+        limit += read;
+        filePosition += read;
+    }
+}
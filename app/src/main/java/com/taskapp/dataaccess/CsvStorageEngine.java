@@ -0,0 +1,108 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import com.taskapp.model.Log;
+
+/**
+ * users.csv・tasks.csv・logs.csvに保存するエンジンです。
+ */
+public class CsvStorageEngine implements StorageEngine {
+    static final String NAME = "csv";
+
+    /** ウォームアップで1回に解析するログの件数 */
+    private static final int WARMUP_LOG_ROWS = 10_000;
+
+    private final String directory;
+
+    private UserDataAccess users;
+
+    private TaskDataAccess tasks;
+
+    private LogDataAccess logs;
+
+    private Journal journal;
+
+    /**
+     * @param directory CSVファイルを置くディレクトリ
+     */
+    public CsvStorageEngine(String directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public synchronized UserDataAccess users() {
+        if (users == null) {
+            users = new UserDataAccess(file("users.csv"));
+        }
+        return users;
+    }
+
+    @Override
+    public synchronized TaskDataAccess tasks() {
+        if (tasks == null) {
+            tasks = new TaskDataAccess(file("tasks.csv"), users());
+        }
+        return tasks;
+    }
+
+    @Override
+    public synchronized LogDataAccess logs() {
+        if (logs == null) {
+            logs = new LogDataAccess(file("logs.csv"));
+        }
+        return logs;
+    }
+
+    @Override
+    public synchronized Journal journal() {
+        if (journal == null) {
+            journal = new Journal(Paths.get(directory, "journal.wal"), Paths.get(file("tasks.csv")),
+                    Paths.get(file("logs.csv")));
+            journal.recover(tasks(), logs(), users());
+        }
+        return journal;
+    }
+
+    /**
+     * 索引の読み込みに加えて、ログファイル全体をメモリマップしてページキャッシュに読み込みます。
+     */
+    @Override
+    public void preload() {
+        StorageEngine.super.preload();
+        try {
+            logs().preload();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * users.csv・tasks.csvの全件とlogs.csvの先頭の一部を、指定した時間の間繰り返し解析します。
+     * 毎回新しいDataAccessで読み込むため、このエンジンのスナップショットや索引は置き換えません。
+     */
+    @Override
+    public void warmUp(long millis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        // 共有のキャッシュの内容と統計を変えないよう、ウォームアップ用のキャッシュを使う
+        UserCache cache = new UserCache(UserCache.DEFAULT_MAXIMUM_SIZE);
+        do {
+            UserDataAccess freshUsers = new UserDataAccess(file("users.csv"), cache);
+            new TaskDataAccess(file("tasks.csv"), freshUsers).findAll();
+            try (Stream<Log> logs = new LogDataAccess(file("logs.csv")).stream()) {
+                logs.limit(WARMUP_LOG_ROWS).count();
+            } catch (UncheckedIOException e) {
+                e.printStackTrace();
+                return;
+            }
+        } while (System.nanoTime() < deadline);
+    }
+
+    private String file(String name) {
+        return Paths.get(directory, name).toString();
+    }
+}
@@ -0,0 +1,61 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * ファイルの更新日時とサイズの組です。
+ * メモリ上の索引が読み込み時点のファイルと一致しているかの判定に使います。
+ */
+public final class FileStamp {
+    /** ファイルが存在しないことを表すスタンプ */
+    static final FileStamp MISSING = new FileStamp(-1, -1);
+
+    private final long lastModified;
+    private final long size;
+
+    FileStamp(long lastModified, long size) {
+        this.lastModified = lastModified;
+        this.size = size;
+    }
+
+    /**
+     * ファイルの現在のスタンプを取得します。
+     *
+     * @param path 対象のファイル
+     * @return スタンプ。ファイルが存在しない場合は{@link #MISSING}
+     */
+    static FileStamp of(Path path) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return new FileStamp(attributes.lastModifiedTime().toMillis(), attributes.size());
+        } catch (IOException e) {
+            return MISSING;
+        }
+    }
+
+    long lastModified() {
+        return lastModified;
+    }
+
+    long size() {
+        return size;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(lastModified) * 31 + Long.hashCode(size);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof FileStamp))
+            return false;
+        FileStamp other = (FileStamp) obj;
+        return lastModified == other.lastModified && size == other.size;
+    }
+}
@@ -0,0 +1,145 @@
+package com.taskapp.dataaccess;
+
+import java.util.Arrays;
+
+/**
+ * int型のキーとlong型の値を対応付けるオープンアドレス法のハッシュテーブルです。
+ * キー・値をボクシングせずにプリミティブ配列へ直接格納します。
+ * 更新は1スレッドずつ行う必要があります。
+ * 更新中の参照は例外を起こしませんが、古い値や{@link #MISSING}を返すことがあるため、
+ * 呼び出し側で結果を検証してください。
+ */
+final class IntLongHashMap {
+    /** 値が存在しないことを表す戻り値 */
+    static final long MISSING = -1L;
+
+    private static final int EMPTY_KEY = 0;
+
+    /** キー配列と値配列の組。拡張時は組ごと差し替えます */
+    private volatile Table table;
+    private int size;
+    private boolean hasZeroKey;
+    private long zeroValue;
+
+    IntLongHashMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize 想定される要素数
+     */
+    IntLongHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        table = new Table(capacity);
+    }
+
+    /**
+     * キーに対応する値を取得します。
+     *
+     * @param key キー
+     * @return 値。存在しない場合は{@link #MISSING}
+     */
+    long get(int key) {
+        if (key == EMPTY_KEY) {
+            return hasZeroKey ? zeroValue : MISSING;
+        }
+        Table current = table;
+        int[] keys = current.keys;
+        int mask = keys.length - 1;
+        for (int slot = mix(key) & mask;; slot = (slot + 1) & mask) {
+            int found = keys[slot];
+            if (found == key) {
+                return current.values[slot];
+            }
+            if (found == EMPTY_KEY) {
+                return MISSING;
+            }
+        }
+    }
+
+    /**
+     * キーに値を対応付けます。既に存在する場合は上書きします。
+     *
+     * @param key   キー
+     * @param value 値
+     */
+    void put(int key, long value) {
+        if (key == EMPTY_KEY) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return;
+        }
+        Table current = table;
+        int[] keys = current.keys;
+        long[] values = current.values;
+        int mask = keys.length - 1;
+        for (int slot = mix(key) & mask;; slot = (slot + 1) & mask) {
+            int found = keys[slot];
+            if (found == key) {
+                values[slot] = value;
+                return;
+            }
+            if (found == EMPTY_KEY) {
+                values[slot] = value;
+                keys[slot] = key;
+                if (++size * 2 > keys.length) {
+                    resize();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return 格納している要素数
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * 全ての要素を削除します。
+     */
+    void clear() {
+        Arrays.fill(table.keys, EMPTY_KEY);
+        size = 0;
+        hasZeroKey = false;
+    }
+
+    private void resize() {
+        Table old = table;
+        Table resized = new Table(old.keys.length * 2);
+        int mask = resized.keys.length - 1;
+        for (int i = 0; i < old.keys.length; i++) {
+            int key = old.keys[i];
+            if (key == EMPTY_KEY) {
+                continue;
+            }
+            int slot = mix(key) & mask;
+            while (resized.keys[slot] != EMPTY_KEY) {
+                slot = (slot + 1) & mask;
+            }
+            resized.keys[slot] = key;
+            resized.values[slot] = old.values[i];
+        }
+        table = resized;
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static final class Table {
+        private final int[] keys;
+        private final long[] values;
+
+        private Table(int capacity) {
+            keys = new int[capacity];
+            values = new long[capacity];
+        }
+    }
+}
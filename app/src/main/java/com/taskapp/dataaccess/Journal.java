@@ -0,0 +1,249 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.taskapp.metrics.IoMetrics;
+
+/**
+ * タスクとログの変更を、データファイルへ反映する前に記録する先行書き込みジャーナルです。
+ * 1回の操作で行う変更(タスクの登録とそのログなど)を1件のエントリーとしてまとめて追記し、fsyncは1回だけ行います。
+ * 同時に記録されたエントリーは1回のfsyncでまとめて永続化されます。
+ * データファイルへの反映はfsyncせずに行い、ジャーナルが一定の大きさを超えた時点でデータファイルをfsyncして
+ * 反映済みのエントリーを取り除きます(チェックポイント)。反映が終わっていないエントリーは残します。
+ * 反映の途中で異常終了した場合は、次回起動時に{@link #recover(TaskRepository, LogRepository, UserRepository)}で
+ * 未反映のエントリーを反映し直します。
+ *
+ * <pre>
+ * long sequence = journal.commit(new JournalEntry().insertTask(task).appendLog(log));
+ * taskRepository.save(task);
+ * logRepository.save(log);
+ * journal.applied(sequence);
+ * </pre>
+ */
+public class Journal {
+    /** ファイルの種類を表すマジックナンバー("JRNL") */
+    private static final int MAGIC = 0x4A524E4C;
+
+    /** チェックポイントを行うジャーナルの既定のバイト数 */
+    private static final long DEFAULT_CHECKPOINT_BYTES = 1024 * 1024;
+
+    private final RecordFile file;
+
+    private final List<Path> dataFiles;
+
+    private final long checkpointBytes;
+
+    /** ジャーナルがこのバイト数を超えたらチェックポイントを行います */
+    private long nextCheckpoint;
+
+    private FileChannel channel;
+
+    private long nextSequence = 1;
+
+    /** 記録したがデータファイルへの反映が終わっていないエントリーの通し番号 */
+    private final Set<Long> pending = new HashSet<>();
+
+    /** fsyncを直列化するロック。待っている間に記録されたエントリーも一緒に永続化します */
+    private final Object syncLock = new Object();
+
+    /** 記録済みの最大の通し番号 */
+    private long appendedSequence;
+
+    /** 永続化済みの最大の通し番号 */
+    private volatile long durableSequence;
+
+    /**
+     * @param path      ジャーナルファイルのパス
+     * @param dataFiles チェックポイントでfsyncするデータファイル
+     */
+    public Journal(Path path, Path... dataFiles) {
+        this(path, DEFAULT_CHECKPOINT_BYTES, dataFiles);
+    }
+
+    /**
+     * @param path            ジャーナルファイルのパス
+     * @param checkpointBytes ジャーナルがこのバイト数を超えたらチェックポイントを行います
+     * @param dataFiles       チェックポイントでfsyncするデータファイル
+     */
+    public Journal(Path path, long checkpointBytes, Path... dataFiles) {
+        this.file = new RecordFile(path, MAGIC);
+        this.checkpointBytes = checkpointBytes;
+        this.nextCheckpoint = checkpointBytes;
+        this.dataFiles = List.of(dataFiles);
+    }
+
+    /**
+     * 未反映のエントリーをデータファイルへ反映し、チェックポイントを行います。
+     * エントリーは既に反映済みであっても結果が変わらないように反映されます。
+     * 他の操作を始める前に1回だけ呼び出してください。
+     *
+     * @param taskRepository タスクの反映先
+     * @param logRepository  ログの反映先
+     * @param userRepository 担当ユーザーの取得に使うリポジトリ
+     */
+    public synchronized void recover(TaskRepository taskRepository, LogRepository logRepository,
+            UserRepository userRepository) {
+        List<ByteBuffer> entries = new ArrayList<>();
+        Set<Long> applied = new TreeSet<>();
+        try {
+            file.scan((offset, payload) -> {
+                if (payload.remaining() == Long.BYTES) {
+                    applied.add(payload.getLong(payload.position()));
+                    return;
+                }
+                if (!JournalEntry.isValid(payload)) {
+                    // 書き込み途中で終わったエントリーは永続化されておらず、操作も完了していない
+                    return;
+                }
+                ByteBuffer copy = ByteBuffer.allocate(payload.remaining());
+                copy.put(payload).flip();
+                entries.add(copy);
+            });
+            for (ByteBuffer entry : entries) {
+                long sequence = JournalEntry.sequence(entry);
+                nextSequence = Math.max(nextSequence, sequence + 1);
+                if (!applied.contains(sequence)) {
+                    JournalEntry.replay(entry, taskRepository, logRepository, userRepository);
+                }
+            }
+            checkpoint();
+        } catch (IOException | UncheckedIOException e) {
+            // 反映し直せなかったエントリーはジャーナルに残し、次回起動時に再び反映する
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * エントリーを記録し、永続化されるまで待機します。
+     *
+     * @param entry 記録する変更
+     * @return エントリーの通し番号。記録に失敗した場合は-1
+     */
+    public long commit(JournalEntry entry) {
+        long sequence;
+        try {
+            synchronized (this) {
+                sequence = nextSequence++;
+                file.append(channel(), entry.encode(sequence));
+                pending.add(sequence);
+                appendedSequence = sequence;
+            }
+            sync(sequence);
+            return sequence;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return -1;
+    }
+
+    /**
+     * エントリーのデータファイルへの反映が終わったことを記録します。
+     * ジャーナルが一定の大きさを超えていればチェックポイントを行います。
+     *
+     * @param sequence {@link #commit(JournalEntry)}が返した通し番号
+     */
+    public synchronized void applied(long sequence) {
+        if (!pending.remove(sequence)) {
+            return;
+        }
+        try {
+            // 反映済みの印はfsyncしない。失われても再反映は結果が変わらない
+            file.append(channel(), ByteBuffer.allocate(Long.BYTES).putLong(sequence).array());
+            if (channel().size() > nextCheckpoint) {
+                checkpoint();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * ジャーナルファイルを閉じます。
+     */
+    public synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        channel = null;
+    }
+
+    /**
+     * 指定した通し番号までのエントリーを永続化します。
+     * 他のスレッドのfsyncを待っている間に記録されたエントリーは、次の1回のfsyncでまとめて永続化されます。
+     */
+    private void sync(long sequence) throws IOException {
+        while (durableSequence < sequence) {
+            synchronized (syncLock) {
+                if (durableSequence >= sequence) {
+                    return;
+                }
+                long target;
+                FileChannel current;
+                synchronized (this) {
+                    target = appendedSequence;
+                    current = channel();
+                }
+                try {
+                    current.force(false);
+                } catch (ClosedChannelException e) {
+                    // チェックポイントでファイルが置き換えられた。置き換え後のファイルは永続化済み
+                    continue;
+                }
+                durableSequence = Math.max(durableSequence, target);
+            }
+        }
+    }
+
+    /**
+     * データファイルをfsyncしてから、反映済みのエントリーをジャーナルから取り除きます。
+     * 反映が終わっていないエントリーがあれば、それだけを残した新しいファイルに置き換えます。
+     * 置き換えずに待つと、書き込みが続く間や反映に失敗したエントリーがある間はジャーナルが大きくなり続けるためです。
+     */
+    private void checkpoint() throws IOException {
+        for (Path dataFile : dataFiles) {
+            if (Files.exists(dataFile)) {
+                try (FileChannel data = FileChannel.open(dataFile, StandardOpenOption.WRITE)) {
+                    IoMetrics.opened();
+                    data.force(true);
+                }
+            }
+        }
+        if (pending.isEmpty()) {
+            FileChannel current = channel();
+            current.truncate(RecordFile.HEADER_SIZE);
+            current.force(true);
+        } else {
+            Set<Long> unapplied = new HashSet<>(pending);
+            // 反映済みの印は、対応するエントリーと一緒に取り除く
+            file.rewrite(payload -> JournalEntry.isValid(payload) && unapplied.contains(JournalEntry.sequence(payload)));
+            close();
+            // 置き換え後のファイルは永続化済みのため、記録済みのエントリーは全て永続化されている
+            durableSequence = Math.max(durableSequence, appendedSequence);
+        }
+        nextCheckpoint = channel().size() + checkpointBytes;
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            channel = file.open();
+        }
+        return channel;
+    }
+}
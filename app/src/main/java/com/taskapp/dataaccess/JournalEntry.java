@@ -0,0 +1,196 @@
+package com.taskapp.dataaccess;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import com.taskapp.model.Log;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * {@link Journal}に1回で記録する変更のまとまりです。
+ * タスクの登録とそのログのように、一緒に反映されなければならない変更をまとめます。
+ *
+ * <pre>
+ * long sequence = journal.commit(new JournalEntry().insertTask(task).appendLog(log));
+ * </pre>
+ */
+public class JournalEntry {
+    private static final byte INSERT_TASK = 1;
+
+    private static final byte UPDATE_TASK = 2;
+
+    private static final byte APPEND_LOG = 3;
+
+    private final List<Mutation> mutations = new ArrayList<>();
+
+    /**
+     * タスクの新規登録を追加します。
+     *
+     * @param task 登録するタスク
+     * @return このエントリー
+     */
+    public JournalEntry insertTask(Task task) {
+        mutations.add(new Mutation(INSERT_TASK, task, null));
+        return this;
+    }
+
+    /**
+     * タスクの更新を追加します。
+     *
+     * @param task 更新後のタスク
+     * @return このエントリー
+     */
+    public JournalEntry updateTask(Task task) {
+        mutations.add(new Mutation(UPDATE_TASK, task, null));
+        return this;
+    }
+
+    /**
+     * ログの追記を追加します。
+     *
+     * @param log 追記するログ
+     * @return このエントリー
+     */
+    public JournalEntry appendLog(Log log) {
+        mutations.add(new Mutation(APPEND_LOG, null, log));
+        return this;
+    }
+
+    /**
+     * 通し番号と変更内容を、末尾にCRC32を付けたバイト列にします。
+     * 変更は種類を表す1バイトに続けて、タスクは「コード・ステータス・担当ユーザーコード・タスク名」、
+     * ログは「タスクコード・変更ユーザーコード・ステータス・変更日(エポック日数)」の順に書き込みます。
+     */
+    byte[] encode(long sequence) {
+        int size = Long.BYTES + Integer.BYTES + Integer.BYTES;
+        List<byte[]> names = new ArrayList<>();
+        for (Mutation mutation : mutations) {
+            size += 1;
+            if (mutation.kind == APPEND_LOG) {
+                size += Integer.BYTES * 3 + Long.BYTES;
+            } else {
+                byte[] name = mutation.task.getName().getBytes(StandardCharsets.UTF_8);
+                names.add(name);
+                size += Integer.BYTES * 4 + name.length;
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putLong(sequence).putInt(mutations.size());
+        int nameIndex = 0;
+        for (Mutation mutation : mutations) {
+            buffer.put(mutation.kind);
+            if (mutation.kind == APPEND_LOG) {
+                Log log = mutation.log;
+                buffer.putInt(log.getTaskCode())
+                        .putInt(log.getChangeUserCode())
+                        .putInt(log.getStatus())
+                        .putLong(log.getChangeDate().toEpochDay());
+            } else {
+                Task task = mutation.task;
+                byte[] name = names.get(nameIndex++);
+                buffer.putInt(task.getCode())
+                        .putInt(task.getStatus())
+                        .putInt(TaskDataAccess.repUserCode(task))
+                        .putInt(name.length)
+                        .put(name);
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        return buffer.array();
+    }
+
+    /**
+     * @param payload エントリーのバイト列
+     * @return CRC32が一致すればtrue
+     */
+    static boolean isValid(ByteBuffer payload) {
+        if (payload.remaining() < Long.BYTES + Integer.BYTES * 2) {
+            return false;
+        }
+        ByteBuffer body = payload.duplicate();
+        body.limit(body.limit() - Integer.BYTES);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return (int) crc.getValue() == payload.getInt(payload.limit() - Integer.BYTES);
+    }
+
+    /**
+     * @param payload エントリーのバイト列
+     * @return 通し番号
+     */
+    static long sequence(ByteBuffer payload) {
+        return payload.getLong(payload.position());
+    }
+
+    /**
+     * エントリーの変更を、既に反映済みであっても結果が変わらないように反映します。
+     * タスクは存在しなければ登録、存在すれば記録された内容で更新し、
+     * ログは同じ内容のログが既に存在しなければ追記します。
+     *
+     * @param payload        エントリーのバイト列
+     * @param taskRepository タスクの反映先
+     * @param logRepository  ログの反映先
+     * @param userRepository 担当ユーザーの取得に使うリポジトリ
+     */
+    static void replay(ByteBuffer payload, TaskRepository taskRepository, LogRepository logRepository,
+            UserRepository userRepository) {
+        ByteBuffer buffer = payload.duplicate();
+        buffer.getLong();
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            byte kind = buffer.get();
+            if (kind == APPEND_LOG) {
+                Log log = new Log(buffer.getInt(), buffer.getInt(), buffer.getInt(),
+                        LocalDate.ofEpochDay(buffer.getLong()));
+                if (!containsSameLog(logRepository.findByTaskCode(log.getTaskCode()), log)) {
+                    logRepository.save(log);
+                }
+                continue;
+            }
+            int code = buffer.getInt();
+            int status = buffer.getInt();
+            User repUser = userRepository.findByCode(buffer.getInt());
+            byte[] name = new byte[buffer.getInt()];
+            buffer.get(name);
+            if (repUser == null) {
+                // 担当ユーザーが削除されている場合は反映できない
+                continue;
+            }
+            Task task = new Task(code, new String(name, StandardCharsets.UTF_8), status, repUser);
+            if (taskRepository.findByCode(code) == null) {
+                taskRepository.save(task);
+            } else {
+                taskRepository.update(task);
+            }
+        }
+    }
+
+    private static boolean containsSameLog(List<Log> logs, Log log) {
+        for (Log existing : logs) {
+            if (existing.getChangeUserCode() == log.getChangeUserCode() && existing.getStatus() == log.getStatus()
+                    && existing.getChangeDate().equals(log.getChangeDate())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Mutation {
+        private final byte kind;
+        private final Task task;
+        private final Log log;
+
+        private Mutation(byte kind, Task task, Log log) {
+            this.kind = kind;
+            this.task = task;
+            this.log = log;
+        }
+    }
+}
@@ -0,0 +1,412 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+
+import com.taskapp.metrics.IoMetrics;
+
+/**
+ * ログのCSVを1回だけ読み込み、ステータスの変化にかかった日数・ユーザーごとの完了数・日ごとのステータス別のタスク数を
+ * 集計します。
+ * ファイルを行の途中で切れないようにチャンクに分け、各チャンクを{@link ForkJoinPool}で並列に集計してから、
+ * 隣り合うチャンクの結果をファイル内の順に合わせます。
+ * チャンクの境界は決めた位置の直後の改行を探すだけで求め、チャンクごとに必要な範囲だけをメモリマップするため、
+ * 2GBを超えるファイルも読み込めます。ログの列にはダブルクォートで囲む値がないため、改行で分けても行は壊れません。
+ */
+public class LogAnalyzer {
+    /** 1チャンクの既定のバイト数 */
+    public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    /** 集計するステータスの数(0~2) */
+    private static final int STATUS_COUNT = 3;
+
+    /** 日付がないことを表す値 */
+    private static final int NO_DAY = Integer.MAX_VALUE;
+
+    private final Path path;
+
+    private final int chunkSize;
+
+    /**
+     * @param path 読み込むログファイル
+     */
+    public LogAnalyzer(Path path) {
+        this(path, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param path      読み込むログファイル
+     * @param chunkSize 1チャンクのおおよそのバイト数
+     */
+    public LogAnalyzer(Path path, int chunkSize) {
+        this.path = path;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * ファイル全体を集計します。
+     *
+     * @param pool チャンクの集計に使うプール
+     * @return 集計結果
+     * @throws IOException ファイルを読み込めなかった場合
+     */
+    public LogStatistics analyze(ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            IoMetrics.opened();
+            long[] bounds = boundaries(channel);
+            try {
+                return pool.invoke(new ChunkTask(channel, bounds, 0, bounds.length - 1)).toStatistics();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * チャンクの境界を求めます。境界はチャンクの大きさごとの位置から最初の改行の直後に置きます。
+     *
+     * @return 先頭(0)と末尾(ファイルのバイト数)を含む境界の位置
+     */
+    private long[] boundaries(FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        long previous = 0;
+        while (previous + chunkSize < size) {
+            long bound = CsvFiles.lineEnd(channel, previous + chunkSize - 1);
+            if (bound >= size) {
+                break;
+            }
+            bounds.add(bound);
+            previous = bound;
+        }
+        if (size > 0) {
+            bounds.add(size);
+        }
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * 1つのチャンクを集計します。
+     */
+    private static Partial analyze(FileChannel channel, long start, long end) throws IOException {
+        Partial partial = new Partial();
+        try (CsvReader reader = CsvReader.of(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start))) {
+            IoMetrics.read(end - start);
+            while (reader.nextRow()) {
+                if (!reader.isIntField()) {
+                    if (start != 0 || reader.rowOffset() != 0) {
+                        partial.skipped++;
+                    }
+                    continue;
+                }
+                int taskCode;
+                int changeUserCode;
+                int status;
+                LocalDate changeDate;
+                try {
+                    taskCode = reader.nextInt();
+                    changeUserCode = reader.nextInt();
+                    status = reader.nextInt();
+                    changeDate = reader.nextDate();
+                } catch (RuntimeException e) {
+                    partial.skipped++;
+                    continue;
+                }
+                if (status < 0 || status >= STATUS_COUNT) {
+                    partial.skipped++;
+                    continue;
+                }
+                partial.add(taskCode, changeUserCode, status, (int) changeDate.toEpochDay());
+            }
+        }
+        return partial;
+    }
+
+    /**
+     * 1つ以上の連続したチャンクの集計結果です。
+     * 日ごとのステータス別のタスク数は、その日に増えた数と減った数の差として持ちます。
+     * 各タスクの範囲内で最初のログは、それより前のステータスが分からないため、増えた数だけを数えて
+     * {@link TaskTable}に残しておき、前の範囲と合わせる時に前の範囲の最後のステータスから減らします。
+     */
+    private static final class Partial {
+        private long logs;
+
+        private long skipped;
+
+        private final TaskTable tasks = new TaskTable();
+
+        /** ユーザーコードと日を合わせたキーごとの完了数 */
+        private final Map<Long, int[]> completions = new HashMap<>();
+
+        /** 日ごとの、ステータスを添字にしたタスク数の増減 */
+        private final Map<Integer, int[]> deltas = new HashMap<>();
+
+        /** ログは日付順に並ぶため、直前の行と同じ日の増減は表を引かずに更新する */
+        private int currentDay = NO_DAY;
+
+        private int[] currentDelta;
+
+        void add(int taskCode, int changeUserCode, int status, int day) {
+            logs++;
+            if (status == STATUS_COUNT - 1) {
+                completions.computeIfAbsent(userDay(changeUserCode, day), key -> new int[1])[0]++;
+            }
+            int[] delta = delta(day);
+            delta[status]++;
+            int previous = tasks.add(taskCode, status, day);
+            if (previous >= 0) {
+                delta[previous]--;
+            }
+        }
+
+        /**
+         * 直後の範囲の集計結果を合わせます。
+         *
+         * @param next ファイル内でこの結果の直後に続く範囲の集計結果
+         */
+        void merge(Partial next) {
+            logs += next.logs;
+            skipped += next.skipped;
+            next.completions.forEach((key, count) -> completions.merge(key, count, (a, b) -> {
+                a[0] += b[0];
+                return a;
+            }));
+            next.deltas.forEach((day, delta) -> deltas.merge(day, delta, (a, b) -> {
+                for (int i = 0; i < STATUS_COUNT; i++) {
+                    a[i] += b[i];
+                }
+                return a;
+            }));
+            currentDay = NO_DAY;
+            tasks.merge(next.tasks, this);
+        }
+
+        LogStatistics toStatistics() {
+            Map<Integer, Integer> startDays = new HashMap<>();
+            Map<Integer, Integer> completionDays = new HashMap<>();
+            tasks.forEachFirstDays((taskCode, days) -> {
+                if (days[0] != NO_DAY && days[1] != NO_DAY && days[1] >= days[0]) {
+                    startDays.put(taskCode, days[1] - days[0]);
+                }
+                if (days[1] != NO_DAY && days[2] != NO_DAY && days[2] >= days[1]) {
+                    completionDays.put(taskCode, days[2] - days[1]);
+                }
+            });
+            Map<Integer, SortedMap<LocalDate, Integer>> completionsByUser = new HashMap<>();
+            completions.forEach((key, count) -> completionsByUser
+                    .computeIfAbsent((int) (key >> 32), user -> new TreeMap<>())
+                    .put(LocalDate.ofEpochDay((int) (long) key), count[0]));
+            SortedMap<LocalDate, int[]> statusCounts = new TreeMap<>();
+            int[] counts = new int[STATUS_COUNT];
+            for (Map.Entry<Integer, int[]> entry : new TreeMap<>(deltas).entrySet()) {
+                for (int i = 0; i < STATUS_COUNT; i++) {
+                    counts[i] += entry.getValue()[i];
+                }
+                statusCounts.put(LocalDate.ofEpochDay(entry.getKey()), counts.clone());
+            }
+            return new LogStatistics(logs, skipped, startDays, completionDays, completionsByUser, statusCounts);
+        }
+
+        private int[] delta(int day) {
+            if (day != currentDay) {
+                currentDelta = deltas.computeIfAbsent(day, key -> new int[STATUS_COUNT]);
+                currentDay = day;
+            }
+            return currentDelta;
+        }
+
+        private static long userDay(int userCode, int day) {
+            return ((long) userCode << 32) | (day & 0xFFFFFFFFL);
+        }
+    }
+
+    /**
+     * タスクコードごとの最後のステータス・範囲内で最初のログの日・ステータスごとの最初の日を保持する
+     * オープンアドレス法のハッシュテーブルです。1行ごとに1回だけ引けば済むよう、値をボクシングせずに
+     * キーと同じ添字の配列へまとめて格納します。
+     */
+    private static final class TaskTable {
+        private int[] keys;
+
+        /** 最後のステータスに1を足した値。0は空きを表します */
+        private byte[] lastStatuses;
+
+        /** 範囲内で最初のログの日 */
+        private int[] firstLogDays;
+
+        /** ステータスごとの最初の日。1つのタスクにつき{@link LogAnalyzer#STATUS_COUNT}個ずつ並べます */
+        private int[] firstDays;
+
+        private int size;
+
+        TaskTable() {
+            this(1024);
+        }
+
+        private TaskTable(int capacity) {
+            keys = new int[capacity];
+            lastStatuses = new byte[capacity];
+            firstLogDays = new int[capacity];
+            firstDays = new int[capacity * STATUS_COUNT];
+        }
+
+        /**
+         * ログを1件加えます。
+         *
+         * @return このログの前のステータス。範囲内で最初のログの場合は-1
+         */
+        int add(int taskCode, int status, int day) {
+            ensureCapacity();
+            int slot = slot(taskCode);
+            int previous = lastStatuses[slot] - 1;
+            if (previous < 0) {
+                insert(slot, taskCode);
+                firstLogDays[slot] = day;
+            }
+            lastStatuses[slot] = (byte) (status + 1);
+            int index = slot * STATUS_COUNT + status;
+            firstDays[index] = Math.min(firstDays[index], day);
+            return previous;
+        }
+
+        /**
+         * 直後の範囲のタスクを合わせます。どちらの範囲にもあるタスクは、直後の範囲で最初のログの前のステータスが
+         * この範囲の最後のステータスだと分かるため、その日の増減から減らします。
+         */
+        void merge(TaskTable next, Partial partial) {
+            for (int i = 0; i < next.keys.length; i++) {
+                if (next.lastStatuses[i] == 0) {
+                    continue;
+                }
+                ensureCapacity();
+                int slot = slot(next.keys[i]);
+                if (lastStatuses[slot] == 0) {
+                    insert(slot, next.keys[i]);
+                    firstLogDays[slot] = next.firstLogDays[i];
+                } else {
+                    partial.delta(next.firstLogDays[i])[lastStatuses[slot] - 1]--;
+                }
+                lastStatuses[slot] = next.lastStatuses[i];
+                for (int s = 0; s < STATUS_COUNT; s++) {
+                    int index = slot * STATUS_COUNT + s;
+                    firstDays[index] = Math.min(firstDays[index], next.firstDays[i * STATUS_COUNT + s]);
+                }
+            }
+        }
+
+        void forEachFirstDays(BiConsumer<Integer, int[]> action) {
+            int[] days = new int[STATUS_COUNT];
+            for (int i = 0; i < keys.length; i++) {
+                if (lastStatuses[i] != 0) {
+                    System.arraycopy(firstDays, i * STATUS_COUNT, days, 0, STATUS_COUNT);
+                    action.accept(keys[i], days);
+                }
+            }
+        }
+
+        /**
+         * @return キーがある位置、またはキーを入れる空きの位置
+         */
+        private int slot(int key) {
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            while (lastStatuses[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        /**
+         * 空きの位置にキーを入れ、ステータスごとの最初の日を空にします。
+         */
+        private void insert(int slot, int key) {
+            keys[slot] = key;
+            Arrays.fill(firstDays, slot * STATUS_COUNT, slot * STATUS_COUNT + STATUS_COUNT, NO_DAY);
+            size++;
+        }
+
+        /**
+         * 1件加えると表が半分を超える場合に、表を2倍にして入れ直します。
+         */
+        private void ensureCapacity() {
+            if ((size + 1) * 2 <= keys.length) {
+                return;
+            }
+            TaskTable resized = new TaskTable(keys.length * 2);
+            for (int i = 0; i < keys.length; i++) {
+                if (lastStatuses[i] == 0) {
+                    continue;
+                }
+                int slot = resized.slot(keys[i]);
+                resized.keys[slot] = keys[i];
+                resized.lastStatuses[slot] = lastStatuses[i];
+                resized.firstLogDays[slot] = firstLogDays[i];
+                System.arraycopy(firstDays, i * STATUS_COUNT, resized.firstDays, slot * STATUS_COUNT, STATUS_COUNT);
+            }
+            keys = resized.keys;
+            lastStatuses = resized.lastStatuses;
+            firstLogDays = resized.firstLogDays;
+            firstDays = resized.firstDays;
+        }
+
+        private static int mix(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+
+    /**
+     * チャンクの範囲を半分に分けて並列に集計し、結果をファイル内の順に合わせます。
+     */
+    private static final class ChunkTask extends RecursiveTask<Partial> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient FileChannel channel;
+        private final long[] bounds;
+        private final int from;
+        private final int to;
+
+        private ChunkTask(FileChannel channel, long[] bounds, int from, int to) {
+            this.channel = channel;
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from <= 1) {
+                if (to <= from) {
+                    return new Partial();
+                }
+                try {
+                    return analyze(channel, bounds[from], bounds[to]);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            int middle = (from + to) >>> 1;
+            ChunkTask left = new ChunkTask(channel, bounds, from, middle);
+            left.fork();
+            Partial right = new ChunkTask(channel, bounds, middle, to).compute();
+            Partial partial = left.join();
+            partial.merge(right);
+            return partial;
+        }
+    }
+}
@@ -1,17 +1,52 @@
 package com.taskapp.dataaccess;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import com.taskapp.config.AppConfig;
+import com.taskapp.metrics.IoMetrics;
 import com.taskapp.model.Log;
 
-public class LogDataAccess {
+public class LogDataAccess implements LogRepository {
     private final String filePath;
 
+    private final long flushIntervalMillis;
 
+    private final int maxBatchSize;
+
+    private final boolean fsync;
+
+    private final LogIndex index;
+
+    /** {@link #stream()}で全件を読み込むためのメモリマップ */
+    private final MappedCsvFile mappedFile;
+
+    private LogWriter writer;
+
+    /**
+     * 設定されたデータディレクトリのlogs.csvを使います。
+     *
+     * @see AppConfig#dataFile(String)
+     */
     public LogDataAccess() {
-        filePath = "app/src/main/resources/logs.csv";
+        this(AppConfig.global().dataFile("logs.csv"));
     }
 
     /**
@@ -19,50 +54,283 @@ public class LogDataAccess {
      * @param filePath
      */
     public LogDataAccess(String filePath) {
+        this(filePath, 0, 256, false);
+    }
+
+    /**
+     * 書き込みのまとめ方を指定してインスタンスを作成します。
+     *
+     * @param filePath            ログファイルのパス
+     * @param flushIntervalMillis 書き込みを行う前に後続のログを待つ時間(ミリ秒)
+     * @param maxBatchSize        1回の書き込みにまとめる最大件数
+     * @param fsync               書き込みごとにfsyncするかどうか
+     */
+    public LogDataAccess(String filePath, long flushIntervalMillis, int maxBatchSize, boolean fsync) {
         this.filePath = filePath;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.fsync = fsync;
+        this.index = new LogIndex(Paths.get(filePath));
+        this.mappedFile = new MappedCsvFile(Paths.get(filePath));
     }
 
     /**
      * ログをCSVファイルに保存します。
+     * 書き込みが完了するまで待機します。
      *
+     * @see #append(Log)
      * @param log 保存するログ
+     * @throws UncheckedIOException 書き込みに失敗した場合
      */
+    @Override
     public void save(Log log) {
-        try (BufferedWriter writer=new BufferedWriter(new FileWriter(filePath,true))) {
-            writer.write(log.getTaskCode()+","+log.getStatus()+","+log.getChangeUserCode()+","+log.getChangeDate());
-            writer.newLine();
+        await(append(log));
+    }
+
+    /**
+     * 複数のログをCSVファイルにまとめて保存します。
+     * 全てのログは1回の書き込みで追記され、書き込みが完了するまで待機します。
+     *
+     * @param logs 保存するログのリスト
+     * @throws UncheckedIOException 書き込みに失敗した場合
+     */
+    @Override
+    public void saveAll(List<Log> logs) {
+        if (logs.isEmpty()) {
+            return;
+        }
+        int[] taskCodes = new int[logs.size()];
+        String[] lines = new String[logs.size()];
+        for (int i = 0; i < lines.length; i++) {
+            taskCodes[i] = logs.get(i).getTaskCode();
+            lines[i] = createLine(logs.get(i));
+        }
+        await(writer().appendAll(taskCodes, lines));
+    }
+
+    /**
+     * 書き込みの完了を待機し、失敗していれば呼び出し元に伝えます。
+     *
+     * @param future {@link LogWriter}が返したFuture
+     * @throws UncheckedIOException 書き込みに失敗した場合
+     */
+    private static void await(CompletableFuture<Void> future) {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw new UncheckedIOException((IOException) e.getCause());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * ログの追記を依頼します。
+     * 同時期に依頼されたログは1回の書き込みにまとめてCSVファイルへ反映されます。
+     *
+     * @param log 保存するログ
+     * @return ログが書き込まれた(fsync有効時は永続化された)時点で完了するFuture
+     */
+    public CompletableFuture<Void> append(Log log) {
+        return writer().append(log.getTaskCode(), createLine(log));
+    }
+
+    /**
+     * ログの書き込みスレッドを終了します。未書き込みのログは書き込んでから終了し、
+     * タスクコードの索引を索引ファイルに保存します。
+     */
+    @Override
+    public synchronized void close() {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+        try {
+            index.flush();
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    private synchronized LogWriter writer() {
+        if (writer == null) {
+            writer = new LogWriter(Paths.get(filePath), flushIntervalMillis, maxBatchSize, fsync, index);
+        }
+        return writer;
+    }
+
     /**
      * すべてのログを取得します。
      *
+     * @see #stream()
      * @return すべてのログのリスト
      */
-    // public List<Log> findAll() {
-    //     try () {
+    @Override
+    public List<Log> findAll() {
+        try (Stream<Log> logs = stream()) {
+            return logs.collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            e.printStackTrace();
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * すべてのログを先頭から順に読み込むストリームを返します。
+     * ログは要素を取り出すたびに1件ずつ読み込まれるため、ファイルの大きさに関わらず
+     * 使用するメモリは一定です。途中で打ち切ることもできます。
+     * ファイルはメモリマップして読み込み、前回から伸びていなければ同じマップを使い回します。
+     * ファイルを開いたままにしないよう、try-with-resourcesで閉じてください。
+     *
+     * @return ログのストリーム
+     * @throws UncheckedIOException ファイルを開けなかった、または読み込みに失敗した場合
+     */
+    public Stream<Log> stream() {
+        LogReader reader;
+        try {
+            reader = new LogReader(CsvReader.map(mappedFile));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Spliterator<Log> spliterator = Spliterators.spliteratorUnknownSize(reader,
+                Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false)
+                .onClose(() -> {
+                    try {
+                        reader.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    /**
+     * ログファイルへの追記を追いかけ、追記されたログを書き込まれた順にリスナーへ届けます。
+     * 届けるのは書き込みスレッドがファイルへ書き込んだ後です。
+     * 最後に受け取った{@link LogListener#onLog(Log, long)}の位置を保存しておき、次回その位置から再開すれば、
+     * 前回以降に追記されたログだけを受け取れます。ログの削除でファイルが置き換えられた場合は先頭から届け直します。
+     *
+     * @param fromOffset 読み込みを始める位置。0の場合は先頭から、{@link LogFeed#FROM_END}の場合は現在の終端から
+     * @param listener   ログを受け取るリスナー
+     * @return 開始したフィード。不要になったら閉じてください
+     * @throws UncheckedIOException ファイルの変更を待ち受けられなかった場合
+     */
+    public LogFeed follow(long fromOffset, LogListener listener) {
+        try {
+            LogFeed feed = new LogFeed(Paths.get(filePath), fromOffset, listener);
+            feed.start();
+            return feed;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * タスクコードの索引を読み込み、ログファイル全体をメモリマップしてページキャッシュに読み込みます。
+     * 最初の{@link #findByTaskCode(int)}と{@link #stream()}でファイルを読む時間がかからなくなります。
+     *
+     * @throws IOException ファイルを読み込めなかった場合
+     */
+    void preload() throws IOException {
+        if (!Files.exists(Paths.get(filePath))) {
+            return;
+        }
+        index.offsets(0);
+        mappedFile.load();
+    }
+
+    /**
+     * ログファイル全体を並列に集計します。
+     *
+     * @see LogAnalyzer#analyze(ForkJoinPool)
+     * @param pool チャンクの集計に使うプール
+     * @return 集計結果
+     * @throws UncheckedIOException ファイルを読み込めなかった場合
+     */
+    public LogStatistics analyze(ForkJoinPool pool) {
+        try {
+            return new LogAnalyzer(Paths.get(filePath)).analyze(pool);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-    //     } catch (IOException e) {
-    //         e.printStackTrace();
-    //     }
-    //     return null;
-    // }
+    /**
+     * 指定したタスクコードのログを、書き込まれた順に取得します。
+     * タスクコードの索引から該当する行の位置を求め、その行だけを読み込みます。
+     *
+     * @param taskCode 取得するログのタスクコード
+     * @return 該当するログのリスト
+     */
+    @Override
+    public List<Log> findByTaskCode(int taskCode) {
+        List<Log> logs = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            IoMetrics.opened();
+            for (long offset : index.offsets(taskCode)) {
+                CsvReader reader = CsvReader.at(channel, offset);
+                if (reader != null) {
+                    logs.add(LogReader.parse(reader));
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return logs;
+    }
 
     /**
      * 指定したタスクコードに該当するログを削除します。
+     * タスクコードの索引から削除する行の位置を求め、それ以外の範囲をそのまま新しいファイルへ複写してから
+     * 元のファイルと置き換えます。行の解析は行いません。
      *
-     * @see #findAll()
      * @param taskCode 削除するログのタスクコード
      */
-    // public void deleteByTaskCode(int taskCode) {
-    //     try () {
+    @Override
+    public synchronized void deleteByTaskCode(int taskCode) {
+        close();
+        Path path = Paths.get(filePath);
+        try {
+            long[] starts = index.offsets(taskCode);
+            if (starts.length == 0) {
+                return;
+            }
+            Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+            long[][] removed = new long[starts.length][];
+            try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ);
+                    FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                IoMetrics.opened();
+                IoMetrics.opened();
+                long position = 0;
+                for (int i = 0; i < starts.length; i++) {
+                    long end = CsvFiles.lineEnd(in, starts[i]);
+                    transfer(in, position, starts[i], out);
+                    removed[i] = new long[] { starts[i], end };
+                    position = end;
+                }
+                transfer(in, position, in.size(), out);
+            }
+            try {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+            index.removed(taskCode, removed);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
 
-    //     } catch (IOException e) {
-    //         e.printStackTrace();
-    //     }
-    // }
+    private static void transfer(FileChannel in, long from, long to, FileChannel out) throws IOException {
+        long position = from;
+        while (position < to) {
+            long transferred = in.transferTo(position, to - position, out);
+            IoMetrics.read(transferred);
+            IoMetrics.written(transferred);
+            position += transferred;
+        }
+    }
 
     /**
      * ログをCSVファイルに書き込むためのフォーマットを作成します。
@@ -70,7 +338,8 @@ public class LogDataAccess {
      * @param log フォーマットを作成するログ
      * @return CSVファイルに書き込むためのフォーマット
      */
-    // private String createLine(Log log) {
-    // }
+    private String createLine(Log log) {
+        return log.getTaskCode() + "," + log.getChangeUserCode() + "," + log.getStatus() + "," + log.getChangeDate();
+    }
 
 }
\ No newline at end of file
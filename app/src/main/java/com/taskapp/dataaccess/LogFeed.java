@@ -0,0 +1,247 @@
+package com.taskapp.dataaccess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+
+import com.taskapp.metrics.IoMetrics;
+import com.taskapp.model.Log;
+
+/**
+ * ログのCSVの末尾を追いかけ、追記されたログを{@link LogListener}へ順に届けます。
+ * 前回読み終えた位置から現在のファイルの終端までだけを読み込むため、確認1回の費用は追記された量に比例します。
+ * 書き込み途中の改行で終わっていない行は、次回の確認まで届けません。
+ *
+ * <p>ファイルの変更は{@link WatchService}で待ち受け、通知が届かない環境のために一定間隔でも確認します。
+ * 届けたログの次の行の位置をチェックポイントとして保存しておけば、そこから再開できます。
+ * リスナーが例外をスローしたログや、ファイルが置き換えられた(ログの削除など)場合は同じログを再度届けるため、
+ * 配信は少なくとも1回(at-least-once)です。
+ */
+public final class LogFeed implements Closeable {
+    /** ファイルの終端から追いかけ始めることを表す位置 */
+    public static final long FROM_END = -1;
+
+    /** 変更の通知がなくても確認する間隔(ミリ秒) */
+    static final long POLL_INTERVAL_MILLIS = 1000;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path path;
+
+    private final LogListener listener;
+
+    private final WatchService watchService;
+
+    private final Thread thread;
+
+    /** 次に読み込む行の先頭位置 */
+    private long offset;
+
+    /** 前回確認した時のファイルの識別子。置き換えの検出に使います */
+    private Object fileKey;
+
+    /**
+     * @param path       追いかけるログファイル
+     * @param fromOffset 読み込みを始める位置。{@link #FROM_END}の場合は現在の終端
+     * @param listener   ログを受け取るリスナー
+     * @throws IOException 変更の待ち受けを開始できなかった場合
+     */
+    LogFeed(Path path, long fromOffset, LogListener listener) throws IOException {
+        this.path = path.toAbsolutePath();
+        this.listener = listener;
+        this.offset = fromOffset == FROM_END ? (Files.exists(path) ? Files.size(path) : 0) : fromOffset;
+        this.fileKey = fileKey();
+        if (offset > 0 && !startsLine(offset)) {
+            // 保存したチェックポイントが今のファイルの行の先頭でなければ、先頭から届け直す
+            offset = 0;
+        }
+        this.watchService = this.path.getFileSystem().newWatchService();
+        this.path.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        this.thread = new Thread(this::run, "log-feed-" + path.getFileName());
+        thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * @return 次に読み込む行の先頭位置。届け終えたログの直後を指します
+     */
+    public synchronized long checkpoint() {
+        return offset;
+    }
+
+    /**
+     * 追いかけるのを終了します。
+     */
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        thread.interrupt();
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                poll();
+                WatchKey key = watchService.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    // 同じ確認でまとめて読み込むため、イベントの中身は見ずに捨てる
+                    key.pollEvents();
+                    key.reset();
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // 終了
+        }
+    }
+
+    /**
+     * 前回の位置から現在の終端までの完全な行を読み込み、ログをリスナーへ届けます。
+     *
+     * @return 届けたログの数
+     */
+    synchronized int poll() {
+        try {
+            Object key = fileKey();
+            if (key != null && fileKey != null && !key.equals(fileKey)) {
+                offset = 0;
+            }
+            fileKey = key;
+            return readFrom();
+        } catch (NoSuchFileException e) {
+            return 0;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
+    private int readFrom() throws IOException {
+        int delivered = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            IoMetrics.opened();
+            long size = channel.size();
+            if (size < offset) {
+                // 切り詰められた
+                offset = 0;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            while (offset + buffer.position() < size) {
+                int read = channel.read(buffer, offset + buffer.position());
+                if (read <= 0) {
+                    break;
+                }
+                IoMetrics.read(read);
+                int end = lastNewline(buffer);
+                if (end < 0) {
+                    if (!buffer.hasRemaining()) {
+                        // 1行がバッファに収まらない
+                        ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                        buffer.flip();
+                        buffer = larger.put(buffer);
+                    }
+                    continue;
+                }
+                long before = offset;
+                delivered += deliver(buffer, end + 1);
+                if (offset != before + end + 1) {
+                    // リスナーが例外をスローしたため、残りは次回の確認で届け直す
+                    return delivered;
+                }
+                buffer.flip().position(end + 1);
+                buffer.compact();
+            }
+        }
+        return delivered;
+    }
+
+    /**
+     * バッファの先頭から指定した位置までの行を解析し、ログを1件ずつリスナーへ届けます。
+     * 届けるたびに位置を進め、リスナーが例外をスローした場合はそのログの手前で止めます。
+     *
+     * @return 届けたログの数
+     */
+    private int deliver(ByteBuffer buffer, int length) {
+        long base = offset;
+        int delivered = 0;
+        try (CsvReader reader = CsvReader.of(ByteBuffer.wrap(buffer.array(), 0, length))) {
+            while (reader.nextRow()) {
+                long next = base + reader.rowEndOffset();
+                if (reader.isIntField()) {
+                    Log log;
+                    try {
+                        log = LogReader.parse(reader);
+                    } catch (RuntimeException e) {
+                        // 形式が壊れている行は届けずに読み飛ばす
+                        offset = next;
+                        continue;
+                    }
+                    try {
+                        listener.onLog(log, next);
+                    } catch (RuntimeException e) {
+                        e.printStackTrace();
+                        return delivered;
+                    }
+                    delivered++;
+                }
+                offset = next;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        offset = base + length;
+        return delivered;
+    }
+
+    private static int lastNewline(ByteBuffer buffer) {
+        for (int i = buffer.position() - 1; i >= 0; i--) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 指定した位置が行の先頭(改行の直後、またはファイルの終端)かどうかを判定します。
+     * 終端の直前が改行でなくても、次に書き込まれるログは改行から始まるため行の先頭とみなします。
+     */
+    private boolean startsLine(long position) throws IOException {
+        if (!Files.exists(path) || position > Files.size(path)) {
+            return false;
+        }
+        if (position == Files.size(path)) {
+            return true;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            IoMetrics.opened();
+            return CsvFiles.lastByte(channel, position) == '\n';
+        }
+    }
+
+    private Object fileKey() throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        return Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+    }
+}
@@ -0,0 +1,345 @@
+package com.taskapp.dataaccess;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import com.taskapp.metrics.IoMetrics;
+
+/**
+ * ログのCSVに対する、タスクコードから各ログ行の先頭位置への索引です。
+ * 索引はCSVと同じディレクトリの「ファイル名.idx」に保存し、次回以降の起動時に再利用します。
+ * 保存された索引がCSVより古い場合は、追記された部分だけを読み足すか、全体を作り直します。
+ * 読み足すのは、索引を作成した位置の直前のバイト列が当時と一致する場合だけです。
+ * CSVが置き換えられて以前より大きくなった場合に、古い位置を使い続けないようにするためです。
+ */
+final class LogIndex {
+    private static final int MAGIC = 0x4C4F4749;
+
+    private static final int VERSION = 2;
+
+    /** magic(4) + version(4) + CSVのサイズ(8) + CSVの更新日時(8) + 末尾のチェックサム(8) */
+    private static final int HEADER_SIZE = 32;
+
+    /** 索引を作成した位置の直前の、チェックサムを取るバイト数 */
+    private static final int TAIL_LENGTH = 64;
+
+    /** 末尾のチェックサムがまだ求められていないことを表す値 */
+    private static final long UNKNOWN_TAIL = -1;
+
+    private final Path csvPath;
+
+    private final Path indexPath;
+
+    private Map<Integer, Offsets> offsets;
+
+    private FileStamp indexedStamp;
+
+    /** 索引を作成した位置の直前{@value #TAIL_LENGTH}バイトのCRC32 */
+    private long indexedTail = UNKNOWN_TAIL;
+
+    /** 索引ファイルに保存していない変更があるかどうか */
+    private boolean dirty;
+
+    LogIndex(Path csvPath) {
+        this.csvPath = csvPath;
+        this.indexPath = csvPath.resolveSibling(csvPath.getFileName() + ".idx");
+    }
+
+    /**
+     * 指定したタスクコードのログ行の先頭位置を、ファイル内の出現順で返します。
+     *
+     * @param taskCode タスクコード
+     * @return ログ行の先頭位置。該当するログがない場合は空の配列
+     * @throws IOException 索引の作成・読み込みに失敗した場合
+     */
+    synchronized long[] offsets(int taskCode) throws IOException {
+        refresh();
+        Offsets found = offsets.get(taskCode);
+        return found == null ? new long[0] : Arrays.copyOf(found.values, found.size);
+    }
+
+    /**
+     * 指定した範囲の行がCSVから取り除かれたことを索引に反映します。
+     * 取り除かれた行を索引から削除し、後ろにある行の位置を詰めて、索引ファイルを書き直します。
+     *
+     * @param taskCode 取り除かれた行のタスクコード
+     * @param removed  取り除かれた行の[先頭位置, 終端位置)の組。先頭位置の昇順
+     * @throws IOException 索引ファイルの書き込みに失敗した場合
+     */
+    synchronized void removed(int taskCode, long[][] removed) throws IOException {
+        if (offsets == null) {
+            return;
+        }
+        offsets.remove(taskCode);
+        long[] starts = new long[removed.length];
+        long[] shifts = new long[removed.length];
+        long shift = 0;
+        for (int i = 0; i < removed.length; i++) {
+            starts[i] = removed[i][0];
+            shift += removed[i][1] - removed[i][0];
+            shifts[i] = shift;
+        }
+        for (Offsets list : offsets.values()) {
+            for (int i = 0; i < list.size; i++) {
+                int found = Arrays.binarySearch(starts, list.values[i]);
+                int before = found >= 0 ? found : -found - 2;
+                if (before >= 0) {
+                    list.values[i] -= shifts[before];
+                }
+            }
+        }
+        indexedStamp = FileStamp.of(csvPath);
+        indexedTail = UNKNOWN_TAIL;
+        writeAll();
+    }
+
+    /**
+     * メモリ上の索引をCSVの現在の内容に合わせます。
+     *
+     * @throws IOException 索引の作成・読み込みに失敗した場合
+     */
+    private void refresh() throws IOException {
+        FileStamp stamp = FileStamp.of(csvPath);
+        if (offsets != null && stamp.equals(indexedStamp)) {
+            return;
+        }
+        if (offsets == null) {
+            load();
+        }
+        if (offsets != null && stamp.equals(indexedStamp)) {
+            return;
+        }
+        if (offsets != null && indexedStamp.size() < stamp.size() && indexedTail != UNKNOWN_TAIL
+                && indexedTail == tail(indexedStamp.size(), true)) {
+            appendFrom(indexedStamp.size(), stamp);
+        } else {
+            rebuild(stamp);
+        }
+    }
+
+    /**
+     * CSV全体を走査して索引を作り直し、索引ファイルを書き直します。
+     *
+     * @param stamp 走査前のCSVのスタンプ
+     * @throws IOException 走査または書き込みに失敗した場合
+     */
+    private void rebuild(FileStamp stamp) throws IOException {
+        offsets = new HashMap<>();
+        long size = CsvFiles.scanCodes(csvPath, 0, this::add);
+        indexedStamp = new FileStamp(stamp.lastModified(), size);
+        indexedTail = UNKNOWN_TAIL;
+        writeAll();
+    }
+
+    /**
+     * 前回索引を作成した位置以降に追記された行だけを走査し、索引ファイルにも追記します。
+     *
+     * @param start 走査を開始する位置
+     * @param stamp 走査前のCSVのスタンプ
+     * @throws IOException 走査または書き込みに失敗した場合
+     */
+    private void appendFrom(long start, FileStamp stamp) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream entries = new DataOutputStream(bytes);
+        long size = CsvFiles.scanCodes(csvPath, start, (code, offset) -> {
+            add(code, offset);
+            try {
+                entries.writeInt(code);
+                entries.writeLong(offset);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        indexedStamp = new FileStamp(stamp.lastModified(), size);
+        indexedTail = UNKNOWN_TAIL;
+        if (dirty || !Files.exists(indexPath)) {
+            writeAll();
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.WRITE)) {
+            IoMetrics.opened();
+            ByteBuffer header = header();
+            writeFully(channel, ByteBuffer.wrap(bytes.toByteArray()), channel.size());
+            writeFully(channel, header, 0);
+        }
+    }
+
+    /**
+     * このプロセスで追記した行を索引に反映します。
+     * 追記前のCSVが索引と一致していない場合は何もせず、次回の参照時に読み足します。
+     * 索引ファイルへの保存は{@link #flush()}または次回の読み足し時に行います。
+     *
+     * @param before  追記前のスタンプ
+     * @param after   追記後のスタンプ
+     * @param codes   追記した行のタスクコード
+     * @param offsets 追記した行の先頭位置
+     */
+    synchronized void appended(FileStamp before, FileStamp after, int[] codes, long[] offsets) {
+        if (this.offsets == null || !before.equals(indexedStamp)) {
+            return;
+        }
+        for (int i = 0; i < codes.length; i++) {
+            add(codes[i], offsets[i]);
+        }
+        indexedStamp = after;
+        indexedTail = UNKNOWN_TAIL;
+        dirty = true;
+    }
+
+    /**
+     * メモリ上にだけ反映されている索引を索引ファイルに保存します。
+     *
+     * @throws IOException 書き込みに失敗した場合
+     */
+    synchronized void flush() throws IOException {
+        if (dirty) {
+            writeAll();
+        }
+    }
+
+    /**
+     * 索引ファイルを読み込みます。索引ファイルが存在しない、または壊れている場合は何もしません。
+     */
+    private void load() {
+        if (!Files.exists(indexPath)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexPath)))) {
+            IoMetrics.opened();
+            IoMetrics.read(Files.size(indexPath));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return;
+            }
+            long size = in.readLong();
+            long lastModified = in.readLong();
+            long tail = in.readLong();
+            offsets = new HashMap<>();
+            while (true) {
+                int code;
+                try {
+                    code = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                add(code, in.readLong());
+            }
+            indexedStamp = new FileStamp(lastModified, size);
+            indexedTail = tail;
+        } catch (IOException e) {
+            offsets = null;
+            indexedStamp = null;
+        }
+        dirty = false;
+    }
+
+    private void writeAll() throws IOException {
+        dirty = false;
+        ByteBuffer header = header();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexPath)))) {
+            IoMetrics.opened();
+            out.write(header.array());
+            for (Map.Entry<Integer, Offsets> entry : offsets.entrySet()) {
+                Offsets list = entry.getValue();
+                for (int i = 0; i < list.size; i++) {
+                    out.writeInt(entry.getKey());
+                    out.writeLong(list.values[i]);
+                }
+            }
+            IoMetrics.written(out.size());
+        }
+    }
+
+    /**
+     * 索引ファイルのヘッダーを作成します。末尾のチェックサムが求められていなければ、CSVから求めます。
+     *
+     * @return ヘッダー
+     * @throws IOException CSVの読み込みに失敗した場合
+     */
+    private ByteBuffer header() throws IOException {
+        if (indexedTail == UNKNOWN_TAIL) {
+            indexedTail = tail(indexedStamp.size(), false);
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putLong(indexedStamp.size()).putLong(indexedStamp.lastModified())
+                .putLong(indexedTail);
+        header.flip();
+        return header;
+    }
+
+    /**
+     * CSVの指定した位置の直前{@value #TAIL_LENGTH}バイト(ファイルの先頭から始まる場合はそれ以下)のCRC32を求めます。
+     *
+     * @param size         チェックサムを取る範囲の終端
+     * @param lineBoundary 終端が行の区切りであることも確認する場合はtrue
+     * @return チェックサム。CSVが終端より短い場合や、終端が行の区切りでない場合は{@link #UNKNOWN_TAIL}
+     * @throws IOException CSVの読み込みに失敗した場合
+     */
+    private long tail(long size, boolean lineBoundary) throws IOException {
+        if (size <= 0) {
+            return 0;
+        }
+        if (!Files.exists(csvPath)) {
+            return UNKNOWN_TAIL;
+        }
+        long start = Math.max(0, size - TAIL_LENGTH);
+        ByteBuffer buffer = ByteBuffer.allocate((int) (size - start));
+        try (FileChannel channel = FileChannel.open(csvPath, StandardOpenOption.READ)) {
+            IoMetrics.opened();
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, start + buffer.position());
+                if (read < 0) {
+                    return UNKNOWN_TAIL;
+                }
+                IoMetrics.read(read);
+            }
+        }
+        if (lineBoundary && buffer.get(buffer.limit() - 1) != '\n') {
+            return UNKNOWN_TAIL;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array());
+        return crc.getValue();
+    }
+
+    private void add(int code, long offset) {
+        offsets.computeIfAbsent(code, key -> new Offsets()).add(offset);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int written = channel.write(buffer, position);
+            IoMetrics.written(written);
+            position += written;
+        }
+    }
+
+    /**
+     * 1つのタスクコードに対応する行の先頭位置のリストです。
+     */
+    private static final class Offsets {
+        private long[] values = new long[4];
+        private int size;
+
+        private void add(long offset) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = offset;
+        }
+    }
+}
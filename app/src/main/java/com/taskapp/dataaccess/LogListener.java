@@ -0,0 +1,18 @@
+package com.taskapp.dataaccess;
+
+import com.taskapp.model.Log;
+
+/**
+ * {@link LogFeed}から追記されたログを受け取ります。
+ */
+@FunctionalInterface
+public interface LogListener {
+    /**
+     * 追記されたログを1件受け取ります。ログはファイルに書き込まれた順に届きます。
+     * 例外をスローした場合、そのログは次回の確認時にもう一度届きます。
+     *
+     * @param log        追記されたログ
+     * @param nextOffset このログの次の行の位置。保存しておき、再開時に{@link LogDataAccess#follow(long, LogListener)}へ渡します
+     */
+    void onLog(Log log, long nextOffset);
+}
@@ -0,0 +1,73 @@
+package com.taskapp.dataaccess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.taskapp.model.Log;
+
+/**
+ * ログのCSVを1行ずつ読み込んでログに変換するイテレーターです。
+ * 行や列ごとに文字列を作らず、{@link CsvReader}で数値と日付を直接読み取ります。
+ * 先頭の列がタスクコードでない行(ヘッダー行など)は読み飛ばします。
+ */
+final class LogReader implements Iterator<Log>, Closeable {
+    private final CsvReader reader;
+
+    private Log next;
+
+    LogReader(CsvReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = readNext();
+        }
+        return next != null;
+    }
+
+    @Override
+    public Log next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Log log = next;
+        next = null;
+        return log;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private Log readNext() {
+        try {
+            while (reader.nextRow()) {
+                if (reader.isIntField()) {
+                    return parse(reader);
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * トークナイザーの現在の行をログに変換します。
+     *
+     * @param reader 行に進んだ状態のトークナイザー
+     * @return 変換したログ
+     */
+    static Log parse(CsvReader reader) {
+        int taskCode = reader.nextInt();
+        int changeUserCode = reader.nextInt();
+        int status = reader.nextInt();
+        return new Log(taskCode, changeUserCode, status, reader.nextDate());
+    }
+}
@@ -0,0 +1,56 @@
+package com.taskapp.dataaccess;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import com.taskapp.model.Log;
+
+/**
+ * ログデータの保存先を抽象化したインターフェースです。
+ * 保存形式ごとの実装は{@link StorageEngine}から取得します。
+ */
+public interface LogRepository extends AutoCloseable {
+    /**
+     * ログを保存します。書き込みが完了するまで待機します。
+     *
+     * @param log 保存するログ
+     * @throws UncheckedIOException 書き込みに失敗した場合
+     */
+    void save(Log log);
+
+    /**
+     * 複数のログをまとめて保存します。書き込みが完了するまで待機します。
+     *
+     * @param logs 保存するログのリスト
+     * @throws UncheckedIOException 書き込みに失敗した場合
+     */
+    void saveAll(List<Log> logs);
+
+    /**
+     * すべてのログを保存された順に取得します。
+     *
+     * @return すべてのログのリスト
+     */
+    List<Log> findAll();
+
+    /**
+     * 指定したタスクコードに該当するログを保存された順に取得します。
+     *
+     * @param taskCode 取得するログのタスクコード
+     * @return 該当するログのリスト
+     */
+    List<Log> findByTaskCode(int taskCode);
+
+    /**
+     * 指定したタスクコードに該当するログを削除します。
+     *
+     * @param taskCode 削除するログのタスクコード
+     */
+    void deleteByTaskCode(int taskCode);
+
+    /**
+     * 未書き込みのログを書き込み、保持しているリソースを解放します。
+     */
+    @Override
+    void close();
+}
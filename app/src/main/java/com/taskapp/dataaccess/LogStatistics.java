@@ -0,0 +1,94 @@
+package com.taskapp.dataaccess;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * {@link LogAnalyzer}でログを集計した結果です。
+ * ステータスは0(未着手)・1(着手中)・2(完了)の3つで、それ以外のステータスのログは集計に含めません。
+ */
+public final class LogStatistics {
+    private final long logCount;
+
+    private final long skippedCount;
+
+    private final Map<Integer, Integer> startDays;
+
+    private final Map<Integer, Integer> completionDays;
+
+    private final Map<Integer, SortedMap<LocalDate, Integer>> completionsByUser;
+
+    private final SortedMap<LocalDate, int[]> statusCounts;
+
+    LogStatistics(long logCount, long skippedCount, Map<Integer, Integer> startDays,
+            Map<Integer, Integer> completionDays, Map<Integer, SortedMap<LocalDate, Integer>> completionsByUser,
+            SortedMap<LocalDate, int[]> statusCounts) {
+        this.logCount = logCount;
+        this.skippedCount = skippedCount;
+        this.startDays = Collections.unmodifiableMap(startDays);
+        this.completionDays = Collections.unmodifiableMap(completionDays);
+        Map<Integer, SortedMap<LocalDate, Integer>> byUser = new HashMap<>();
+        completionsByUser.forEach((user, days) -> byUser.put(user, Collections.unmodifiableSortedMap(days)));
+        this.completionsByUser = Collections.unmodifiableMap(byUser);
+        this.statusCounts = Collections.unmodifiableSortedMap(statusCounts);
+    }
+
+    /**
+     * @return 集計したログの数
+     */
+    public long getLogCount() {
+        return logCount;
+    }
+
+    /**
+     * @return 列の形式が壊れている、またはステータスが0~2以外のため集計しなかった行の数
+     */
+    public long getSkippedCount() {
+        return skippedCount;
+    }
+
+    /**
+     * 未着手から着手中になるまでの日数です。
+     * 最初に未着手になった日から最初に着手中になった日までを数えます。
+     *
+     * @return タスクコードをキーにした日数。どちらかのログがないタスクは含みません
+     */
+    public Map<Integer, Integer> getStartDays() {
+        return startDays;
+    }
+
+    /**
+     * 着手中から完了になるまでの日数です。
+     * 最初に着手中になった日から最初に完了になった日までを数えます。
+     *
+     * @return タスクコードをキーにした日数。どちらかのログがないタスクは含みません
+     */
+    public Map<Integer, Integer> getCompletionDays() {
+        return completionDays;
+    }
+
+    /**
+     * ユーザーごとの1日あたりの完了数です。タスクを完了にしたログを変更したユーザーの日ごとに数えます。
+     *
+     * @return ユーザーコードをキーにした、日付順の完了数
+     */
+    public Map<Integer, SortedMap<LocalDate, Integer>> getCompletionsByUser() {
+        return completionsByUser;
+    }
+
+    /**
+     * ログのある日ごとに、その日の終わりに各ステータスだったタスクの数です。
+     * タスクのステータスはログに書き込まれた順に変わったものとして数えます。
+     *
+     * @return 日付順の、ステータスを添字にしたタスクの数
+     */
+    public SortedMap<LocalDate, int[]> getStatusCounts() {
+        SortedMap<LocalDate, int[]> copy = new TreeMap<>();
+        statusCounts.forEach((date, counts) -> copy.put(date, counts.clone()));
+        return copy;
+    }
+}
@@ -0,0 +1,320 @@
+package com.taskapp.dataaccess;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.taskapp.metrics.Counter;
+import com.taskapp.metrics.IoMetrics;
+import com.taskapp.metrics.MetricsRegistry;
+
+/**
+ * ログファイルへの追記をまとめて行う書き込みスレッドです。
+ * 追記された行はキューに溜められ、書き込みスレッドが一定間隔・一定件数ごとに
+ * 1回の書き込み(必要であれば1回のfsync)でまとめてファイルへ反映します(グループコミット)。
+ * 他のインスタンスのログの削除などでファイルが置き換えられた場合は、次の書き込みの前に開き直します。
+ */
+final class LogWriter implements Closeable {
+    private static final byte[] NEWLINE = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    /** 書き込みスレッドに終了を伝えるための目印 */
+    private static final Entry SHUTDOWN = new Entry(new int[0], new String[0]);
+
+    /** まとめて書き込んだ回数のカウンター名 */
+    static final String BATCHES_METRIC = "dataaccess.logs.batches";
+
+    /** fsyncした回数のカウンター名 */
+    static final String FSYNCS_METRIC = "dataaccess.logs.fsyncs";
+
+    private static final Counter BATCHES = MetricsRegistry.global().counter(BATCHES_METRIC);
+
+    private static final Counter FSYNCS = MetricsRegistry.global().counter(FSYNCS_METRIC);
+
+    private final Path path;
+
+    private final long flushIntervalMillis;
+
+    private final int maxBatchSize;
+
+    private final boolean fsync;
+
+    private final LogIndex index;
+
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+
+    private final Thread thread;
+
+    /** {@link #closed}の確認とキューへの追加を、{@link #close()}と不可分に行うためのロック */
+    private final Object enqueueLock = new Object();
+
+    /** 終了を依頼済みかどうか。{@link #enqueueLock}を取った状態で読み書きします */
+    private boolean closed;
+
+    private FileChannel channel;
+
+    /** 開いているファイルの識別子。ファイルが置き換えられたかどうかの判定に使います */
+    private Object channelKey;
+
+    /** 次の書き込みの前に改行を補う必要があるかどうか */
+    private boolean needsNewline;
+
+    /**
+     * @param path                追記先のファイル
+     * @param flushIntervalMillis 最初の1件を受け取ってから書き込むまでに後続の行を待つ時間(ミリ秒)
+     * @param maxBatchSize        1回の書き込みにまとめる最大件数
+     * @param fsync               書き込みごとにfsyncするかどうか
+     * @param index               書き込んだ行を反映する索引
+     */
+    LogWriter(Path path, long flushIntervalMillis, int maxBatchSize, boolean fsync, LogIndex index) {
+        this.path = path;
+        this.index = index;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.fsync = fsync;
+        this.thread = new Thread(this::run, "log-writer-" + path.getFileName());
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * 1行の追記を依頼します。
+     *
+     * @param taskCode 行のタスクコード
+     * @param line     改行文字を含まない行
+     * @return 行がファイルへ書き込まれた(fsync有効時は永続化された)時点で完了するFuture
+     */
+    CompletableFuture<Void> append(int taskCode, String line) {
+        return appendAll(new int[] { taskCode }, new String[] { line });
+    }
+
+    /**
+     * 複数行の追記をまとめて依頼します。全ての行は他の依頼と混ざらずに1回の書き込みで追記されます。
+     *
+     * @param taskCodes 各行のタスクコード
+     * @param lines     改行文字を含まない行
+     * @return 全ての行がファイルへ書き込まれた(fsync有効時は永続化された)時点で完了するFuture
+     */
+    CompletableFuture<Void> appendAll(int[] taskCodes, String[] lines) {
+        Entry entry = new Entry(taskCodes, lines);
+        // 終了の目印より後ろに追加された行は書き込まれないため、終了の依頼と同じロックの中で追加する
+        synchronized (enqueueLock) {
+            if (!closed) {
+                queue.add(entry);
+                return entry.future;
+            }
+        }
+        entry.future.completeExceptionally(new IOException("ログの書き込みは終了しています"));
+        return entry.future;
+    }
+
+    /**
+     * キューに残っている行を書き込んでから書き込みスレッドを終了します。
+     * 呼び出し後に依頼された行は書き込まず、Futureを例外で完了させます。
+     */
+    @Override
+    public void close() {
+        synchronized (enqueueLock) {
+            if (!closed) {
+                closed = true;
+                queue.add(SHUTDOWN);
+            }
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<Entry> batch = new ArrayList<>(maxBatchSize);
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(queue.take());
+                collect(batch);
+            } catch (InterruptedException e) {
+                queue.drainTo(batch);
+            }
+            running = !batch.remove(SHUTDOWN);
+            if (!running) {
+                queue.drainTo(batch);
+                batch.remove(SHUTDOWN);
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+        synchronized (this) {
+            closeChannel();
+        }
+        Entry rest;
+        while ((rest = queue.poll()) != null) {
+            rest.future.completeExceptionally(new IOException("ログの書き込みは終了しています"));
+        }
+    }
+
+    /**
+     * 書き込み間隔の間に届いた行を最大件数までまとめます。
+     * 終了の目印を受け取った場合は、書き込み間隔を待たずに戻ります。
+     *
+     * @param batch まとめる先のリスト
+     * @throws InterruptedException 待機中に終了を要求された場合
+     */
+    private void collect(List<Entry> batch) throws InterruptedException {
+        queue.drainTo(batch, maxBatchSize - batch.size());
+        if (batch.get(batch.size() - 1) == SHUTDOWN) {
+            return;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            Entry next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+            queue.drainTo(batch, maxBatchSize - batch.size());
+            // 終了の目印より後ろには行が追加されないため、目印は常にまとめた行の最後にある
+            if (batch.get(batch.size() - 1) == SHUTDOWN) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * まとめた行を1回で書き込みます。
+     * 書き込み中の行が索引の読み足しで読み込まれないよう、索引をロックした状態で書き込みます。
+     *
+     * @param batch 書き込む行
+     */
+    private synchronized void flush(List<Entry> batch) {
+        synchronized (index) {
+            try {
+                FileChannel channel = channel();
+                FileStamp before = FileStamp.of(path);
+                long position = channel.size();
+                int lineCount = 0;
+                for (Entry entry : batch) {
+                    lineCount += entry.lines.length;
+                }
+                int[] codes = new int[lineCount];
+                long[] offsets = new long[lineCount];
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                if (needsNewline) {
+                    bytes.writeBytes(NEWLINE);
+                    needsNewline = false;
+                }
+                int line = 0;
+                for (Entry entry : batch) {
+                    for (int i = 0; i < entry.lines.length; i++, line++) {
+                        codes[line] = entry.taskCodes[i];
+                        offsets[line] = position + bytes.size();
+                        bytes.writeBytes(entry.lines[i].getBytes(StandardCharsets.UTF_8));
+                        bytes.writeBytes(NEWLINE);
+                    }
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+                while (buffer.hasRemaining()) {
+                    IoMetrics.written(channel.write(buffer));
+                }
+                if (fsync) {
+                    channel.force(false);
+                    FSYNCS.increment();
+                }
+                BATCHES.increment();
+                index.appended(before, FileStamp.of(path), codes, offsets);
+                for (Entry entry : batch) {
+                    entry.future.complete(null);
+                }
+            } catch (IOException e) {
+                closeChannel();
+                for (Entry entry : batch) {
+                    entry.future.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 追記用のファイルを返します。開いていない、または開いた後にファイルが置き換えられていれば開き直し、
+     * 末尾が改行で終わっているかを確認します。
+     *
+     * @return 追記用のファイル
+     * @throws IOException ファイルを開けなかった場合
+     */
+    private FileChannel channel() throws IOException {
+        if (channel != null && replaced()) {
+            closeChannel();
+        }
+        if (channel == null) {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            IoMetrics.opened();
+            channelKey = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+            long size = channel.size();
+            if (size > 0) {
+                try (FileChannel reader = FileChannel.open(path, StandardOpenOption.READ)) {
+                    IoMetrics.opened();
+                    ByteBuffer last = ByteBuffer.allocate(1);
+                    IoMetrics.read(reader.read(last, size - 1));
+                    needsNewline = last.get(0) != '\n';
+                }
+            }
+        }
+        return channel;
+    }
+
+    /**
+     * @return 開いているファイルが削除された、または別のファイルに置き換えられた場合はtrue
+     */
+    private boolean replaced() {
+        try {
+            Object key = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+            // 識別子を取得できないファイルシステムでは、置き換えを検出しない
+            return key != null && !key.equals(channelKey);
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        channel = null;
+    }
+
+    private static final class Entry {
+        private final int[] taskCodes;
+        private final String[] lines;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private Entry(int[] taskCodes, String[] lines) {
+            this.taskCodes = taskCodes;
+            this.lines = lines;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+
+import com.taskapp.metrics.IoMetrics;
+
+/**
+ * CSVファイル全体のメモリマップを保持し、全件の読み込みのたびに使い回します。
+ * ファイルが伸びた場合や別のファイルに置き換えられた場合だけマップし直すため、
+ * 繰り返しの全件読み込みはページキャッシュから直接読み取られ、カーネルからのコピーが発生しません。
+ * 同じ位置への上書きはマップにもそのまま反映されます。
+ */
+final class MappedCsvFile {
+    private final Path path;
+
+    private MappedByteBuffer mapped;
+
+    private long mappedSize = -1;
+
+    /**
+     * マップしたファイルを識別するキー(inodeなど)。置き換えの検出に使います。
+     * キーを持たないファイルシステムでは更新日時で代用します。
+     */
+    private Object mappedKey;
+
+    /**
+     * @param path マップするファイル
+     */
+    MappedCsvFile(Path path) {
+        this.path = path;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    /**
+     * ファイル全体をマップしたバッファを返します。
+     * 前回マップした時からサイズが変わっているか、ファイルが置き換えられていればマップし直します。
+     *
+     * @return 読み取り専用のバッファ。呼び出しごとに独立した位置を持ちます。
+     *         ファイルが大きすぎてマップできない場合はnull
+     * @throws IOException ファイルを開けなかった場合
+     */
+    synchronized ByteBuffer map() throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long size = attributes.size();
+        if (size > Integer.MAX_VALUE) {
+            return null;
+        }
+        Object key = attributes.fileKey() != null ? attributes.fileKey() : attributes.lastModifiedTime();
+        if (mapped == null || size != mappedSize || !Objects.equals(key, mappedKey)) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                // 開くまでの間に伸びていても、開いた時点の大きさでマップする
+                size = Math.min(channel.size(), Integer.MAX_VALUE);
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                IoMetrics.opened();
+                IoMetrics.read(size);
+            }
+            mappedSize = size;
+            mappedKey = key;
+        }
+        return mapped.duplicate();
+    }
+
+    /**
+     * ファイル全体をマップし、全てのページを物理メモリに読み込みます。
+     *
+     * @throws IOException ファイルを開けなかった場合
+     */
+    synchronized void load() throws IOException {
+        if (map() != null) {
+            mapped.load();
+        }
+    }
+}
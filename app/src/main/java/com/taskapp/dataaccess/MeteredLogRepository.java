@@ -0,0 +1,86 @@
+package com.taskapp.dataaccess;
+
+import java.util.List;
+
+import com.taskapp.metrics.LatencyHistogram;
+import com.taskapp.metrics.MetricsRegistry;
+import com.taskapp.model.Log;
+
+/**
+ * 各メソッドの呼び出し回数と処理時間を計測する{@link LogRepository}です。
+ */
+class MeteredLogRepository implements LogRepository {
+    private static final LatencyHistogram SAVE = histogram("save");
+    private static final LatencyHistogram SAVE_ALL = histogram("saveAll");
+    private static final LatencyHistogram FIND_ALL = histogram("findAll");
+    private static final LatencyHistogram FIND_BY_TASK_CODE = histogram("findByTaskCode");
+    private static final LatencyHistogram DELETE_BY_TASK_CODE = histogram("deleteByTaskCode");
+
+    private final LogRepository delegate;
+
+    /**
+     * @param delegate 計測するリポジトリ
+     */
+    MeteredLogRepository(LogRepository delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void save(Log log) {
+        long start = System.nanoTime();
+        try {
+            delegate.save(log);
+        } finally {
+            SAVE.recordSince(start);
+        }
+    }
+
+    @Override
+    public void saveAll(List<Log> logs) {
+        long start = System.nanoTime();
+        try {
+            delegate.saveAll(logs);
+        } finally {
+            SAVE_ALL.recordSince(start);
+        }
+    }
+
+    @Override
+    public List<Log> findAll() {
+        long start = System.nanoTime();
+        try {
+            return delegate.findAll();
+        } finally {
+            FIND_ALL.recordSince(start);
+        }
+    }
+
+    @Override
+    public List<Log> findByTaskCode(int taskCode) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findByTaskCode(taskCode);
+        } finally {
+            FIND_BY_TASK_CODE.recordSince(start);
+        }
+    }
+
+    @Override
+    public void deleteByTaskCode(int taskCode) {
+        long start = System.nanoTime();
+        try {
+            delegate.deleteByTaskCode(taskCode);
+        } finally {
+            DELETE_BY_TASK_CODE.recordSince(start);
+        }
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    private static LatencyHistogram histogram(String method) {
+        return MetricsRegistry.global().histogram("dataaccess.logs." + method);
+    }
+}
@@ -0,0 +1,67 @@
+package com.taskapp.dataaccess;
+
+/**
+ * 別のエンジンのリポジトリを、呼び出し回数と処理時間を計測するリポジトリで包んで提供します。
+ * 計測値は{@link com.taskapp.metrics.MetricsRegistry#global()}に
+ * 「dataaccess.リポジトリ.メソッド」の名前で記録します。
+ * ジャーナルは包まずにそのまま返し、復旧時の反映は計測しません。
+ *
+ * @see MeteredTaskRepository
+ * @see MeteredLogRepository
+ * @see MeteredUserRepository
+ */
+public class MeteredStorageEngine implements StorageEngine {
+    private final StorageEngine delegate;
+
+    private UserRepository users;
+
+    private TaskRepository tasks;
+
+    private LogRepository logs;
+
+    /**
+     * @param delegate 計測するエンジン
+     */
+    public MeteredStorageEngine(StorageEngine delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public synchronized UserRepository users() {
+        if (users == null) {
+            users = new MeteredUserRepository(delegate.users());
+        }
+        return users;
+    }
+
+    @Override
+    public synchronized TaskRepository tasks() {
+        if (tasks == null) {
+            tasks = new MeteredTaskRepository(delegate.tasks());
+        }
+        return tasks;
+    }
+
+    @Override
+    public synchronized LogRepository logs() {
+        if (logs == null) {
+            logs = new MeteredLogRepository(delegate.logs());
+        }
+        return logs;
+    }
+
+    @Override
+    public Journal journal() {
+        return delegate.journal();
+    }
+
+    @Override
+    public void preload() {
+        delegate.preload();
+    }
+
+    @Override
+    public void warmUp(long millis) {
+        delegate.warmUp(millis);
+    }
+}
@@ -0,0 +1,97 @@
+package com.taskapp.dataaccess;
+
+import java.util.List;
+
+import com.taskapp.metrics.LatencyHistogram;
+import com.taskapp.metrics.MetricsRegistry;
+import com.taskapp.model.Task;
+
+/**
+ * 各メソッドの呼び出し回数と処理時間を計測する{@link TaskRepository}です。
+ */
+class MeteredTaskRepository implements TaskRepository {
+    private static final LatencyHistogram FIND_ALL = histogram("findAll");
+    private static final LatencyHistogram FIND = histogram("find");
+    private static final LatencyHistogram SAVE = histogram("save");
+    private static final LatencyHistogram SAVE_ALL = histogram("saveAll");
+    private static final LatencyHistogram FIND_BY_CODE = histogram("findByCode");
+    private static final LatencyHistogram UPDATE = histogram("update");
+
+    private final TaskRepository delegate;
+
+    /**
+     * @param delegate 計測するリポジトリ
+     */
+    MeteredTaskRepository(TaskRepository delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public List<Task> findAll() {
+        long start = System.nanoTime();
+        try {
+            return delegate.findAll();
+        } finally {
+            FIND_ALL.recordSince(start);
+        }
+    }
+
+    @Override
+    public TaskPage find(TaskQuery query) {
+        long start = System.nanoTime();
+        try {
+            return delegate.find(query);
+        } finally {
+            FIND.recordSince(start);
+        }
+    }
+
+    @Override
+    public void save(Task task) {
+        long start = System.nanoTime();
+        try {
+            delegate.save(task);
+        } finally {
+            SAVE.recordSince(start);
+        }
+    }
+
+    @Override
+    public void saveAll(List<Task> tasks) {
+        long start = System.nanoTime();
+        try {
+            delegate.saveAll(tasks);
+        } finally {
+            SAVE_ALL.recordSince(start);
+        }
+    }
+
+    @Override
+    public Task findByCode(int code) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findByCode(code);
+        } finally {
+            FIND_BY_CODE.recordSince(start);
+        }
+    }
+
+    @Override
+    public void update(Task updateTask) {
+        long start = System.nanoTime();
+        try {
+            delegate.update(updateTask);
+        } finally {
+            UPDATE.recordSince(start);
+        }
+    }
+
+    @Override
+    public FileStamp stamp() {
+        return delegate.stamp();
+    }
+
+    private static LatencyHistogram histogram(String method) {
+        return MetricsRegistry.global().histogram("dataaccess.tasks." + method);
+    }
+}
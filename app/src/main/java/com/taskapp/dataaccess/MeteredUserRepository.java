@@ -0,0 +1,60 @@
+package com.taskapp.dataaccess;
+
+import java.util.Map;
+import java.util.Set;
+
+import com.taskapp.metrics.LatencyHistogram;
+import com.taskapp.metrics.MetricsRegistry;
+import com.taskapp.model.User;
+
+/**
+ * 各メソッドの呼び出し回数と処理時間を計測する{@link UserRepository}です。
+ */
+class MeteredUserRepository implements UserRepository {
+    private static final LatencyHistogram FIND_BY_EMAIL_AND_PASSWORD = histogram("findByEmailAndPassword");
+    private static final LatencyHistogram FIND_BY_CODE = histogram("findByCode");
+    private static final LatencyHistogram FIND_BY_CODES = histogram("findByCodes");
+
+    private final UserRepository delegate;
+
+    /**
+     * @param delegate 計測するリポジトリ
+     */
+    MeteredUserRepository(UserRepository delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public User findByEmailAndPassword(String email, String password) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findByEmailAndPassword(email, password);
+        } finally {
+            FIND_BY_EMAIL_AND_PASSWORD.recordSince(start);
+        }
+    }
+
+    @Override
+    public User findByCode(int code) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findByCode(code);
+        } finally {
+            FIND_BY_CODE.recordSince(start);
+        }
+    }
+
+    @Override
+    public Map<Integer, User> findByCodes(Set<Integer> codes) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findByCodes(codes);
+        } finally {
+            FIND_BY_CODES.recordSince(start);
+        }
+    }
+
+    private static LatencyHistogram histogram(String method) {
+        return MetricsRegistry.global().histogram("dataaccess.users." + method);
+    }
+}
@@ -0,0 +1,28 @@
+package com.taskapp.dataaccess;
+
+/**
+ * {@link StorageEngine#configured()}が返す、アプリケーション全体で共有するエンジンを保持します。
+ */
+final class SharedStorageEngine {
+    private static volatile StorageEngine shared;
+
+    private SharedStorageEngine() {
+    }
+
+    /**
+     * @return 共有のエンジン。初めて呼び出した時に作成します
+     */
+    static StorageEngine get() {
+        StorageEngine current = shared;
+        if (current == null) {
+            synchronized (SharedStorageEngine.class) {
+                current = shared;
+                if (current == null) {
+                    current = StorageEngine.create();
+                    shared = current;
+                }
+            }
+        }
+        return current;
+    }
+}
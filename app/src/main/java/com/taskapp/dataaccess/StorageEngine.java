@@ -0,0 +1,99 @@
+package com.taskapp.dataaccess;
+
+import java.util.List;
+
+import com.taskapp.config.AppConfig;
+import com.taskapp.model.Task;
+
+/**
+ * タスク・ユーザー・ログの各リポジトリを、同じ保存形式でまとめて提供します。
+ * 同じエンジンから取得したリポジトリは同じインスタンスを返し、互いに共有されます。
+ * どのエンジンを使うかは設定{@value #PROPERTY}で、データファイルを置くディレクトリは
+ * 設定{@value AppConfig#DATA_DIRECTORY}で指定します。
+ *
+ * @see CsvStorageEngine
+ * @see BinaryStorageEngine
+ */
+public interface StorageEngine {
+    /** エンジンを指定する設定のキー。値は"csv"(既定)または"binary"です */
+    String PROPERTY = "taskapp.storage";
+
+    /** データファイルを置く既定のディレクトリ */
+    String DEFAULT_DIRECTORY = AppConfig.DEFAULT_DATA_DIRECTORY;
+
+    /**
+     * @return ユーザーデータのリポジトリ
+     */
+    UserRepository users();
+
+    /**
+     * @return タスクデータのリポジトリ
+     */
+    TaskRepository tasks();
+
+    /**
+     * @return ログデータのリポジトリ
+     */
+    LogRepository logs();
+
+    /**
+     * タスクとログの変更を記録するジャーナルを返します。
+     * 初めて取得した時に、前回異常終了した際の未反映の変更を各リポジトリへ反映します。
+     *
+     * @return ジャーナル
+     */
+    Journal journal();
+
+    /**
+     * ユーザー・タスク・ログの索引を読み込み、最初の呼び出しでファイルを読む時間がかからないようにします。
+     */
+    default void preload() {
+        // 索引を読み込むために検索する。該当するユーザーがいなくてもよい
+        users().findByCode(0);
+        List<Task> tasks = tasks().findAll();
+        if (!tasks.isEmpty()) {
+            logs().findByTaskCode(tasks.get(0).getCode());
+        }
+    }
+
+    /**
+     * ファイルを解析する処理を指定した時間の間繰り返し、JITコンパイルを前もって済ませます。
+     * 既定では何もしません。
+     *
+     * @param millis 繰り返す時間(ミリ秒)
+     */
+    default void warmUp(long millis) {
+    }
+
+    /**
+     * 設定{@value #PROPERTY}で指定されたエンジンを返します。
+     * エンジンは最初の呼び出しで{@link #create()}により作成し、以後はアプリケーション全体で同じインスタンスを共有します。
+     * 同じファイルに対して別々のエンジンが索引や書き込みスレッドを持たないよう、引数のないコンストラクタはこれを使います。
+     *
+     * @return 共有のエンジン
+     * @throws IllegalArgumentException 未対応のエンジンが指定された場合
+     */
+    static StorageEngine configured() {
+        return SharedStorageEngine.get();
+    }
+
+    /**
+     * 設定{@value #PROPERTY}で指定されたエンジンを、設定されたデータディレクトリで新しく作成します。
+     * 各リポジトリの呼び出しは{@link MeteredStorageEngine}で計測します。
+     *
+     * @return 作成したエンジン
+     * @throws IllegalArgumentException 未対応のエンジンが指定された場合
+     */
+    static StorageEngine create() {
+        AppConfig config = AppConfig.global();
+        String name = config.get(PROPERTY, CsvStorageEngine.NAME);
+        switch (name) {
+            case CsvStorageEngine.NAME:
+                return new MeteredStorageEngine(new CsvStorageEngine(config.dataDirectory()));
+            case BinaryStorageEngine.NAME:
+                return new MeteredStorageEngine(new BinaryStorageEngine(config.dataDirectory()));
+            default:
+                throw new IllegalArgumentException("未対応の保存形式です: " + name);
+        }
+    }
+}
@@ -1,25 +1,119 @@
 package com.taskapp.dataaccess;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
 
+import com.taskapp.config.AppConfig;
+import com.taskapp.metrics.IoMetrics;
 import com.taskapp.model.Task;
 import com.taskapp.model.User;
 
-public class TaskDataAccess {
+public class TaskDataAccess implements TaskRepository {
 
     private final String filePath;
 
     private final UserDataAccess userDataAccess;
 
+    /** {@link #findAll()}で全件を読み込むためのメモリマップ */
+    private final MappedCsvFile mappedFile;
+
+    private static final int STRIPES = 64;
+
+    /** 担当者のいないタスクを書き込む際の担当ユーザーコード。どのユーザーにも一致しません */
+    static final int NO_REP_USER = -1;
+
+    /** CSVのヘッダー行 */
+    private static final String HEADER = "Code,Name,Status,Rep_User_Code";
+
+    /** 既定では、行の半分以上が古い行になったら詰め直します */
+    private static final double DEFAULT_COMPACTION_RATIO = 0.5;
+
+    /** 既定では、古い行が1000行未満であれば詰め直しません */
+    private static final int DEFAULT_COMPACTION_MIN_DEAD_ROWS = 1000;
+
+    /**
+     * タスクコードごとの更新を直列化するロックです。コードのハッシュで振り分けます。
+     * 参照は楽観的読み取りで行い、競合した場合だけ読み取りロックを取ります。
+     */
+    private final StampedLock[] stripes = new StampedLock[STRIPES];
+
+    /**
+     * ファイル全体に対するロックです。
+     * 行単位の更新は共有ロック、ファイル全体を読み直す・置き換える処理は排他ロックで行います。
+     */
+    private final ReentrantReadWriteLock fileLock = new ReentrantReadWriteLock();
+
+    /** ファイル末尾への追記と索引の更新を直列化するロックです */
+    private final Object appendLock = new Object();
+
+    /** 更新のたびに増える番号です。{@link #snapshot}が最新かどうかの判定に使います */
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * タスクコードから行の先頭位置への索引です。
+     * {@link #indexedStamp}が現在のファイルと一致する間だけ有効です。
+     */
+    private volatile IntLongHashMap offsets;
+
+    private volatile FileStamp indexedStamp;
+
+    /**
+     * {@link #findAll()}で読み込んだ全タスクの不変のスナップショットです。
+     * 読み込んだ後は、書き込みのたびに書き込んだ行を反映した新しいスナップショットに差し替えるため、
+     * 参照側はロックを取らず、ファイルも読み直しません。
+     */
+    private volatile TaskSnapshot snapshot;
+
+    /** ファイルへの書き込みを始めてから、スナップショットに反映し終えるまでの更新の数です */
+    private final AtomicInteger pendingWrites = new AtomicInteger();
+
+    /** ファイル内のタスクの行数(古い行を含む)。索引と同じタイミングで更新します */
+    private long rowCount;
+
+    /**
+     * ファイルを置き換えるたびに増える番号です。置き換えの間だけ奇数になります。
+     * ロックを取らない読み取りが、置き換え前の索引で置き換え後のファイルを読んでいないかの判定に使います。
+     */
+    private volatile long generation;
+
+    private final double compactionRatio;
+
+    private final int compactionMinDeadRows;
+
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+
+    private ExecutorService compactor;
+
+    /**
+     * 設定されたデータディレクトリのtasks.csvを使います。
+     *
+     * @see AppConfig#dataFile(String)
+     */
     public TaskDataAccess() {
-        filePath = "app/src/main/resources/tasks.csv";
-        userDataAccess = new UserDataAccess();
+        this(AppConfig.global().dataFile("tasks.csv"), new UserDataAccess());
     }
 
     /**
@@ -29,111 +123,581 @@ public class TaskDataAccess {
      * @param userDataAccess
      */
     public TaskDataAccess(String filePath, UserDataAccess userDataAccess) {
+        this(filePath, userDataAccess, DEFAULT_COMPACTION_RATIO, DEFAULT_COMPACTION_MIN_DEAD_ROWS);
+    }
+
+    /**
+     * 古い行を詰め直す条件を指定してインスタンスを作成します。
+     * 古い行(同じコードの新しい行がある行)の割合が{@code compactionRatio}以上、
+     * かつ{@code compactionMinDeadRows}行以上になると、バックグラウンドで{@link #compact()}を行います。
+     *
+     * @param filePath              タスクファイルのパス
+     * @param userDataAccess        担当ユーザーの取得に使うDataAccess
+     * @param compactionRatio       詰め直しを行う古い行の割合
+     * @param compactionMinDeadRows 詰め直しを行う古い行の最小行数
+     */
+    public TaskDataAccess(String filePath, UserDataAccess userDataAccess, double compactionRatio,
+            int compactionMinDeadRows) {
         this.filePath = filePath;
         this.userDataAccess = userDataAccess;
+        this.compactionRatio = compactionRatio;
+        this.compactionMinDeadRows = compactionMinDeadRows;
+        this.mappedFile = new MappedCsvFile(Paths.get(filePath));
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new StampedLock();
+        }
     }
 
     /**
      * CSVから全てのタスクデータを取得します。
+     * 担当ユーザーは行ごとに検索せず、出現したユーザーコードをまとめて1回で解決し、
+     * 同じユーザーを担当するタスク間では同一の{@link User}インスタンスを共有します。
+     * 同じコードの行が複数ある場合は、最初に現れた位置に最後の行の内容を返します。
+     * 列の形式が壊れている行は読み飛ばします。
+     * 前回読み込んだ後の更新はスナップショットに反映済みのため、ファイルを読まずにスナップショットから返します。
      *
-     * @see com.taskapp.dataaccess.UserDataAccess#findByCode(int)
+     * @see com.taskapp.dataaccess.UserDataAccess#findByCodes(Set)
      * @return タスクのリスト
      */
+    @Override
     public List<Task> findAll() {
-        List<Task> tasks = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            reader.readLine();
-            while ((line = reader.readLine()) != null) {
-                String[] values = line.split(",");
-
-                int taskcode = Integer.parseInt(values[0]);
-                String taskName = values[1];
-                int status = Integer.parseInt(values[2]);
-                int usercode = Integer.parseInt(values[3]);
-
-                User user = userDataAccess.findByCode(usercode);
-                Task task = new Task(taskcode, taskName, status, user);
-
-                tasks.add(task);
+        return currentSnapshot().toTasks(userDataAccess);
+    }
+
+    /**
+     * 条件に一致するタスクをコードの昇順に1ページ分取得します。
+     * {@link #findAll()}と同じスナップショットの行を絞り込み、ページに含まれるタスクと担当ユーザーだけを作成します。
+     *
+     * @see com.taskapp.dataaccess.UserDataAccess#findByCodes(Set)
+     * @param query 絞り込み条件とページの指定
+     * @return 1ページ分のタスク
+     */
+    @Override
+    public TaskPage find(TaskQuery query) {
+        TaskSnapshot current = currentSnapshot();
+        return query.select(current.rows, current.names::get, userDataAccess);
+    }
+
+    /**
+     * 最新のスナップショットを返します。
+     * このインスタンスによる書き込みは書き込んだスレッドがスナップショットに反映するため、ロックを取らずに返します。
+     * まだ読み込んでいない場合や、他のプロセスがファイルを変更した場合だけ、ファイルの排他ロックを取って読み込み直します。
+     */
+    private TaskSnapshot currentSnapshot() {
+        // 更新番号を先に読むことで、書き込み中に公開された新しいスナップショットも最新とみなせる
+        long currentVersion = version.get();
+        TaskSnapshot current = snapshot;
+        if (current != null && current.version >= currentVersion && unchangedSince(current)) {
+            return current;
+        }
+        fileLock.writeLock().lock();
+        try {
+            current = snapshot;
+            FileStamp stamp = FileStamp.of(Paths.get(filePath));
+            if (current == null || !current.isCurrent(version.get(), stamp)) {
+                current = readSnapshot(version.get(), stamp);
+                snapshot = current;
+            }
+            return current;
+        } finally {
+            fileLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * スナップショットの作成後に、他のプロセスがファイルを変更していないかを判定します。
+     * このインスタンスの書き込みの途中でファイルが変わっている場合は、書き込み前のファイルと一致していれば
+     * 変更されていないとみなします。その書き込みは完了時にスナップショットへ反映されます。
+     *
+     * @param current 判定するスナップショット
+     * @return 変更されていなければtrue
+     */
+    private boolean unchangedSince(TaskSnapshot current) {
+        return current.stamp.equals(FileStamp.of(Paths.get(filePath)))
+                || pendingWrites.get() > 0 && current.stamp.equals(indexedStamp);
+    }
+
+    /**
+     * CSVを全て読み込んでスナップショットを作成します。
+     * ファイルはメモリマップして読み込み、前回から伸びていなければ同じマップを使い回します。
+     * 読み込み中に行が書き換えられないよう、ファイルの排他ロックを取った状態で呼び出します。
+     *
+     * @param version 読み込み時点の更新番号
+     * @param stamp   読み込み時点のファイルのスタンプ
+     * @return 作成したスナップショット
+     */
+    private TaskSnapshot readSnapshot(long version, FileStamp stamp) {
+        List<String> names = new ArrayList<>();
+        List<int[]> rows = new ArrayList<>();
+        IntLongHashMap positions = new IntLongHashMap();
+        try (CsvReader reader = CsvReader.map(mappedFile)) {
+            while (reader.nextRow()) {
+                // ヘッダー行など、先頭の列がコードでない行は読み飛ばす
+                if (!reader.isIntField()) {
+                    continue;
+                }
+                int taskcode;
+                String taskName;
+                int status;
+                int usercode;
+                try {
+                    taskcode = reader.nextInt();
+                    taskName = reader.nextString();
+                    status = reader.nextInt();
+                    usercode = reader.nextInt();
+                } catch (NumberFormatException | IllegalStateException e) {
+                    // 列の形式が壊れている行は読み飛ばす
+                    continue;
+                }
+
+                int[] row = { taskcode, status, usercode };
+                long rowIndex = positions.get(taskcode);
+                if (rowIndex == IntLongHashMap.MISSING) {
+                    positions.put(taskcode, rows.size());
+                    names.add(taskName);
+                    rows.add(row);
+                } else {
+                    names.set((int) rowIndex, taskName);
+                    rows.set((int) rowIndex, row);
+                }
             }
 
         } catch (IOException e) {
             e.printStackTrace();
         }
-        return tasks;
+        return new TaskSnapshot(version, stamp, ChunkedList.of(names), ChunkedList.of(rows), positions);
     }
 
     /**
      * タスクをCSVに保存します。
+     * ファイル末尾が改行で終わっていない場合は改行を補ってから追記します。
+     *
      * @param task 保存するタスク
+     * @throws UncheckedIOException 書き込みに失敗した場合
      */
+    @Override
     public void save(Task task) {
-        try (BufferedWriter writer=new BufferedWriter(new FileWriter(filePath,true))) {
-            writer.write(task.getCode()+","+task.getName()+","+task.getStatus()+","+task.getRepUser().getCode());
-            writer.newLine();
+        offsets();
+        fileLock.readLock().lock();
+        StampedLock stripe = stripe(task.getCode());
+        long stamp = stripe.writeLock();
+        pendingWrites.incrementAndGet();
+        try {
+            append(task);
         } catch (IOException e) {
-            e.printStackTrace();
+            throw new UncheckedIOException(e);
+        } finally {
+            pendingWrites.decrementAndGet();
+            stripe.unlockWrite(stamp);
+            fileLock.readLock().unlock();
         }
     }
 
+    /**
+     * 複数のタスクをCSVにまとめて保存します。
+     * ファイルを開くのは1回だけで、全ての行を1回の書き込みで末尾に追記します。
+     * 書き込み中は他の読み込み・書き込みを待たせます。
+     *
+     * @param tasks 保存するタスクのリスト
+     * @throws UncheckedIOException 書き込みに失敗した場合
+     */
+    @Override
+    public void saveAll(List<Task> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        offsets();
+        fileLock.writeLock().lock();
+        try {
+            append(tasks);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            fileLock.writeLock().unlock();
+        }
+    }
+
+    private void append(Task task) throws IOException {
+        append(List.of(task));
+    }
+
+    /**
+     * 行をファイル末尾に追記し、索引とスナップショットに反映します。
+     *
+     * @param tasks 追記するタスク
+     * @throws IOException 書き込みに失敗した場合
+     */
+    private void append(List<Task> tasks) throws IOException {
+        byte[] newline = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        int[] lineStarts = new int[tasks.size()];
+        for (int i = 0; i < lineStarts.length; i++) {
+            lineStarts[i] = lines.size();
+            lines.writeBytes(createLine(tasks.get(i)).getBytes(StandardCharsets.UTF_8));
+            lines.writeBytes(newline);
+        }
+        Path path = Paths.get(filePath);
+        synchronized (appendLock) {
+            boolean written = false;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                IoMetrics.opened();
+                long offset = channel.size();
+                if (offset > 0 && CsvFiles.lastByte(channel, offset) != '\n') {
+                    offset += write(channel, newline, offset);
+                }
+                write(channel, lines.toByteArray(), offset);
+                written = true;
+                IntLongHashMap index = offsets;
+                if (index != null) {
+                    for (int i = 0; i < lineStarts.length; i++) {
+                        index.put(tasks.get(i).getCode(), offset + lineStarts[i]);
+                    }
+                    rowCount += lineStarts.length;
+                }
+            } finally {
+                afterWrite(written ? tasks : null);
+            }
+            scheduleCompactionIfNeeded();
+        }
+    }
+
+    /**
+     * 書き込みを索引のスタンプと更新番号に反映します。
+     * スナップショットが書き込み前のファイルと一致していれば、書き込んだ行を適用した新しいスナップショットを公開します。
+     * {@link #appendLock}を取った状態で呼び出します。
+     *
+     * @param tasks 書き込んだタスク。書き込みに失敗した場合はnull
+     */
+    private void afterWrite(List<Task> tasks) {
+        TaskSnapshot current = snapshot;
+        FileStamp stamp = FileStamp.of(Paths.get(filePath));
+        // 更新番号の変更は全てappendLockまたはファイルの排他ロックの中で行うため、ここでは他から変わらない
+        long next = version.get() + 1;
+        if (tasks != null && current != null && current.isCurrent(version.get(), indexedStamp)) {
+            snapshot = current.apply(tasks, next, stamp);
+        }
+        indexedStamp = stamp;
+        version.set(next);
+    }
+
     /**
      * コードを基にタスクデータを1件取得します。
-     * 
+     * コードから行の位置を索引で引き、該当する1行だけを読み込みます。
+     * 同じコードの行が複数ある場合は最後に書き込まれた行を返します。
+     * 読み取りはロックを取らずに行い、同じコードの更新と重なった場合だけ読み取りロックを取って読み直します。
+     *
      * @param code 取得するタスクのコード
      * @return 取得したタスク
      */
-     public Task findByCode(int code) {
-     Task task=null;
-        try (BufferedReader reader=new BufferedReader(new FileReader(filePath))) {
-            String line;
-            reader.readLine();
-        while((line=reader.readLine())!=null){
-            String[] values=line.split(",");
-            int taskCode=Integer.parseInt(values[0]);
-            String name=values[1];
-            int status=Integer.parseInt(values[2]);
-            int repUserCode=Integer.parseInt(values[3]);
-            User repUser=userDataAccess.findByCode(repUserCode);
-            if(taskCode==code){
-            task=new Task(taskCode,name,status,repUser);
-            break;
-        }
-    }
-     } catch (IOException e) {
-     e.printStackTrace();
-     }
-     return task;
-     }
+    @Override
+    public Task findByCode(int code) {
+        long currentGeneration = generation;
+        IntLongHashMap index = offsets();
+        StampedLock stripe = stripe(code);
+        long stamp = stripe.tryOptimisticRead();
+        if (stamp != 0 && (currentGeneration & 1) == 0) {
+            try {
+                Task task = read(index, code);
+                if (stripe.validate(stamp) && generation == currentGeneration
+                        && (task == null || task.getCode() == code)) {
+                    return task;
+                }
+            } catch (NumberFormatException | IllegalStateException e) {
+                // 書き込み途中の行を読んだ可能性があるため、ロックを取って読み直す
+            }
+        }
+        offsets();
+        fileLock.readLock().lock();
+        stamp = stripe.readLock();
+        try {
+            return read(offsets, code);
+        } catch (NumberFormatException | IllegalStateException e) {
+            // 列の形式が壊れている行は存在しないものとして扱う
+            return null;
+        } finally {
+            stripe.unlockRead(stamp);
+            fileLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 索引から行の位置を求めて1行を読み込みます。
+     *
+     * @param index 索引
+     * @param code  取得するタスクのコード
+     * @return 取得したタスク。存在しない場合はnull
+     */
+    private Task read(IntLongHashMap index, int code) {
+        long offset = index == null ? IntLongHashMap.MISSING : index.get(code);
+        if (offset == IntLongHashMap.MISSING) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            IoMetrics.opened();
+            CsvReader reader = CsvReader.at(channel, offset);
+            if (reader == null) {
+                return null;
+            }
+            int taskCode = reader.nextInt();
+            String name = reader.nextString();
+            int status = reader.nextInt();
+            int repUserCode = reader.nextInt();
+            return new Task(taskCode, name, status, userDataAccess.findByCode(repUserCode));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
 
     /**
-     * タスクデータを更新します。
-     * 
-     * @param updateTask 更新するタスク
+     * タスクコードから行の先頭位置への索引を返します。
+     * ファイルが索引作成時から変更されていれば、ファイルの排他ロックを取って作り直します。
+     * ファイルの共有ロックを保持した状態では呼び出さないでください。
+     *
+     * @return タスクコードをキー、行の先頭のバイト位置を値とする索引
      */
-     public void update(Task updateTask) {
-     List<Task> task=findAll();
-        for(int i=0;i<task.size();i++){
-            Task tasks=task.get(i);
-        if(tasks.getCode()==updateTask.getCode()){
-            task.set(i,updateTask);
-            break;
+    private IntLongHashMap offsets() {
+        Path path = Paths.get(filePath);
+        IntLongHashMap index = offsets;
+        if (index != null && FileStamp.of(path).equals(indexedStamp)) {
+            return index;
         }
-        
+        fileLock.writeLock().lock();
+        try {
+            // 他のスレッドの書き込み中だった場合は、書き込みが終わった時点で一致する
+            FileStamp stamp = FileStamp.of(path);
+            if (offsets == null || !stamp.equals(indexedStamp)) {
+                offsets = buildOffsets();
+                indexedStamp = stamp;
+                scheduleCompactionIfNeeded();
+            }
+            return offsets;
+        } finally {
+            fileLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * CSVを先頭から走査し、各行のタスクコードと行の先頭位置を索引にします。
+     * 併せてタスクの行数を数え直します。ファイルの排他ロックを取った状態で呼び出します。
+     *
+     * @return 作成した索引
+     */
+    private IntLongHashMap buildOffsets() {
+        IntLongHashMap index = new IntLongHashMap();
+        long[] rows = { 0 };
+        try {
+            CsvFiles.scanCodes(Paths.get(filePath), 0, (code, offset) -> {
+                index.put(code, offset);
+                rows[0]++;
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
         }
-        try (BufferedWriter writer=new BufferedWriter(new FileWriter(filePath,true))) {
-            writer.write("Code,Name,Status,Rep_User_Code");
-            for(Task task2:task){
-                String line=createLine(task2);
-            writer.write(line);
-            writer.newLine();
+        rowCount = rows[0];
+        return index;
+    }
+
+    /**
+     * 各コードの最新の行だけを残した新しいファイルを作成し、元のファイルと置き換えます。
+     * 列の形式が壊れている行も取り除き、ヘッダー行は正しい形に書き直します。
+     * 行の並びは各コードが最初に現れた順のままです。
+     * 置き換えの間はファイルの排他ロックを取るため、他の読み書きは待機します。
+     */
+    public void compact() {
+        Path path = Paths.get(filePath);
+        fileLock.writeLock().lock();
+        try {
+            TaskSnapshot current = readSnapshot(version.get(), FileStamp.of(path));
+            Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(),
+                    ".tmp");
+            try {
+                try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    writer.write(HEADER);
+                    writer.newLine();
+                    for (int i = 0; i < current.rows.size(); i++) {
+                        int[] row = current.rows.get(i);
+                        writer.write(row[0] + "," + CsvFiles.escape(current.names.get(i)) + "," + row[1] + ","
+                                + row[2]);
+                        writer.newLine();
+                    }
+                }
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    IoMetrics.opened();
+                    IoMetrics.written(channel.size());
+                    channel.force(true);
+                }
+            } catch (IOException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+            generation++;
+            try {
+                try {
+                    Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+                }
+                offsets = buildOffsets();
+                indexedStamp = FileStamp.of(path);
+                snapshot = new TaskSnapshot(version.incrementAndGet(), indexedStamp, current.names, current.rows,
+                        current.positions);
+            } finally {
+                generation++;
             }
-            }catch (IOException e) {
+        } catch (IOException e) {
             e.printStackTrace();
+        } finally {
+            fileLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 古い行の割合がしきい値を超えていれば、バックグラウンドで{@link #compact()}を行います。
+     * 既に予定されている場合は何もしません。
+     */
+    private void scheduleCompactionIfNeeded() {
+        IntLongHashMap index = offsets;
+        if (index == null) {
+            return;
+        }
+        long dead = rowCount - index.size();
+        if (dead < compactionMinDeadRows || dead < rowCount * compactionRatio) {
+            return;
+        }
+        if (compactionScheduled.compareAndSet(false, true)) {
+            compactor().execute(() -> {
+                try {
+                    compact();
+                } finally {
+                    compactionScheduled.set(false);
+                }
+            });
+        }
+    }
+
+    private synchronized ExecutorService compactor() {
+        if (compactor == null) {
+            compactor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "task-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return compactor;
+    }
+
+    /**
+     * タスクデータを更新します。
+     * 書き換え後の行が元の行と同じバイト数であれば(ステータスの変更など)、
+     * 元の行の位置にそのまま上書きします。
+     * バイト数が変わる場合は新しい行を末尾に追記し、以後はその行を最新のデータとして扱います。
+     * 同じコードのタスクの更新は1件ずつ行われ、異なるコードの更新は並行して行われます。
+     *
+     * @param updateTask 更新するタスク
+     * @throws UncheckedIOException 書き込みに失敗した場合
+     */
+    @Override
+    public void update(Task updateTask) {
+        offsets();
+        Path path = Paths.get(filePath);
+        fileLock.readLock().lock();
+        StampedLock stripe = stripe(updateTask.getCode());
+        long stamp = stripe.writeLock();
+        pendingWrites.incrementAndGet();
+        try {
+            long offset;
+            synchronized (appendLock) {
+                offset = offsets.get(updateTask.getCode());
+            }
+            if (offset == IntLongHashMap.MISSING) {
+                return;
+            }
+            Task task = updateTask;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                IoMetrics.opened();
+                byte[] current = CsvFiles.readLine(channel, offset).getBytes(StandardCharsets.UTF_8);
+                if (task.getRepUser() == null) {
+                    // 担当ユーザーが見つからなかったタスクは、元の行の担当ユーザーコードを引き継ぐ
+                    task = new Task(task.getCode(), task.getName(), task.getStatus(),
+                            new User(repUserCodeOf(current), null, null, null));
+                }
+                byte[] updated = createLine(task).getBytes(StandardCharsets.UTF_8);
+                if (current.length == updated.length) {
+                    write(channel, updated, offset);
+                    synchronized (appendLock) {
+                        afterWrite(List.of(task));
+                    }
+                    return;
+                }
             }
+            append(task);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            pendingWrites.decrementAndGet();
+            stripe.unlockWrite(stamp);
+            fileLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public FileStamp stamp() {
+        return FileStamp.of(Paths.get(filePath));
+    }
+
+    private StampedLock stripe(int code) {
+        // 連番のコードが同じロックに偏らないよう、上位ビットで振り分ける
+        return stripes[(code * 0x9E3779B9) >>> (Integer.SIZE - Integer.numberOfTrailingZeros(STRIPES))];
+    }
+
+    private static int write(FileChannel channel, byte[] bytes, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long current = position;
+        while (buffer.hasRemaining()) {
+            current += channel.write(buffer, current);
         }
-    public String createLine(Task task){
-        return task.getCode()+","+task.getName()+","+task.getStatus()+","+task.getRepUser();
+        IoMetrics.written(bytes.length);
+        return bytes.length;
+    }
+
+    /**
+     * タスクデータをCSVに書き込むためのフォーマットを作成します。
+     * 担当者のいないタスクは、担当ユーザーコードを{@value #NO_REP_USER}として書き込みます。
+     *
+     * @param task フォーマットを作成するタスク
+     * @return CSVに書き込むためのフォーマット文字列
+     */
+    public String createLine(Task task) {
+        return task.getCode() + "," + CsvFiles.escape(task.getName()) + "," + task.getStatus() + ","
+                + repUserCode(task);
+    }
+
+    /**
+     * @param task タスク
+     * @return 担当ユーザーのコード。担当者がいない場合は{@value #NO_REP_USER}
+     */
+    static int repUserCode(Task task) {
+        return task.getRepUser() == null ? NO_REP_USER : task.getRepUser().getCode();
+    }
+
+    /**
+     * @param line 読み込んだ行
+     * @return 行の担当ユーザーコード。読み取れない場合は{@value #NO_REP_USER}
+     */
+    private static int repUserCodeOf(byte[] line) {
+        CsvReader reader = CsvReader.of(ByteBuffer.wrap(line));
+        try {
+            if (reader.nextRow()) {
+                reader.nextInt();
+                reader.nextString();
+                reader.nextInt();
+                return reader.nextInt();
+            }
+        } catch (IOException | NumberFormatException | IllegalStateException e) {
+            // 列の形式が壊れている行
+        }
+        return NO_REP_USER;
     }
 
     /**
@@ -159,11 +723,75 @@ public class TaskDataAccess {
     // }
 
     /**
-     * タスクデータをCSVに書き込むためのフォーマットを作成します。
-     * 
-     * @param task フォーマットを作成するタスク
-     * @return CSVに書き込むためのフォーマット文字列
+     * {@link #findAll()}で読み込んだ行の内容を保持する不変のスナップショットです。
+     * 呼び出し側がタスクを書き換えても影響しないよう、取得のたびに新しい{@link Task}を作成します。
      */
-    // private String createLine(Task task) {
-    // }
-}
\ No newline at end of file
+    private static final class TaskSnapshot {
+        private final long version;
+        private final FileStamp stamp;
+        private final ChunkedList<String> names;
+        private final ChunkedList<int[]> rows;
+
+        /**
+         * タスクコードから行番号への対応です。書き込みのたびに新しいスナップショットへ引き継ぎ、
+         * 追加された行の分だけ書き足します。{@link #apply(List, long, FileStamp)}以外では参照しません。
+         */
+        private final IntLongHashMap positions;
+
+        private TaskSnapshot(long version, FileStamp stamp, ChunkedList<String> names, ChunkedList<int[]> rows,
+                IntLongHashMap positions) {
+            this.version = version;
+            this.stamp = stamp;
+            this.names = names;
+            this.rows = rows;
+            this.positions = positions;
+        }
+
+        private boolean isCurrent(long version, FileStamp stamp) {
+            return this.version == version && this.stamp.equals(stamp);
+        }
+
+        /**
+         * 書き込んだタスクを適用した新しいスナップショットを作成します。このスナップショットは変更しません。
+         * 既存のコードは最初に現れた位置の行を置き換え、新しいコードは末尾に追加します。
+         * 行番号の対応を書き足すため、{@link TaskDataAccess#appendLock}を取った状態で、
+         * 最新のスナップショットに対してだけ呼び出します。
+         *
+         * @param tasks   書き込んだタスク
+         * @param version 新しいスナップショットの更新番号
+         * @param stamp   書き込み後のファイルのスタンプ
+         * @return 新しいスナップショット
+         */
+        private TaskSnapshot apply(List<Task> tasks, long version, FileStamp stamp) {
+            ChunkedList.Editor<String> newNames = names.edit();
+            ChunkedList.Editor<int[]> newRows = rows.edit();
+            for (Task task : tasks) {
+                int[] row = { task.getCode(), task.getStatus(), repUserCode(task) };
+                long position = positions.get(task.getCode());
+                if (position == IntLongHashMap.MISSING) {
+                    positions.put(task.getCode(), newRows.size());
+                    newNames.add(task.getName());
+                    newRows.add(row);
+                } else {
+                    newNames.set((int) position, task.getName());
+                    newRows.set((int) position, row);
+                }
+            }
+            return new TaskSnapshot(version, stamp, newNames.build(), newRows.build(), positions);
+        }
+
+        private List<Task> toTasks(UserDataAccess userDataAccess) {
+            Set<Integer> userCodes = new HashSet<>();
+            for (int[] row : rows) {
+                userCodes.add(row[2]);
+            }
+            Map<Integer, User> users = userDataAccess.findByCodes(userCodes);
+            List<Task> tasks = new ArrayList<>(rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                int[] row = rows.get(i);
+                tasks.add(new Task(row[0], names.get(i), row[1], users.get(row[2])));
+            }
+            return tasks;
+        }
+    }
+}
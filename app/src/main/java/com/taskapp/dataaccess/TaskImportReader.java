@@ -0,0 +1,216 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.taskapp.metrics.IoMetrics;
+
+/**
+ * タスクを一括登録するためのCSVを読み込みます。
+ * 形式はtasks.csvと同じ「コード,タスク名,ステータス,担当ユーザーコード」で、先頭のヘッダー行は読み飛ばします。
+ * ファイルをメモリマップし、行の途中で切れないように一定の大きさのチャンクに分けてから、
+ * 各チャンクを{@link ForkJoinPool}で並列に解析します。結果はファイル内の順に並びます。
+ */
+public class TaskImportReader {
+    /** 1チャンクの既定のバイト数 */
+    public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+    private final Path path;
+
+    private final int chunkSize;
+
+    /**
+     * @param path 読み込むファイル
+     */
+    public TaskImportReader(Path path) {
+        this(path, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param path      読み込むファイル
+     * @param chunkSize 1チャンクのおおよそのバイト数
+     */
+    public TaskImportReader(Path path, int chunkSize) {
+        this.path = path;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * ファイル全体を解析します。列の形式が壊れている行もエラーとして結果に含めます。
+     *
+     * @param pool チャンクの解析に使うプール
+     * @return ファイル内の順に並んだ行のリスト
+     * @throws IOException ファイルを読み込めなかった場合
+     */
+    public List<Row> read(ForkJoinPool pool) throws IOException {
+        ByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("ファイルが大きすぎます: " + path);
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            IoMetrics.opened();
+            IoMetrics.read(mapped.limit());
+        }
+        int[] bounds = boundaries(mapped);
+        try {
+            return pool.invoke(new ChunkTask(mapped, bounds, 0, bounds.length - 1));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * チャンクの境界を求めます。境界はダブルクォートの外側の改行の直後に置きます。
+     *
+     * @return 先頭(0)と末尾(ファイルのバイト数)を含む境界の位置
+     */
+    private int[] boundaries(ByteBuffer mapped) {
+        List<Integer> bounds = new ArrayList<>();
+        bounds.add(0);
+        int chunkStart = 0;
+        boolean quoted = false;
+        int limit = mapped.limit();
+        for (int i = 0; i < limit; i++) {
+            byte b = mapped.get(i);
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (b == '\n' && !quoted && i + 1 - chunkStart >= chunkSize) {
+                chunkStart = i + 1;
+                bounds.add(chunkStart);
+            }
+        }
+        if (chunkStart < limit) {
+            bounds.add(limit);
+        }
+        return bounds.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * 1つのチャンクを解析します。
+     *
+     * @param mapped ファイル全体をマップしたバッファ
+     * @param start  チャンクの先頭位置
+     * @param end    チャンクの終端位置
+     * @return チャンク内の行のリスト
+     */
+    private static List<Row> parse(ByteBuffer mapped, int start, int end) throws IOException {
+        List<Row> rows = new ArrayList<>();
+        try (CsvReader reader = CsvReader.of(mapped.slice(start, end - start))) {
+            while (reader.nextRow()) {
+                if (!reader.isIntField()) {
+                    if (start == 0 && reader.rowOffset() == 0) {
+                        // ヘッダー行
+                        continue;
+                    }
+                    rows.add(Row.error("コードが数値ではありません"));
+                    continue;
+                }
+                try {
+                    int code = reader.nextInt();
+                    String name = reader.nextString();
+                    int status = reader.nextInt();
+                    int repUserCode = reader.nextInt();
+                    rows.add(new Row(code, name, status, repUserCode, null));
+                } catch (NumberFormatException | IllegalStateException e) {
+                    rows.add(Row.error("列の形式が正しくありません"));
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * チャンクの範囲を半分に分けて並列に解析し、結果を順に連結します。
+     */
+    private static final class ChunkTask extends RecursiveTask<List<Row>> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient ByteBuffer mapped;
+        private final int[] bounds;
+        private final int from;
+        private final int to;
+
+        private ChunkTask(ByteBuffer mapped, int[] bounds, int from, int to) {
+            this.mapped = mapped;
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<Row> compute() {
+            if (to - from <= 1) {
+                if (to == from) {
+                    return new ArrayList<>();
+                }
+                try {
+                    return parse(mapped, bounds[from], bounds[to]);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            int middle = (from + to) >>> 1;
+            ChunkTask left = new ChunkTask(mapped, bounds, from, middle);
+            left.fork();
+            List<Row> right = new ChunkTask(mapped, bounds, middle, to).compute();
+            List<Row> rows = left.join();
+            rows.addAll(right);
+            return rows;
+        }
+    }
+
+    /**
+     * 解析した1行です。列の形式が壊れている場合は{@link #getError()}にその内容を持ちます。
+     */
+    public static final class Row {
+        private final int code;
+        private final String name;
+        private final int status;
+        private final int repUserCode;
+        private final String error;
+
+        private Row(int code, String name, int status, int repUserCode, String error) {
+            this.code = code;
+            this.name = name;
+            this.status = status;
+            this.repUserCode = repUserCode;
+            this.error = error;
+        }
+
+        private static Row error(String error) {
+            return new Row(0, null, 0, 0, error);
+        }
+
+        public int getCode() {
+            return code;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public int getRepUserCode() {
+            return repUserCode;
+        }
+
+        /**
+         * @return 列の形式が壊れている場合はその内容。正しい行の場合はnull
+         */
+        public String getError() {
+            return error;
+        }
+    }
+}
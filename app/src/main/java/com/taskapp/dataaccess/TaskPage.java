@@ -0,0 +1,45 @@
+package com.taskapp.dataaccess;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.taskapp.model.Task;
+
+/**
+ * {@link TaskQuery}で取得した1ページ分のタスクです。
+ */
+public class TaskPage {
+    private final List<Task> tasks;
+
+    private final boolean hasNext;
+
+    /**
+     * @param tasks   コードの昇順に並んだタスク
+     * @param hasNext 続きのページがあればtrue
+     */
+    public TaskPage(List<Task> tasks, boolean hasNext) {
+        this.tasks = Collections.unmodifiableList(tasks);
+        this.hasNext = hasNext;
+    }
+
+    /**
+     * @return コードの昇順に並んだタスクのリスト
+     */
+    public List<Task> getTasks() {
+        return tasks;
+    }
+
+    /**
+     * @return 続きのページがあればtrue
+     */
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    /**
+     * @return 続きのページを取得するために{@link TaskQuery#after(int)}へ渡す値。タスクがない場合は{@link Integer#MIN_VALUE}
+     */
+    public int getNextCursor() {
+        return tasks.isEmpty() ? Integer.MIN_VALUE : tasks.get(tasks.size() - 1).getCode();
+    }
+}
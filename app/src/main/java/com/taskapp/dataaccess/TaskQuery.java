@@ -0,0 +1,149 @@
+package com.taskapp.dataaccess;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * タスクの絞り込み条件とページの指定です。
+ * 結果はコードの昇順に並び、前のページの{@link TaskPage#getNextCursor()}を{@link #after(int)}に渡すと続きを取得できます。
+ *
+ * <pre>
+ * TaskQuery query = new TaskQuery().status(1).repUserCode(loginUser.getCode()).limit(50);
+ * TaskPage page = taskRepository.find(query);
+ * while (page.hasNext()) {
+ *     page = taskRepository.find(query.after(page.getNextCursor()));
+ * }
+ * </pre>
+ */
+public class TaskQuery {
+    /** 条件を指定しないことを表す値 */
+    public static final int ANY = -1;
+
+    /** 1ページの既定の件数 */
+    public static final int DEFAULT_LIMIT = 50;
+
+    private int status = ANY;
+
+    private int repUserCode = ANY;
+
+    private int after = Integer.MIN_VALUE;
+
+    private int limit = DEFAULT_LIMIT;
+
+    /**
+     * ステータスで絞り込みます。
+     *
+     * @param status ステータス。{@link #ANY}の場合は絞り込みません
+     * @return この条件
+     */
+    public TaskQuery status(int status) {
+        this.status = status;
+        return this;
+    }
+
+    /**
+     * 担当ユーザーのコードで絞り込みます。
+     *
+     * @param repUserCode 担当ユーザーのコード。{@link #ANY}の場合は絞り込みません
+     * @return この条件
+     */
+    public TaskQuery repUserCode(int repUserCode) {
+        this.repUserCode = repUserCode;
+        return this;
+    }
+
+    /**
+     * 指定したコードより大きいコードのタスクだけを返します。
+     *
+     * @param cursor 前のページの{@link TaskPage#getNextCursor()}
+     * @return この条件
+     */
+    public TaskQuery after(int cursor) {
+        this.after = cursor;
+        return this;
+    }
+
+    /**
+     * 1ページの件数を指定します。
+     *
+     * @param limit 1以上の件数
+     * @return この条件
+     * @throws IllegalArgumentException 件数が1未満の場合
+     */
+    public TaskQuery limit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("件数は1以上で指定してください: " + limit);
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * @param code        タスクのコード
+     * @param status      タスクのステータス
+     * @param repUserCode 担当ユーザーのコード
+     * @return 条件に一致し、カーソルより後ろのタスクであればtrue
+     */
+    public boolean matches(int code, int status, int repUserCode) {
+        return code > after
+                && (this.status == ANY || this.status == status)
+                && (this.repUserCode == ANY || this.repUserCode == repUserCode);
+    }
+
+    /**
+     * 行の値だけで絞り込み、コードの小さい順に1ページ分を選んでからタスクを作成します。
+     * 選んだ行のタスク名と担当ユーザーだけを取得するため、該当しない行のオブジェクトは作成しません。
+     * 件数+1件までの行をヒープで保持するため、全件を並べ替えません。
+     *
+     * @param rows           「コード・ステータス・担当ユーザーコード」の行のリスト
+     * @param names          行の番号からタスク名を取得する関数
+     * @param userRepository 担当ユーザーの取得に使うリポジトリ
+     * @return 1ページ分のタスク
+     */
+    TaskPage select(List<int[]> rows, IntFunction<String> names, UserRepository userRepository) {
+        // コードの大きい順に取り出せるヒープ。行の番号を保持する
+        PriorityQueue<Integer> selected = new PriorityQueue<>(limit + 1,
+                Comparator.comparingInt((Integer rowIndex) -> rows.get(rowIndex)[0]).reversed());
+        for (int i = 0; i < rows.size(); i++) {
+            int[] row = rows.get(i);
+            if (!matches(row[0], row[1], row[2])) {
+                continue;
+            }
+            if (selected.size() <= limit) {
+                selected.add(i);
+            } else if (row[0] < rows.get(selected.peek())[0]) {
+                selected.poll();
+                selected.add(i);
+            }
+        }
+        boolean hasNext = selected.size() > limit;
+        if (hasNext) {
+            selected.poll();
+        }
+
+        int[] rowIndexes = new int[selected.size()];
+        for (int i = rowIndexes.length - 1; i >= 0; i--) {
+            rowIndexes[i] = selected.poll();
+        }
+        Set<Integer> userCodes = new HashSet<>();
+        for (int rowIndex : rowIndexes) {
+            userCodes.add(rows.get(rowIndex)[2]);
+        }
+        Map<Integer, User> users = userCodes.isEmpty() ? Map.of() : userRepository.findByCodes(userCodes);
+        List<Task> tasks = new ArrayList<>(rowIndexes.length);
+        for (int rowIndex : rowIndexes) {
+            int[] row = rows.get(rowIndex);
+            tasks.add(new Task(row[0], names.apply(rowIndex), row[1], users.get(row[2])));
+        }
+        return new TaskPage(tasks, hasNext);
+    }
+}
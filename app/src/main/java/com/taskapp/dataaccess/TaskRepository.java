@@ -0,0 +1,70 @@
+package com.taskapp.dataaccess;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import com.taskapp.model.Task;
+
+/**
+ * タスクデータの保存先を抽象化したインターフェースです。
+ * 保存形式ごとの実装は{@link StorageEngine}から取得します。
+ */
+public interface TaskRepository {
+    /**
+     * 全てのタスクデータを取得します。
+     * 同じコードのデータが複数ある場合は、最初に保存された位置に最後に保存された内容を返します。
+     *
+     * @return タスクのリスト
+     */
+    List<Task> findAll();
+
+    /**
+     * 条件に一致するタスクをコードの昇順に1ページ分取得します。
+     * 条件は読み込んだ行の値で判定し、一致しない行のタスクや担当ユーザーは作成しません。
+     *
+     * @param query 絞り込み条件とページの指定
+     * @return 1ページ分のタスク
+     */
+    TaskPage find(TaskQuery query);
+
+    /**
+     * タスクを保存します。
+     *
+     * @param task 保存するタスク
+     * @throws UncheckedIOException 書き込みに失敗した場合
+     */
+    void save(Task task);
+
+    /**
+     * 複数のタスクをまとめて保存します。1件ずつ保存するより少ない書き込みで済みます。
+     *
+     * @param tasks 保存するタスクのリスト
+     * @throws UncheckedIOException 書き込みに失敗した場合
+     */
+    void saveAll(List<Task> tasks);
+
+    /**
+     * コードを基にタスクデータを1件取得します。
+     *
+     * @param code 取得するタスクのコード
+     * @return 取得したタスク。存在しない場合はnull
+     */
+    Task findByCode(int code);
+
+    /**
+     * タスクデータを更新します。存在しないコードの場合は何もしません。
+     *
+     * @param updateTask 更新するタスク
+     * @throws UncheckedIOException 書き込みに失敗した場合
+     */
+    void update(Task updateTask);
+
+    /**
+     * 保存先のファイルの現在のスタンプを返します。
+     * 前回取得したスタンプと異なれば、その間に他のインスタンスやプロセスが保存先を変更しています。
+     * タスクデータから作成した索引が古くなっていないかの判定に使います。
+     *
+     * @return スタンプ
+     */
+    FileStamp stamp();
+}
@@ -0,0 +1,136 @@
+package com.taskapp.dataaccess;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.taskapp.config.AppConfig;
+import com.taskapp.metrics.Counter;
+import com.taskapp.metrics.MetricsRegistry;
+import com.taskapp.model.User;
+
+/**
+ * ユーザーコードをキーに{@link User}のインスタンスを共有するための、大きさに上限のあるキャッシュです。
+ * users.csvを読み込み直しても内容が変わっていないユーザーは以前と同じインスタンスを返すため、
+ * 読み込み前後に作成したタスクや認証情報の索引が同じインスタンスを参照し続けます。
+ * 上限を超えた場合は最も長く参照されていないユーザーから取り除きます(LRU)。
+ * 最大件数は設定{@value #SIZE_PROPERTY}で指定します。
+ */
+public final class UserCache {
+    /** 最大件数を指定する設定のキー */
+    public static final String SIZE_PROPERTY = "taskapp.userCache.size";
+
+    /** 既定の最大件数 */
+    public static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+
+    private static final UserCache SHARED = new UserCache(
+            AppConfig.global().getInt(SIZE_PROPERTY, DEFAULT_MAXIMUM_SIZE));
+
+    private static final Counter HITS = MetricsRegistry.global().counter("dataaccess.users.cache.hits");
+    private static final Counter MISSES = MetricsRegistry.global().counter("dataaccess.users.cache.misses");
+    private static final Counter EVICTIONS = MetricsRegistry.global().counter("dataaccess.users.cache.evictions");
+
+    private final int maximumSize;
+
+    private final LinkedHashMap<Integer, User> users;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maximumSize 保持するユーザーの最大件数
+     * @throws IllegalArgumentException 最大件数が1未満の場合
+     */
+    public UserCache(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("キャッシュの最大件数は1以上で指定してください: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.users = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, User> eldest) {
+                if (size() <= UserCache.this.maximumSize) {
+                    return false;
+                }
+                evictions.increment();
+                EVICTIONS.increment();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * 全ての{@link UserDataAccess}で共有するキャッシュを返します。
+     *
+     * @return 共有のキャッシュ
+     */
+    public static UserCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * 同じ内容のユーザーがキャッシュにあればそのインスタンスを、なければ渡されたインスタンスを登録して返します。
+     * コードが同じでも名前・メールアドレス・パスワードのいずれかが異なる場合は、渡されたインスタンスで置き換えます。
+     *
+     * @param user 読み込んだユーザー
+     * @return 共有するインスタンス
+     */
+    public synchronized User intern(User user) {
+        User cached = users.get(user.getCode());
+        if (cached != null && sameContent(cached, user)) {
+            hits.increment();
+            HITS.increment();
+            return cached;
+        }
+        misses.increment();
+        MISSES.increment();
+        users.put(user.getCode(), user);
+        return user;
+    }
+
+    /**
+     * @return 同じ内容のインスタンスを返せた回数
+     */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return 新しいインスタンスを登録した回数
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return 上限を超えて取り除いた回数
+     */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return 保持しているユーザーの数
+     */
+    public synchronized int size() {
+        return users.size();
+    }
+
+    /**
+     * @return 保持するユーザーの最大件数
+     */
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    private static boolean sameContent(User a, User b) {
+        return Objects.equals(a.getName(), b.getName()) && Objects.equals(a.getEmail(), b.getEmail())
+                && Objects.equals(a.getPassword(), b.getPassword());
+    }
+}
@@ -1,79 +1,186 @@
 package com.taskapp.dataaccess;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import com.taskapp.config.AppConfig;
+import com.taskapp.metrics.Counter;
+import com.taskapp.metrics.MetricsRegistry;
 import com.taskapp.model.User;
 
-public class UserDataAccess {
+public class UserDataAccess implements UserRepository {
+    /** users.csvを読み込んで索引を作り直した回数 */
+    private static final Counter LOADS = MetricsRegistry.global().counter("dataaccess.users.loads");
+
     private final String filePath;
 
+    /** 読み込み直しの前後で同じ内容のユーザーのインスタンスを共有するキャッシュ */
+    private final UserCache cache;
+
+    /**
+     * users.csvを読み込んだ結果の索引です。
+     * ファイルの更新日時・サイズが変わるまで使い回します。
+     */
+    private volatile UserIndex index;
+
+    /**
+     * 設定されたデータディレクトリのusers.csvを使います。
+     *
+     * @see AppConfig#dataFile(String)
+     */
     public UserDataAccess() {
-        filePath = "app/src/main/resources/users.csv";
+        filePath = AppConfig.global().dataFile("users.csv");
+        cache = UserCache.shared();
     }
 
     /**
      * 自動採点用に必要なコンストラクタのため、皆さんはこのコンストラクタを利用・削除はしないでください
-     * 
+     *
      * @param filePath
      */
     public UserDataAccess(String filePath) {
+        this(filePath, UserCache.shared());
+    }
+
+    /**
+     * @param filePath users.csvのパス
+     * @param cache    ユーザーのインスタンスを共有するキャッシュ
+     */
+    public UserDataAccess(String filePath, UserCache cache) {
         this.filePath = filePath;
+        this.cache = cache;
     }
 
     /**
      * メールアドレスとパスワードを基にユーザーデータを探します。
-     * 
+     * 同じメールアドレスの行が複数ある場合は、パスワードが一致する最初の行のユーザーを返します。
+     *
      * @param email    メールアドレス
      * @param password パスワード
      * @return 見つかったユーザー
      */
+    @Override
     public User findByEmailAndPassword(String email, String password) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            reader.readLine();
-
-            while ((line = reader.readLine()) != null) {
-                String[] values = line.split(",");
-
-                if (values[2].equals(email) && values[3].equals(password)) {
-                    int code = Integer.parseInt(values[0]);
-                    String name = values[1];
-                    return new User(code, name, email, password);
-                }
+        List<User> users = index().byEmail.get(email);
+        if (users == null) {
+            return null;
+        }
+        for (User user : users) {
+            if (user.getPassword().equals(password)) {
+                return user;
             }
-        } catch (IOException e) {
-            e.printStackTrace();
         }
         return null;
     }
 
     /**
      * コードを基にユーザーデータを取得します。
-     * 
+     *
      * @param code 取得するユーザーのコード
      * @return 見つかったユーザー
      */
+    @Override
     public User findByCode(int code) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            reader.readLine();
-
-            while ((line = reader.readLine()) != null) {
-                String[] values = line.split(",");
-
-                int usercode = Integer.parseInt(values[0]);
-                if (usercode == code) {
-                    String name = values[1];
-                    String email = values[2];
-                    String password = values[3];
-                    return new User(usercode, name, email, password);
+        return index().byCode.get(code);
+    }
+
+    /**
+     * 複数のコードを基にユーザーデータをまとめて取得します。
+     * CSVの走査は呼び出し1回につき1度だけ行います。
+     *
+     * @param codes 取得するユーザーのコード
+     * @return ユーザーコードをキーとした見つかったユーザーのマップ
+     */
+    @Override
+    public Map<Integer, User> findByCodes(Set<Integer> codes) {
+        Map<Integer, User> byCode = index().byCode;
+        Map<Integer, User> users = new HashMap<>();
+        for (Integer code : codes) {
+            User user = byCode.get(code);
+            if (user != null) {
+                users.put(code, user);
+            }
+        }
+        return users;
+    }
+
+    /**
+     * 最新の索引を返します。
+     * ファイルの更新日時かサイズが前回の読み込み時から変わっていれば読み込み直します。
+     *
+     * @return ユーザーの索引
+     */
+    private UserIndex index() {
+        FileStamp stamp = FileStamp.of(Paths.get(filePath));
+        UserIndex current = index;
+        if (current != null && current.matches(stamp)) {
+            return current;
+        }
+        synchronized (this) {
+            current = index;
+            if (current == null || !current.matches(stamp)) {
+                current = load(stamp);
+                index = current;
+            }
+            return current;
+        }
+    }
+
+    /**
+     * CSVから全てのユーザーを読み込み、コードとメールアドレスの索引を作成します。
+     * 以前に読み込んだユーザーと内容が同じ場合は、キャッシュにある以前のインスタンスを使います。
+     *
+     * @param stamp 読み込み時点のファイルの更新日時とサイズ
+     * @return 作成した索引
+     */
+    private UserIndex load(FileStamp stamp) {
+        Map<Integer, User> byCode = new HashMap<>();
+        Map<String, List<User>> byEmail = new HashMap<>();
+        LOADS.increment();
+        try (CsvReader reader = CsvReader.open(Paths.get(filePath))) {
+            while (reader.nextRow()) {
+                // ヘッダー行など、先頭の列がコードでない行は読み飛ばす
+                if (!reader.isIntField()) {
+                    continue;
+                }
+                int code = reader.nextInt();
+                User user = new User(code, reader.nextString(), reader.nextString(), reader.nextString());
+                // 同じコードの2行目以降は索引に使われないため、キャッシュの内容を置き換えない
+                if (!byCode.containsKey(code)) {
+                    user = cache.intern(user);
+                    byCode.put(code, user);
                 }
+                // メールアドレスは一意とは限らないため、同じメールアドレスの行は全て残してパスワードで照合する
+                byEmail.computeIfAbsent(user.getEmail(), key -> new ArrayList<>(1)).add(user);
             }
         } catch (IOException e) {
             e.printStackTrace();
         }
-        return null;
+        return new UserIndex(stamp, byCode, byEmail);
+    }
+
+    /**
+     * ある時点のusers.csvの内容から作成した不変の索引です。
+     */
+    private static final class UserIndex {
+        private final FileStamp stamp;
+        private final Map<Integer, User> byCode;
+        private final Map<String, List<User>> byEmail;
+
+        private UserIndex(FileStamp stamp, Map<Integer, User> byCode, Map<String, List<User>> byEmail) {
+            this.stamp = stamp;
+            this.byCode = Collections.unmodifiableMap(byCode);
+            this.byEmail = Collections.unmodifiableMap(byEmail);
+        }
+
+        private boolean matches(FileStamp stamp) {
+            return this.stamp.equals(stamp);
+        }
     }
 }
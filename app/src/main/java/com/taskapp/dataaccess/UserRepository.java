@@ -0,0 +1,37 @@
+package com.taskapp.dataaccess;
+
+import java.util.Map;
+import java.util.Set;
+
+import com.taskapp.model.User;
+
+/**
+ * ユーザーデータの保存先を抽象化したインターフェースです。
+ * 保存形式ごとの実装は{@link StorageEngine}から取得します。
+ */
+public interface UserRepository {
+    /**
+     * メールアドレスとパスワードを基にユーザーデータを探します。
+     *
+     * @param email    メールアドレス
+     * @param password パスワード
+     * @return 見つかったユーザー。存在しない場合はnull
+     */
+    User findByEmailAndPassword(String email, String password);
+
+    /**
+     * コードを基にユーザーデータを取得します。
+     *
+     * @param code 取得するユーザーのコード
+     * @return 見つかったユーザー。存在しない場合はnull
+     */
+    User findByCode(int code);
+
+    /**
+     * 複数のコードを基にユーザーデータをまとめて取得します。
+     *
+     * @param codes 取得するユーザーのコード
+     * @return ユーザーコードをキーとした見つかったユーザーのマップ
+     */
+    Map<Integer, User> findByCodes(Set<Integer> codes);
+}
@@ -0,0 +1,439 @@
+package com.taskapp.logic;
+
+import java.util.Arrays;
+
+/**
+ * タスクコードの集合を圧縮して保持するビットマップです(Roaring Bitmapと同じ構成)。
+ * コードの上位16ビットごとにコンテナを分け、要素が少ないコンテナは下位16ビットのソート済み配列、
+ * 多いコンテナは65536ビットのビットマップで保持します。
+ * 積集合はコンテナ単位で計算し、ビットマップ同士は64ビットずつ論理積を取ります。
+ * コードは符号なし整数として扱い、{@link #toArray()}はその昇順で返します。
+ * スレッドセーフではありません。
+ */
+public final class CodeBitmap {
+    /** 配列コンテナで保持する最大の要素数。これを超えるとビットマップコンテナに切り替えます */
+    private static final int ARRAY_MAX = 4096;
+
+    private static final int BITMAP_WORDS = 1 << 10;
+
+    /** コンテナの上位16ビットのキー(昇順) */
+    private char[] keys = new char[4];
+
+    private Container[] containers = new Container[4];
+
+    private int size;
+
+    /**
+     * コードを追加します。
+     *
+     * @param code 追加するコード
+     * @return 追加した場合はtrue。既に含まれていた場合はfalse
+     */
+    public boolean add(int code) {
+        char key = (char) (code >>> 16);
+        int index = indexOf(key);
+        if (index < 0) {
+            index = -index - 1;
+            insertContainer(index, key, new ArrayContainer());
+        }
+        Container container = containers[index];
+        int before = container.cardinality();
+        containers[index] = container.add((char) code);
+        return containers[index].cardinality() != before;
+    }
+
+    /**
+     * コードを取り除きます。
+     *
+     * @param code 取り除くコード
+     * @return 取り除いた場合はtrue。含まれていなかった場合はfalse
+     */
+    public boolean remove(int code) {
+        int index = indexOf((char) (code >>> 16));
+        if (index < 0) {
+            return false;
+        }
+        Container container = containers[index];
+        int before = container.cardinality();
+        container = container.remove((char) code);
+        if (container.cardinality() == before) {
+            return false;
+        }
+        if (container.cardinality() == 0) {
+            removeContainer(index);
+        } else {
+            containers[index] = container;
+        }
+        return true;
+    }
+
+    /**
+     * @param code 調べるコード
+     * @return 含まれていればtrue
+     */
+    public boolean contains(int code) {
+        int index = indexOf((char) (code >>> 16));
+        return index >= 0 && containers[index].contains((char) code);
+    }
+
+    /**
+     * @return 含まれるコードの数
+     */
+    public int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    /**
+     * @return コードが1つも含まれていなければtrue
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 2つのビットマップの積集合を作成します。どちらのビットマップも変更しません。
+     *
+     * @param other もう一方のビットマップ
+     * @return 両方に含まれるコードのビットマップ
+     */
+    public CodeBitmap and(CodeBitmap other) {
+        CodeBitmap result = new CodeBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container container = containers[i].and(other.containers[j]);
+                if (container.cardinality() > 0) {
+                    result.insertContainer(result.size, keys[i], container);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 2つのビットマップの積集合の要素数を、積集合を作成せずに数えます。
+     *
+     * @param other もう一方のビットマップ
+     * @return 両方に含まれるコードの数
+     */
+    public int andCardinality(CodeBitmap other) {
+        int cardinality = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                cardinality += containers[i].andCardinality(other.containers[j]);
+                i++;
+                j++;
+            }
+        }
+        return cardinality;
+    }
+
+    /**
+     * @return 含まれるコードを符号なし整数の昇順に並べた配列
+     */
+    public int[] toArray() {
+        int[] codes = new int[cardinality()];
+        int position = 0;
+        for (int i = 0; i < size; i++) {
+            position = containers[i].copyTo(codes, position, keys[i] << 16);
+        }
+        return codes;
+    }
+
+    /**
+     * @return このビットマップの複製
+     */
+    public CodeBitmap copy() {
+        CodeBitmap copy = new CodeBitmap();
+        copy.keys = Arrays.copyOf(keys, keys.length);
+        copy.containers = new Container[containers.length];
+        for (int i = 0; i < size; i++) {
+            copy.containers[i] = containers[i].copy();
+        }
+        copy.size = size;
+        return copy;
+    }
+
+    private int indexOf(char key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insertContainer(int index, char key, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    private void removeContainer(int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+        containers[--size] = null;
+    }
+
+    /**
+     * 上位16ビットが同じコードの下位16ビットを保持するコンテナです。
+     * 追加・削除は、要素数に応じて形式を切り替えたコンテナを返します。
+     */
+    private interface Container {
+        Container add(char value);
+
+        Container remove(char value);
+
+        boolean contains(char value);
+
+        int cardinality();
+
+        Container and(Container other);
+
+        int andCardinality(Container other);
+
+        int copyTo(int[] codes, int position, int high);
+
+        Container copy();
+    }
+
+    /**
+     * 下位16ビットをソート済みの配列で保持するコンテナです。
+     */
+    private static final class ArrayContainer implements Container {
+        private char[] values;
+
+        private int cardinality;
+
+        private ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        private ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        public Container add(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                return this;
+            }
+            if (cardinality == ARRAY_MAX) {
+                return toBitmap().add(value);
+            }
+            index = -index - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(Math.max(cardinality * 2, 4), ARRAY_MAX));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        public Container remove(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        public boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public Container and(Container other) {
+            char[] result = new char[cardinality];
+            int count = 0;
+            if (other instanceof ArrayContainer) {
+                ArrayContainer array = (ArrayContainer) other;
+                int i = 0;
+                int j = 0;
+                while (i < cardinality && j < array.cardinality) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    } else if (values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        result[count++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < cardinality; i++) {
+                    if (other.contains(values[i])) {
+                        result[count++] = values[i];
+                    }
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        public int andCardinality(Container other) {
+            return and(other).cardinality();
+        }
+
+        @Override
+        public int copyTo(int[] codes, int position, int high) {
+            for (int i = 0; i < cardinality; i++) {
+                codes[position++] = high | values[i];
+            }
+            return position;
+        }
+
+        @Override
+        public Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(cardinality, 1)), cardinality);
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < cardinality; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    /**
+     * 下位16ビットを65536ビットのビットマップで保持するコンテナです。
+     */
+    private static final class BitmapContainer implements Container {
+        private final long[] words;
+
+        private int cardinality;
+
+        private BitmapContainer() {
+            this(new long[BITMAP_WORDS], 0);
+        }
+
+        private BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        public Container add(char value) {
+            long before = words[value >>> 6];
+            words[value >>> 6] = before | (1L << value);
+            if (before != words[value >>> 6]) {
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        public Container remove(char value) {
+            long before = words[value >>> 6];
+            words[value >>> 6] = before & ~(1L << value);
+            if (before != words[value >>> 6]) {
+                cardinality--;
+                if (cardinality <= ARRAY_MAX) {
+                    return toArrayContainer();
+                }
+            }
+            return this;
+        }
+
+        @Override
+        public boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            long[] result = new long[BITMAP_WORDS];
+            int count = 0;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                result[i] = words[i] & otherWords[i];
+                count += Long.bitCount(result[i]);
+            }
+            BitmapContainer bitmap = new BitmapContainer(result, count);
+            return count <= ARRAY_MAX ? bitmap.toArrayContainer() : bitmap;
+        }
+
+        @Override
+        public int andCardinality(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.andCardinality(this);
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            int count = 0;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                count += Long.bitCount(words[i] & otherWords[i]);
+            }
+            return count;
+        }
+
+        @Override
+        public int copyTo(int[] codes, int position, int high) {
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    codes[position++] = high | (i << 6) | Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+            return position;
+        }
+
+        @Override
+        public Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+
+        private ArrayContainer toArrayContainer() {
+            char[] values = new char[Math.max(cardinality, 1)];
+            int count = 0;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    values[count++] = (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, count);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.taskapp.logic;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * クライアントとメールアドレスの組ごとにログインの失敗回数を数え、一定時間内に上限を超えた場合はログインを受け付けなくします。
+ * 上限に達すると、最初の失敗から一定時間が経つまでは正しいパスワードでもログインできません。
+ * メールアドレスだけで数えると、誰でも失敗を繰り返して任意の利用者を締め出せるため、クライアントも含めて数えます。
+ */
+class LoginRateLimiter {
+    /** 失敗を記録している組がこの数を超えたら、期限切れの記録を取り除きます */
+    private static final int PRUNE_THRESHOLD = 10_000;
+
+    private final int maxFailures;
+
+    private final long windowNanos;
+
+    private final Map<String, Failures> failures = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxFailures 一定時間内に許す失敗回数
+     * @param window      失敗回数を数える時間
+     * @param unit        時間の単位
+     */
+    LoginRateLimiter(int maxFailures, long window, TimeUnit unit) {
+        this.maxFailures = maxFailures;
+        this.windowNanos = unit.toNanos(window);
+    }
+
+    /**
+     * 失敗回数を数える単位のキーを返します。メールアドレスは前後の空白を除いて小文字にします。
+     *
+     * @param client クライアントを識別する文字列
+     * @param email  メールアドレス
+     * @return キー
+     */
+    static String key(String client, String email) {
+        return client + "\n" + (email == null ? "" : email.trim().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * @param key {@link #key(String, String)}で作成したキー
+     * @return ログインを受け付けられればtrue
+     */
+    boolean tryAcquire(String key) {
+        Failures current = failures.get(key);
+        if (current == null) {
+            return true;
+        }
+        if (current.isExpired(System.nanoTime())) {
+            failures.remove(key, current);
+            return true;
+        }
+        return current.count < maxFailures;
+    }
+
+    /**
+     * ログインの失敗を記録します。
+     *
+     * @param key {@link #key(String, String)}で作成したキー
+     */
+    void failed(String key) {
+        long now = System.nanoTime();
+        failures.compute(key, (k, current) -> current == null || current.isExpired(now)
+                ? new Failures(now + windowNanos, 1)
+                : new Failures(current.expiresAt, current.count + 1));
+        if (failures.size() > PRUNE_THRESHOLD) {
+            failures.values().removeIf(entry -> entry.isExpired(now));
+        }
+    }
+
+    /**
+     * ログインに成功した組の失敗の記録を消します。
+     *
+     * @param key {@link #key(String, String)}で作成したキー
+     */
+    void succeeded(String key) {
+        failures.remove(key);
+    }
+
+    private static final class Failures {
+        private final long expiresAt;
+        private final int count;
+
+        private Failures(long expiresAt, int count) {
+            this.expiresAt = expiresAt;
+            this.count = count;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
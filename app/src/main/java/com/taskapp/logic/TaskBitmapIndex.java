@@ -0,0 +1,146 @@
+package com.taskapp.logic;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.taskapp.dataaccess.TaskQuery;
+import com.taskapp.model.Task;
+
+/**
+ * ステータスごと・担当ユーザーごとに、該当するタスクコードを{@link CodeBitmap}で保持する索引です。
+ * 「担当ユーザー2の着手中のタスク」のような条件は、2つのビットマップの積集合で求めます。
+ * 1つのタスクはいずれか1つのステータスと1人の担当ユーザーのビットマップにだけ含まれます。
+ * 担当ユーザーがユーザーファイルに見つからないタスクは、ステータスのビットマップにだけ含まれます。
+ */
+class TaskBitmapIndex {
+    private final Map<Integer, CodeBitmap> byStatus = new HashMap<>();
+
+    private final Map<Integer, CodeBitmap> byRepUser = new HashMap<>();
+
+    /**
+     * 全てのタスクから索引を作成します。
+     * 担当ユーザーが見つからないタスクも、ステータスによる絞り込みと件数には含めます。
+     *
+     * @param tasks 索引に含めるタスク
+     */
+    TaskBitmapIndex(List<Task> tasks) {
+        for (Task task : tasks) {
+            byStatus.computeIfAbsent(task.getStatus(), key -> new CodeBitmap()).add(task.getCode());
+            if (task.getRepUser() != null) {
+                byRepUser.computeIfAbsent(task.getRepUser().getCode(), key -> new CodeBitmap()).add(task.getCode());
+            }
+        }
+    }
+
+    /**
+     * タスクを索引に登録します。既に登録されているコードは、以前のステータス・担当ユーザーから取り除きます。
+     *
+     * @param code        タスクコード
+     * @param status      ステータス
+     * @param repUserCode 担当ユーザーコード
+     */
+    synchronized void put(int code, int status, int repUserCode) {
+        // ステータスと担当ユーザーの種類は少ないため、全てのビットマップから取り除く
+        removeFromAll(byStatus, code);
+        removeFromAll(byRepUser, code);
+        byStatus.computeIfAbsent(status, key -> new CodeBitmap()).add(code);
+        byRepUser.computeIfAbsent(repUserCode, key -> new CodeBitmap()).add(code);
+    }
+
+    /**
+     * タスクのステータスだけを変更します。
+     *
+     * @param code      タスクコード
+     * @param oldStatus 変更前のステータス
+     * @param newStatus 変更後のステータス
+     */
+    synchronized void changeStatus(int code, int oldStatus, int newStatus) {
+        CodeBitmap old = byStatus.get(oldStatus);
+        if (old != null) {
+            old.remove(code);
+        }
+        byStatus.computeIfAbsent(newStatus, key -> new CodeBitmap()).add(code);
+    }
+
+    /**
+     * @param code タスクコード
+     * @return 索引に登録されていればtrue
+     */
+    synchronized boolean contains(int code) {
+        for (CodeBitmap bitmap : byStatus.values()) {
+            if (bitmap.contains(code)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 条件に一致するタスクコードを求めます。
+     *
+     * @param status      ステータス。{@link TaskQuery#ANY}の場合は絞り込みません
+     * @param repUserCode 担当ユーザーコード。{@link TaskQuery#ANY}の場合は絞り込みません
+     * @return 一致するタスクコードのビットマップ。呼び出し側で変更しても索引には影響しません
+     */
+    synchronized CodeBitmap select(int status, int repUserCode) {
+        if (status == TaskQuery.ANY && repUserCode == TaskQuery.ANY) {
+            CodeBitmap all = new CodeBitmap();
+            for (CodeBitmap bitmap : byStatus.values()) {
+                for (int code : bitmap.toArray()) {
+                    all.add(code);
+                }
+            }
+            return all;
+        }
+        if (status == TaskQuery.ANY) {
+            return copyOf(byRepUser.get(repUserCode));
+        }
+        if (repUserCode == TaskQuery.ANY) {
+            return copyOf(byStatus.get(status));
+        }
+        CodeBitmap statusBitmap = byStatus.get(status);
+        CodeBitmap userBitmap = byRepUser.get(repUserCode);
+        if (statusBitmap == null || userBitmap == null) {
+            return new CodeBitmap();
+        }
+        return statusBitmap.and(userBitmap);
+    }
+
+    /**
+     * 条件に一致するタスクの数を、ビットマップを作成せずに数えます。
+     *
+     * @param status      ステータス。{@link TaskQuery#ANY}の場合は絞り込みません
+     * @param repUserCode 担当ユーザーコード。{@link TaskQuery#ANY}の場合は絞り込みません
+     * @return 一致するタスクの数
+     */
+    synchronized int count(int status, int repUserCode) {
+        if (status != TaskQuery.ANY && repUserCode != TaskQuery.ANY) {
+            CodeBitmap statusBitmap = byStatus.get(status);
+            CodeBitmap userBitmap = byRepUser.get(repUserCode);
+            return statusBitmap == null || userBitmap == null ? 0 : statusBitmap.andCardinality(userBitmap);
+        }
+        Map<Integer, CodeBitmap> bitmaps = repUserCode == TaskQuery.ANY ? byStatus : byRepUser;
+        if (status == TaskQuery.ANY && repUserCode == TaskQuery.ANY) {
+            int count = 0;
+            for (CodeBitmap bitmap : bitmaps.values()) {
+                count += bitmap.cardinality();
+            }
+            return count;
+        }
+        CodeBitmap bitmap = bitmaps.get(repUserCode == TaskQuery.ANY ? status : repUserCode);
+        return bitmap == null ? 0 : bitmap.cardinality();
+    }
+
+    private static void removeFromAll(Map<Integer, CodeBitmap> bitmaps, int code) {
+        for (CodeBitmap bitmap : bitmaps.values()) {
+            if (bitmap.remove(code)) {
+                return;
+            }
+        }
+    }
+
+    private static CodeBitmap copyOf(CodeBitmap bitmap) {
+        return bitmap == null ? new CodeBitmap() : bitmap.copy();
+    }
+}
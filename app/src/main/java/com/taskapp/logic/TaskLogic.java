@@ -1,26 +1,103 @@
 package com.taskapp.logic;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
+import com.taskapp.dataaccess.FileStamp;
+import com.taskapp.dataaccess.Journal;
+import com.taskapp.dataaccess.JournalEntry;
 import com.taskapp.dataaccess.LogDataAccess;
+import com.taskapp.dataaccess.LogRepository;
+import com.taskapp.dataaccess.StorageEngine;
 import com.taskapp.dataaccess.TaskDataAccess;
+import com.taskapp.dataaccess.TaskImportReader;
+import com.taskapp.dataaccess.TaskPage;
+import com.taskapp.dataaccess.TaskQuery;
+import com.taskapp.dataaccess.TaskRepository;
 import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.dataaccess.UserRepository;
 import com.taskapp.exception.AppException;
+import com.taskapp.metrics.LatencyHistogram;
+import com.taskapp.metrics.MetricsRegistry;
 import com.taskapp.model.Log;
 import com.taskapp.model.Task;
 import com.taskapp.model.User;
 
 public class TaskLogic {
-    private final TaskDataAccess taskDataAccess;
-    private final LogDataAccess logDataAccess;
-    private final UserDataAccess userDataAccess;
+    /** 一括登録のエラーで表示する最大件数 */
+    private static final int MAX_REPORTED_ERRORS = 10;
 
+    /** ウォームアップで取得する1ページの件数 */
+    private static final int WARMUP_PAGE_SIZE = 50;
+
+    /** ステータス変更のロックの数。2のべき乗にします */
+    private static final int STATUS_STRIPES = 64;
+
+    private static final LatencyHistogram SHOW_ALL = histogram("showAll");
+    private static final LatencyHistogram SHOW_PAGE = histogram("showPage");
+    private static final LatencyHistogram FIND_PAGE = histogram("findPage");
+    private static final LatencyHistogram FIND_TASK_CODES = histogram("findTaskCodes");
+    private static final LatencyHistogram COUNT_TASKS = histogram("countTasks");
+    private static final LatencyHistogram SAVE = histogram("save");
+    private static final LatencyHistogram SAVE_ALL = histogram("saveAll");
+    private static final LatencyHistogram IMPORT_FILE = histogram("importFile");
+    private static final LatencyHistogram CHANGE_STATUS = histogram("changeStatus");
+
+    private final TaskRepository taskDataAccess;
+    private final LogRepository logDataAccess;
+    private final UserRepository userDataAccess;
+
+    /** 変更を記録するジャーナル。nullの場合は記録せずに直接反映します */
+    private final Journal journal;
+
+    /** ステータス・担当ユーザーごとのタスクコードの索引。最初に参照した時に作成します */
+    private TaskBitmapIndex index;
+
+    /** 索引に反映済みのタスクデータのスタンプ。保存先のスタンプと異なれば索引を作り直します */
+    private FileStamp indexedStamp;
+
+    private final Object indexLock = new Object();
+
+    /**
+     * ステータス変更をタスクコードごとに直列化するロックです。
+     * 現在のステータスの確認から更新とログの保存までを、同じコードに対しては1つずつ行います。
+     */
+    private final Object[] statusLocks = new Object[STATUS_STRIPES];
+
+    {
+        for (int i = 0; i < STATUS_STRIPES; i++) {
+            statusLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * 設定で指定された保存形式の、アプリケーション全体で共有するエンジンを使います。
+     *
+     * @see com.taskapp.dataaccess.StorageEngine#configured()
+     */
     public TaskLogic() {
-        taskDataAccess = new TaskDataAccess();
-        logDataAccess = new LogDataAccess();
-        userDataAccess = new UserDataAccess();
+        this(StorageEngine.configured());
+    }
+
+    /**
+     * 指定したエンジンのリポジトリを使います。
+     *
+     * @param storageEngine 保存形式のエンジン
+     */
+    public TaskLogic(StorageEngine storageEngine) {
+        this(storageEngine.tasks(), storageEngine.logs(), storageEngine.users(), storageEngine.journal());
     }
 
     /**
@@ -34,53 +111,209 @@ public class TaskLogic {
         this.taskDataAccess = taskDataAccess;
         this.logDataAccess = logDataAccess;
         this.userDataAccess = userDataAccess;
+        this.journal = null;
+    }
+
+    /**
+     * 任意のリポジトリの組み合わせを使います。
+     *
+     * @param taskRepository タスクのリポジトリ
+     * @param logRepository  ログのリポジトリ
+     * @param userRepository ユーザーのリポジトリ
+     */
+    public TaskLogic(TaskRepository taskRepository, LogRepository logRepository, UserRepository userRepository) {
+        this(taskRepository, logRepository, userRepository, null);
+    }
+
+    /**
+     * 変更をジャーナルに記録してから各リポジトリへ反映します。
+     *
+     * @param taskRepository タスクのリポジトリ
+     * @param logRepository  ログのリポジトリ
+     * @param userRepository ユーザーのリポジトリ
+     * @param journal        変更を記録するジャーナル
+     */
+    public TaskLogic(TaskRepository taskRepository, LogRepository logRepository, UserRepository userRepository,
+            Journal journal) {
+        this.taskDataAccess = taskRepository;
+        this.logDataAccess = logRepository;
+        this.userDataAccess = userRepository;
+        this.journal = journal;
     }
 
     /**
      * 全てのタスクを表示します。
      *
-     * @see com.taskapp.dataaccess.TaskDataAccess#findAll()
+     * @see com.taskapp.dataaccess.TaskRepository#findAll()
      * @param loginUser ログインユーザー
      */
     public void showAll(User loginUser) {
-        List<Task> tasks = taskDataAccess.findAll();
-
-        for (Task task : tasks) {
-            String taskName = task.getName();
-            String status = "";
-
-            switch (task.getStatus()) {
-                case 0:
-                    status = "未着手";
-                    break;
-                case 1:
-                    status = "着手中";
-                    break;
-                case 2:
-                    status = "完了";
-                    break;
-                default:
-                    status = "不明";
-            }
-            String reUserName="";
-            if(task.getRepUser()!=null){
-                if (task.getRepUser().equals(loginUser)) {
-                reUserName = "あなた";
-            } else {
-                reUserName = task.getRepUser().toString();
-            }
-            System.out.println("タスク名：" + taskName + ", 担当者名：" + reUserName + "が担当しています, ステータス：" + status);
+        showAll(loginUser, TaskRenderer.Format.TEXT);
+    }
+
+    /**
+     * 全てのタスクを指定した形式で標準出力に出力します。
+     * TSV・JSON Lines形式は、他のツールで読み込むためのものです。
+     *
+     * @see com.taskapp.dataaccess.TaskRepository#findAll()
+     * @see TaskRenderer
+     * @param loginUser ログインユーザー
+     * @param format    出力形式
+     */
+    public void showAll(User loginUser, TaskRenderer.Format format) {
+        long start = System.nanoTime();
+        try {
+            List<Task> tasks = taskDataAccess.findAll();
+
+            new TaskRenderer(System.out, format).render(tasks, loginUser);
+        } finally {
+            SHOW_ALL.recordSince(start);
+        }
+    }
+
+    /**
+     * 条件に一致するタスクを1ページ分表示します。
+     * 続きを表示する場合は、戻り値の{@link TaskPage#getNextCursor()}を条件の{@link TaskQuery#after(int)}に指定します。
+     *
+     * @see com.taskapp.dataaccess.TaskRepository#find(TaskQuery)
+     * @param loginUser ログインユーザー
+     * @param query     絞り込み条件とページの指定
+     * @return 表示したページ
+     */
+    public TaskPage showPage(User loginUser, TaskQuery query) {
+        long start = System.nanoTime();
+        try {
+            TaskPage page = findPage(query);
+
+            new TaskRenderer(System.out, TaskRenderer.Format.TEXT).render(page.getTasks(), loginUser);
+            return page;
+        } finally {
+            SHOW_PAGE.recordSince(start);
+        }
+    }
+
+    /**
+     * 条件に一致するタスクを1ページ分取得します。表示は行いません。
+     *
+     * @see com.taskapp.dataaccess.TaskRepository#find(TaskQuery)
+     * @param query 絞り込み条件とページの指定
+     * @return 取得したページ
+     */
+    public TaskPage findPage(TaskQuery query) {
+        long start = System.nanoTime();
+        try {
+            return taskDataAccess.find(query);
+        } finally {
+            FIND_PAGE.recordSince(start);
+        }
+    }
+
+    /**
+     * タスク一覧に表示する1行を作成します。
+     *
+     * @param task      表示するタスク
+     * @param loginUser ログインユーザー。担当者がログインユーザーの場合は「あなた」と表示します
+     * @return 表示する1行。担当者が存在しない場合はnull
+     */
+    public String describe(Task task, User loginUser) {
+        StringBuilder line = new StringBuilder();
+        return TaskRenderer.appendText(line, task, loginUser) ? line.toString() : null;
+    }
+
+    /**
+     * 条件に一致するタスクコードを、タスクデータを読まずに索引から求めます。
+     * 索引は最初の呼び出し時に全てのタスクから作成し、以降は{@link #save(int, String, int, User)}と
+     * {@link #changeStatus(int, int, User)}の変更を反映します。
+     * 他のインスタンスやプロセスがタスクデータを変更した場合は、次の呼び出し時に作り直します。
+     *
+     * @param status      ステータス。{@link TaskQuery#ANY}の場合は絞り込みません
+     * @param repUserCode 担当ユーザーコード。{@link TaskQuery#ANY}の場合は絞り込みません
+     * @return 一致するタスクコードの昇順の配列
+     */
+    public int[] findTaskCodes(int status, int repUserCode) {
+        long start = System.nanoTime();
+        try {
+            return index().select(status, repUserCode).toArray();
+        } finally {
+            FIND_TASK_CODES.recordSince(start);
         }
+    }
+
+    /**
+     * 条件に一致するタスクの数を、タスクデータを読まずに索引から数えます。
+     *
+     * @see #findTaskCodes(int, int)
+     * @param status      ステータス。{@link TaskQuery#ANY}の場合は絞り込みません
+     * @param repUserCode 担当ユーザーコード。{@link TaskQuery#ANY}の場合は絞り込みません
+     * @return 一致するタスクの数
+     */
+    public int countTasks(int status, int repUserCode) {
+        long start = System.nanoTime();
+        try {
+            return index().count(status, repUserCode);
+        } finally {
+            COUNT_TASKS.recordSince(start);
         }
+    }
 
+    /**
+     * タスク一覧の表示と同じ取得・整形の処理を、指定した時間の間繰り返します。
+     * 起動直後の最初の一覧表示が、JITコンパイル前の遅い処理で行われないようにするためのものです。
+     * 整形した文字列は出力せずに捨てます。ステータスと担当者の索引もここで作成します。
+     *
+     * @param millis 繰り返す時間(ミリ秒)
+     * @return 繰り返した回数
+     */
+    public int warmUp(long millis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        TaskRenderer renderer = new TaskRenderer(null, TaskRenderer.Format.TEXT);
+        StringBuilder discarded = new StringBuilder();
+        index();
+        int rounds = 0;
+        do {
+            renderer.appendAll(discarded, taskDataAccess.findAll(), null);
+            discarded.setLength(0);
+            taskDataAccess.find(new TaskQuery().limit(WARMUP_PAGE_SIZE));
+            rounds++;
+        } while (System.nanoTime() < deadline);
+        return rounds;
+    }
+
+    /**
+     * 索引を返します。まだ作成していない場合や、他のインスタンスやプロセスがタスクデータを変更した場合
+     * (ファイルの置き換えや圧縮を含む)は、全てのタスクから作り直します。
+     */
+    private TaskBitmapIndex index() {
+        synchronized (indexLock) {
+            // 読み込み中に変更された場合に次の参照で作り直せるよう、スタンプは読み込む前に取得する
+            FileStamp stamp = taskDataAccess.stamp();
+            if (index == null || !Objects.equals(stamp, indexedStamp)) {
+                index = new TaskBitmapIndex(taskDataAccess.findAll());
+                indexedStamp = stamp;
+            }
+            return index;
+        }
+    }
+
+    /**
+     * 自身の書き込みを索引に反映した後に、{@link #indexLock}を取った状態で呼び出します。
+     * 書き込み前から索引が最新であれば、書き込み後のスタンプを反映済みとします。
+     * そうでなければ他からの変更を取り込めていないため、次の参照で作り直します。
+     *
+     * @param before 書き込み前のタスクデータのスタンプ
+     */
+    private void indexed(FileStamp before) {
+        if (Objects.equals(before, indexedStamp)) {
+            indexedStamp = taskDataAccess.stamp();
+        }
     }
 
     /**
      * 新しいタスクを保存します。
      *
-     * @see com.taskapp.dataaccess.UserDataAccess#findByCode(int)
-     * @see com.taskapp.dataaccess.TaskDataAccess#save(com.taskapp.model.Task)
-     * @see com.taskapp.dataaccess.LogDataAccess#save(com.taskapp.model.Log)
+     * @see com.taskapp.dataaccess.UserRepository#findByCode(int)
+     * @see com.taskapp.dataaccess.TaskRepository#save(com.taskapp.model.Task)
+     * @see com.taskapp.dataaccess.LogRepository#save(com.taskapp.model.Log)
      * @param code        タスクコード
      * @param name        タスク名
      * @param repUserCode 担当ユーザーコード
@@ -89,24 +322,180 @@ public class TaskLogic {
      */
     public void save(int code, String name, int repUserCode,
     User loginUser) throws AppException {
-        User user=userDataAccess.findByCode(repUserCode);
-        Task task=new Task(code, name, 0, user);
-        
-        taskDataAccess.save(task);
-    LocalDate changeDate=LocalDate.now();
-    Log log=new Log(code, 0, loginUser.getCode(),changeDate );
-    
-    logDataAccess.save(log);
+        long start = System.nanoTime();
+        try {
+            User user=userDataAccess.findByCode(repUserCode);
+            if (user == null) {
+                throw new AppException("存在するユーザーコードを入力してください");
+            }
+            Task task=new Task(code, name, 0, user);
+            LocalDate changeDate=LocalDate.now();
+            Log log=new Log(code, loginUser.getCode(), 0, changeDate);
+
+            long sequence = commit(new JournalEntry().insertTask(task).appendLog(log));
+            FileStamp before = taskDataAccess.stamp();
+            apply(sequence, () -> {
+                taskDataAccess.save(task);
+                logDataAccess.save(log);
+            });
+            // 索引がまだなければ、作成時に保存済みのタスクから読み込まれる
+            synchronized (indexLock) {
+                if (index != null) {
+                    index.put(code, 0, repUserCode);
+                    indexed(before);
+                }
+            }
+        } finally {
+            SAVE.recordSince(start);
+        }
     }
     
 
 
+    /**
+     * 複数のタスクをまとめて保存します。
+     * 全てのタスクを検証してから保存し、1件でも不正なタスクがあれば何も保存しません。
+     * 担当ユーザーは1回の問い合わせでまとめて取得し、タスクとログはそれぞれ1回の書き込みで保存します。
+     * 登録済みのタスクコードかどうかは、一覧用の索引ではなく保存先のタスクで判定します。
+     *
+     * @see com.taskapp.dataaccess.UserRepository#findByCodes(Set)
+     * @see com.taskapp.dataaccess.TaskRepository#findByCode(int)
+     * @see com.taskapp.dataaccess.TaskRepository#saveAll(List)
+     * @see com.taskapp.dataaccess.LogRepository#saveAll(List)
+     * @param tasks     保存するタスク。担当ユーザーはコードだけを参照します
+     * @param loginUser ログインユーザー
+     * @return 保存したタスクの数
+     * @throws AppException 担当ユーザーが存在しない、またはタスクコードが重複している場合にスローされます
+     */
+    public int saveAll(Iterable<Task> tasks, User loginUser) throws AppException {
+        long start = System.nanoTime();
+        try {
+            List<Task> requested = new ArrayList<>();
+            Set<Integer> userCodes = new HashSet<>();
+            for (Task task : tasks) {
+                requested.add(task);
+                if (task.getRepUser() != null) {
+                    userCodes.add(task.getRepUser().getCode());
+                }
+            }
+            Map<Integer, User> users = userDataAccess.findByCodes(userCodes);
+            Set<Integer> codes = new HashSet<>();
+            List<String> errors = new ArrayList<>();
+            List<Task> resolved = new ArrayList<>(requested.size());
+            List<Log> logs = new ArrayList<>(requested.size());
+            LocalDate changeDate = LocalDate.now();
+            for (int i = 0; i < requested.size(); i++) {
+                Task task = requested.get(i);
+                User user = task.getRepUser() == null ? null : users.get(task.getRepUser().getCode());
+                if (user == null) {
+                    errors.add((i + 1) + "件目：存在するユーザーコードを入力してください");
+                } else if (!codes.add(task.getCode())) {
+                    errors.add((i + 1) + "件目：タスクコードが重複しています");
+                } else if (taskDataAccess.findByCode(task.getCode()) != null) {
+                    errors.add((i + 1) + "件目：既に登録されているタスクコードです");
+                } else {
+                    resolved.add(new Task(task.getCode(), task.getName(), task.getStatus(), user));
+                    logs.add(new Log(task.getCode(), loginUser.getCode(), task.getStatus(), changeDate));
+                }
+            }
+            if (!errors.isEmpty()) {
+                throw new AppException(joinErrors(errors));
+            }
+            if (resolved.isEmpty()) {
+                return 0;
+            }
+
+            JournalEntry entry = new JournalEntry();
+            for (int i = 0; i < resolved.size(); i++) {
+                entry.insertTask(resolved.get(i)).appendLog(logs.get(i));
+            }
+            long sequence = commit(entry);
+            FileStamp before = taskDataAccess.stamp();
+            apply(sequence, () -> {
+                taskDataAccess.saveAll(resolved);
+                logDataAccess.saveAll(logs);
+            });
+            synchronized (indexLock) {
+                if (index != null) {
+                    for (Task task : resolved) {
+                        index.put(task.getCode(), task.getStatus(), task.getRepUser().getCode());
+                    }
+                    indexed(before);
+                }
+            }
+            return resolved.size();
+        } finally {
+            SAVE_ALL.recordSince(start);
+        }
+    }
+
+    /**
+     * タスクの一括登録用CSVを読み込み、全てのタスクをまとめて保存します。
+     * CSVはチャンクに分けて共通の{@link ForkJoinPool}で並列に解析します。
+     *
+     * @see com.taskapp.dataaccess.TaskImportReader#read(ForkJoinPool)
+     * @see #saveAll(Iterable, User)
+     * @param path      読み込むCSVファイル
+     * @param loginUser ログインユーザー
+     * @return 保存したタスクの数
+     * @throws AppException ファイルを読み込めない、または不正な行がある場合にスローされます
+     */
+    public int importFile(Path path, User loginUser) throws AppException {
+        long start = System.nanoTime();
+        try {
+            List<TaskImportReader.Row> rows;
+            try {
+                rows = new TaskImportReader(path).read(ForkJoinPool.commonPool());
+            } catch (IOException e) {
+                e.printStackTrace();
+                throw new AppException("ファイルを読み込めませんでした");
+            }
+            List<String> errors = new ArrayList<>();
+            List<Task> tasks = new ArrayList<>(rows.size());
+            // 担当ユーザーはコードだけを参照するため、同じコードには同じインスタンスを使う
+            Map<Integer, User> repUsers = new HashMap<>();
+            for (int i = 0; i < rows.size(); i++) {
+                TaskImportReader.Row row = rows.get(i);
+                if (row.getError() != null) {
+                    errors.add((i + 1) + "件目：" + row.getError());
+                } else if (row.getName().length() > 10) {
+                    errors.add((i + 1) + "件目：タスク名は10文字以内で入力してください");
+                } else if (row.getStatus() < 0 || row.getStatus() > 2) {
+                    errors.add((i + 1) + "件目：ステータスは0・1・2の中から選択してください");
+                } else {
+                    User repUser = repUsers.computeIfAbsent(row.getRepUserCode(),
+                            code -> new User(code, null, null, null));
+                    tasks.add(new Task(row.getCode(), row.getName(), row.getStatus(), repUser));
+                }
+            }
+            if (!errors.isEmpty()) {
+                throw new AppException(joinErrors(errors));
+            }
+            return saveAll(tasks, loginUser);
+        } finally {
+            IMPORT_FILE.recordSince(start);
+        }
+    }
+
+    /**
+     * 先頭の一定件数のエラーを改行区切りで連結します。
+     */
+    private static String joinErrors(List<String> errors) {
+        List<String> shown = errors.subList(0, Math.min(errors.size(), MAX_REPORTED_ERRORS));
+        String message = String.join(System.lineSeparator(), shown);
+        if (errors.size() > shown.size()) {
+            message += System.lineSeparator() + "ほか" + (errors.size() - shown.size()) + "件のエラーがあります";
+        }
+        return message;
+    }
+
     /**
      * タスクのステータスを変更します。
+     * 同じタスクへの変更が同時に行われた場合は1つずつ処理し、2つ目以降は変更後のステータスで検証します。
      *
-     * @see com.taskapp.dataaccess.TaskDataAccess#findByCode(int)
-     * @see com.taskapp.dataaccess.TaskDataAccess#update(com.taskapp.model.Task)
-     * @see com.taskapp.dataaccess.LogDataAccess#save(com.taskapp.model.Log)
+     * @see com.taskapp.dataaccess.TaskRepository#findByCode(int)
+     * @see com.taskapp.dataaccess.TaskRepository#update(com.taskapp.model.Task)
+     * @see com.taskapp.dataaccess.LogRepository#save(com.taskapp.model.Log)
      * @param code      タスクコード
      * @param status    新しいステータス
      * @param loginUser ログインユーザー
@@ -114,23 +503,100 @@ public class TaskLogic {
      */
     public void changeStatus(int code, int status,
      User loginUser) throws AppException {
-    Task task=taskDataAccess.findByCode(code);
-    if(task==null){
-        throw new AppException("存在するタスクコードを入力してください");
+        updateStatus(code, status, loginUser);
+        System.out.println("ステータスの変更が完了しました。");
+    }
+
+    /**
+     * {@link #changeStatus(int, int, User)}と同じくタスクのステータスを変更しますが、完了のメッセージは出力しません。
+     * リクエストのたびに標準出力へ書き込まないよう、サーバーから使います。
+     *
+     * @param code      タスクコード
+     * @param status    新しいステータス
+     * @param loginUser ログインユーザー
+     * @throws AppException タスクコードが存在しない、またはステータスが前のステータスより1つ先でない場合にスローされます
+     */
+    public void updateStatus(int code, int status, User loginUser) throws AppException {
+        long start = System.nanoTime();
+        try {
+            synchronized (statusLock(code)) {
+                Task task=taskDataAccess.findByCode(code);
+                if(task==null){
+                    throw new AppException("存在するタスクコードを入力してください");
+
+                }
+                if(status!=task.getStatus()+1){
+                    throw new AppException("ステータスは、前のステータスより1つ先のもののみを選択してください");
+                }
+                int oldStatus = task.getStatus();
+                task.setStatus(status);
+                LocalDate changDate=LocalDate.now();
+                Log log=new Log(code, loginUser.getCode(), status, changDate);
+
+                long sequence = commit(new JournalEntry().updateTask(task).appendLog(log));
+                FileStamp before = taskDataAccess.stamp();
+                apply(sequence, () -> {
+                    taskDataAccess.update(task);
+                    logDataAccess.save(log);
+                });
+                synchronized (indexLock) {
+                    if (index != null) {
+                        index.changeStatus(code, oldStatus, status);
+                        indexed(before);
+                    }
+                }
+            }
+        } finally {
+            CHANGE_STATUS.recordSince(start);
+        }
+    }
 
+    private Object statusLock(int code) {
+        // 連番のコードが同じロックに偏らないよう、上位ビットで振り分ける
+        return statusLocks[(code * 0x9E3779B9) >>> (Integer.SIZE - Integer.numberOfTrailingZeros(STATUS_STRIPES))];
     }
-    if(status!=task.getStatus()+1){
-        throw new AppException("ステータスは、前のステータスより1つ先のもののみを選択してください");
+
+    /**
+     * 変更をジャーナルに記録し、永続化されるまで待機します。
+     * 記録した変更は{@link #apply(long, Runnable)}で各リポジトリへ反映します。
+     *
+     * @param entry 記録する変更
+     * @return 記録したエントリーの通し番号。ジャーナルを使わない場合は-1
+     * @throws AppException 記録に失敗した場合にスローされます
+     */
+    private long commit(JournalEntry entry) throws AppException {
+        if (journal == null) {
+            return -1;
+        }
+        long sequence = journal.commit(entry);
+        if (sequence < 0) {
+            throw new AppException("変更を記録できませんでした");
+        }
+        return sequence;
     }
-    task.setStatus(status);
-    taskDataAccess.update(task);
-    
-    LocalDate changDate=LocalDate.now();
-    Log log=new Log(code, status, loginUser.getCode(), changDate);
-    logDataAccess.save(log);
-    System.out.println("ステータスの変更が完了しました。");
-    
-    
+
+    /**
+     * 記録した変更を各リポジトリへ反映し、両方の書き込みが成功した場合だけ反映済みとしてジャーナルに通知します。
+     * 書き込みに失敗した変更は未反映のまま残り、次回起動時に{@link Journal#recover}で反映し直されます。
+     *
+     * @param sequence {@link #commit(JournalEntry)}が返した通し番号
+     * @param writes   各リポジトリへの書き込み
+     * @throws AppException 書き込みに失敗した場合にスローされます
+     */
+    private void apply(long sequence, Runnable writes) throws AppException {
+        try {
+            writes.run();
+        } catch (UncheckedIOException e) {
+            e.printStackTrace();
+            throw new AppException("変更を保存できませんでした");
+        }
+        if (journal != null) {
+            journal.applied(sequence);
+        }
+    }
+
+    private static LatencyHistogram histogram(String method) {
+        return MetricsRegistry.global().histogram("logic.task." + method);
     }
 
 
@@ -0,0 +1,228 @@
+package com.taskapp.logic;
+
+import java.io.PrintStream;
+
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * タスクの一覧を出力用の文字列に整形します。
+ * 整形した行は使い回す{@link StringBuilder}にためておき、一定の大きさごと、または一覧の最後にまとめて出力します。
+ * {@link System#out}は行ごとに同期とフラッシュを行うため、1行ずつ出力するより書き込みの回数が大幅に減ります。
+ */
+public final class TaskRenderer {
+    /** まとめて出力する文字数の目安 */
+    static final int FLUSH_THRESHOLD = 64 * 1024;
+
+    /** ステータスごとの表示名。添字がステータスです */
+    private static final String[] STATUS_LABELS = { "未着手", "着手中", "完了" };
+
+    private static final String UNKNOWN_STATUS = "不明";
+
+    /**
+     * 出力形式です。
+     */
+    public enum Format {
+        /** メニューの「タスク一覧」と同じ文章の形式。担当者がいないタスクは出力しません */
+        TEXT,
+        /** コード・タスク名・ステータス・ステータス名・担当ユーザーコード・担当者名をタブで区切った形式 */
+        TSV,
+        /** 1行に1つのJSONオブジェクトを出力するJSON Lines形式 */
+        JSON_LINES;
+
+        /**
+         * @param name 形式の名前("text"・"tsv"・"jsonl")
+         * @return 名前に対応する形式
+         * @throws IllegalArgumentException 未対応の名前の場合
+         */
+        public static Format of(String name) {
+            switch (name) {
+                case "text":
+                    return TEXT;
+                case "tsv":
+                    return TSV;
+                case "jsonl":
+                    return JSON_LINES;
+                default:
+                    throw new IllegalArgumentException("未対応の出力形式です: " + name);
+            }
+        }
+    }
+
+    private final PrintStream out;
+
+    private final Format format;
+
+    private final StringBuilder buffer = new StringBuilder(FLUSH_THRESHOLD + 256);
+
+    /**
+     * @param out    出力先。{@link #appendAll(StringBuilder, Iterable, User)}だけを使う場合はnull
+     * @param format 出力形式
+     */
+    public TaskRenderer(PrintStream out, Format format) {
+        this.out = out;
+        this.format = format;
+    }
+
+    /**
+     * タスクを順に整形して出力します。出力先へのフラッシュは最後に1回だけ行います。
+     *
+     * @param tasks     出力するタスク
+     * @param loginUser ログインユーザー。TEXT形式で担当者がログインユーザーの場合は「あなた」と表示します
+     */
+    public void render(Iterable<Task> tasks, User loginUser) {
+        for (Task task : tasks) {
+            if (append(buffer, task, loginUser)) {
+                buffer.append(System.lineSeparator());
+            }
+            if (buffer.length() >= FLUSH_THRESHOLD) {
+                write();
+            }
+        }
+        write();
+        out.flush();
+    }
+
+    /**
+     * タスクを順に整形し、1件ごとに改行を付けて追記します。出力先には書き込みません。
+     *
+     * @param lines     追記先
+     * @param tasks     追記するタスク
+     * @param loginUser ログインユーザー
+     */
+    public void appendAll(StringBuilder lines, Iterable<Task> tasks, User loginUser) {
+        for (Task task : tasks) {
+            if (append(lines, task, loginUser)) {
+                lines.append('\n');
+            }
+        }
+    }
+
+    /**
+     * 1件のタスクを出力形式に従って追記します。改行は追記しません。
+     *
+     * @param line      追記先
+     * @param task      追記するタスク
+     * @param loginUser ログインユーザー
+     * @return 追記した場合はtrue。TEXT形式で担当者がいない場合はfalse
+     */
+    boolean append(StringBuilder line, Task task, User loginUser) {
+        switch (format) {
+            case TSV:
+                appendTsv(line, task);
+                return true;
+            case JSON_LINES:
+                appendJson(line, task);
+                return true;
+            default:
+                return appendText(line, task, loginUser);
+        }
+    }
+
+    /**
+     * @param status ステータス
+     * @return ステータスの表示名。0~2以外の場合は「不明」
+     */
+    static String statusLabel(int status) {
+        return status >= 0 && status < STATUS_LABELS.length ? STATUS_LABELS[status] : UNKNOWN_STATUS;
+    }
+
+    /**
+     * メニューの「タスク一覧」と同じ形式で1件のタスクを追記します。
+     *
+     * @return 追記した場合はtrue。担当者がいない場合は何も追記せずにfalse
+     */
+    static boolean appendText(StringBuilder line, Task task, User loginUser) {
+        User repUser = task.getRepUser();
+        if (repUser == null) {
+            return false;
+        }
+        line.append("タスク名：").append(task.getName())
+                .append(", 担当者名：").append(repUser.equals(loginUser) ? "あなた" : repUser.toString())
+                .append("が担当しています, ステータス：").append(statusLabel(task.getStatus()));
+        return true;
+    }
+
+    private static void appendTsv(StringBuilder line, Task task) {
+        User repUser = task.getRepUser();
+        line.append(task.getCode()).append('\t');
+        appendTsvField(line, task.getName());
+        line.append('\t').append(task.getStatus())
+                .append('\t').append(statusLabel(task.getStatus())).append('\t');
+        if (repUser != null) {
+            line.append(repUser.getCode()).append('\t');
+            appendTsvField(line, repUser.getName());
+        } else {
+            line.append('\t');
+        }
+    }
+
+    /**
+     * タブ・改行・バックスラッシュをバックスラッシュで表して追記します。
+     */
+    private static void appendTsvField(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\t':
+                    line.append("\\t");
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                default:
+                    line.append(c);
+            }
+        }
+    }
+
+    private static void appendJson(StringBuilder line, Task task) {
+        User repUser = task.getRepUser();
+        line.append("{\"code\":").append(task.getCode()).append(",\"name\":");
+        appendJsonString(line, task.getName());
+        line.append(",\"status\":").append(task.getStatus()).append(",\"statusLabel\":");
+        appendJsonString(line, statusLabel(task.getStatus()));
+        if (repUser != null) {
+            line.append(",\"repUserCode\":").append(repUser.getCode()).append(",\"repUserName\":");
+            appendJsonString(line, repUser.getName());
+        } else {
+            line.append(",\"repUserCode\":null,\"repUserName\":null");
+        }
+        line.append('}');
+    }
+
+    private static void appendJsonString(StringBuilder line, String value) {
+        if (value == null) {
+            line.append("null");
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            } else if (c < 0x20) {
+                line.append(String.format("\\u%04x", (int) c));
+            } else {
+                line.append(c);
+            }
+        }
+        line.append('"');
+    }
+
+    private void write() {
+        if (buffer.length() > 0) {
+            out.append(buffer);
+            buffer.setLength(0);
+        }
+    }
+}
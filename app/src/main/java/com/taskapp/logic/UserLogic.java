@@ -1,13 +1,35 @@
 package com.taskapp.logic;
 
+import java.util.concurrent.TimeUnit;
+
+import com.taskapp.dataaccess.StorageEngine;
 import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.dataaccess.UserRepository;
 import com.taskapp.exception.AppException;
+import com.taskapp.metrics.LatencyHistogram;
+import com.taskapp.metrics.MetricsRegistry;
 import com.taskapp.model.User;
 public class UserLogic {
-    private final UserDataAccess userDataAccess;
+    /** 失敗回数を数える時間内に許すログインの失敗回数 */
+    private static final int MAX_LOGIN_FAILURES = 5;
+
+    /** ログインの失敗回数を数える時間(分) */
+    private static final long LOGIN_FAILURE_WINDOW_MINUTES = 1;
+
+    private static final LatencyHistogram LOGIN = MetricsRegistry.global().histogram("logic.user.login");
+
+    private final UserRepository userDataAccess;
 
+    private final LoginRateLimiter rateLimiter = new LoginRateLimiter(MAX_LOGIN_FAILURES,
+            LOGIN_FAILURE_WINDOW_MINUTES, TimeUnit.MINUTES);
+
+    /**
+     * 設定で指定された保存形式の、アプリケーション全体で共有するエンジンを使います。
+     *
+     * @see com.taskapp.dataaccess.StorageEngine#configured()
+     */
     public UserLogic() {
-        userDataAccess = new UserDataAccess();
+        this(StorageEngine.configured().users());
     }
 
     /**
@@ -18,23 +40,70 @@ public class UserLogic {
         this.userDataAccess = userDataAccess;
     }
 
+    /**
+     * 任意のユーザーのリポジトリを使います。
+     *
+     * @param userRepository ユーザーのリポジトリ
+     */
+    public UserLogic(UserRepository userRepository) {
+        this.userDataAccess = userRepository;
+    }
+
     /**
      * ユーザーのログイン処理を行います。
      *
-     * @see com.taskapp.dataaccess.UserDataAccess#findByEmailAndPassword(String, String)
+     * @see com.taskapp.dataaccess.UserRepository#findByEmailAndPassword(String, String)
      * @param email ユーザーのメールアドレス
      * @param password ユーザーのパスワード
      * @return ログインしたユーザーの情報
      * @throws AppException メールアドレスとパスワードが一致するユーザーが存在しない場合にスローされます
      */
         public User login(String email, String password) throws AppException {
-            User user=userDataAccess.findByEmailAndPassword(email,password);
-            
-            if(user==null){
-                throw new AppException("既に登録されているメールアドレス、パスワードを入力してください");
+            long start = System.nanoTime();
+            try {
+                User user=userDataAccess.findByEmailAndPassword(email,password);
+
+                if(user==null){
+                    throw new AppException("既に登録されているメールアドレス、パスワードを入力してください");
+                }
+                return user;
+            } finally {
+                LOGIN.recordSince(start);
             }
-            return user;
 
     
         }
+
+    /**
+     * ネットワーク越しのクライアントからのログイン処理を行います。
+     * 同じクライアントが同じメールアドレスで一定時間内に一定回数失敗すると、
+     * しばらくの間そのクライアントからのそのメールアドレスでのログインを受け付けません。
+     * 制限はクライアントごとに数えるため、他のクライアントからの失敗で利用者が締め出されることはありません。
+     *
+     * @see #login(String, String)
+     * @param client   クライアントを識別する文字列(接続元のアドレスなど)
+     * @param email    ユーザーのメールアドレス
+     * @param password ユーザーのパスワード
+     * @return ログインしたユーザーの情報
+     * @throws AppException メールアドレスとパスワードが一致するユーザーが存在しない場合、
+     *                      またはログインの失敗が続いている場合にスローされます
+     */
+    public User login(String client, String email, String password) throws AppException {
+        long start = System.nanoTime();
+        try {
+            String key = LoginRateLimiter.key(client, email);
+            if (!rateLimiter.tryAcquire(key)) {
+                throw new AppException("ログインの失敗が続いたため、しばらくしてから再度お試しください");
+            }
+            User user = userDataAccess.findByEmailAndPassword(email, password);
+            if (user == null) {
+                rateLimiter.failed(key);
+                throw new AppException("既に登録されているメールアドレス、パスワードを入力してください");
+            }
+            rateLimiter.succeeded(key);
+            return user;
+        } finally {
+            LOGIN.recordSince(start);
+        }
+    }
     }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.taskapp.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 複数のスレッドから加算される回数やバイト数を数えます。
+ * 加算はスレッドごとのセルに分散するため、同時に加算しても競合しません。
+ */
+public final class Counter {
+    private final LongAdder value = new LongAdder();
+
+    Counter() {
+    }
+
+    /**
+     * 1を加算します。
+     */
+    public void increment() {
+        value.increment();
+    }
+
+    /**
+     * @param amount 加算する値
+     */
+    public void add(long amount) {
+        value.add(amount);
+    }
+
+    /**
+     * @return 現在の合計
+     */
+    public long get() {
+        return value.sum();
+    }
+
+    void reset() {
+        value.reset();
+    }
+}
@@ -0,0 +1,50 @@
+package com.taskapp.metrics;
+
+/**
+ * データファイルの入出力を{@link MetricsRegistry#global()}のカウンターに記録します。
+ * メモリマップしたファイルは、マップした大きさを読み込んだバイト数として記録します。
+ */
+public final class IoMetrics {
+    /** ファイルを開いた回数のカウンター名 */
+    public static final String FILE_OPENS = "io.fileOpens";
+
+    /** 読み込んだバイト数のカウンター名 */
+    public static final String BYTES_READ = "io.bytesRead";
+
+    /** 書き込んだバイト数のカウンター名 */
+    public static final String BYTES_WRITTEN = "io.bytesWritten";
+
+    private static final Counter OPENS = MetricsRegistry.global().counter(FILE_OPENS);
+
+    private static final Counter READ = MetricsRegistry.global().counter(BYTES_READ);
+
+    private static final Counter WRITTEN = MetricsRegistry.global().counter(BYTES_WRITTEN);
+
+    private IoMetrics() {
+    }
+
+    /**
+     * ファイルを開いたことを記録します。
+     */
+    public static void opened() {
+        OPENS.increment();
+    }
+
+    /**
+     * @param bytes 読み込んだバイト数。負の値(ファイルの終端)は記録しません
+     */
+    public static void read(long bytes) {
+        if (bytes > 0) {
+            READ.add(bytes);
+        }
+    }
+
+    /**
+     * @param bytes 書き込んだバイト数
+     */
+    public static void written(long bytes) {
+        if (bytes > 0) {
+            WRITTEN.add(bytes);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.taskapp.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 処理時間(ナノ秒)の分布を、固定の大きさの配列で記録するヒストグラムです。
+ * HdrHistogramと同じく、2の累乗ごとの区間をさらに{@value #SUB_BUCKETS}個の等幅のバケットに分けるため、
+ * 値の大きさに関わらず誤差は1/{@value #SUB_BUCKETS}以内に収まります。
+ * 記録はバケットの加算だけで、メモリを確保しません。
+ */
+public final class LatencyHistogram {
+    /** 2の累乗ごとの区間を分けるバケットの数 */
+    static final int SUB_BUCKETS = 16;
+
+    /** {@link #SUB_BUCKETS}のビット数 */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /** この値未満は値そのものをバケットの番号にします */
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+
+    /** long型の正の値を全て表せるバケットの数 */
+    private static final int BUCKET_COUNT = (63 - SUB_BUCKET_BITS) * SUB_BUCKETS + SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder total = new LongAdder();
+
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    LatencyHistogram() {
+    }
+
+    /**
+     * @param nanos 記録する処理時間(ナノ秒)。負の値は0として記録します
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        buckets.incrementAndGet(bucketOf(value));
+        count.increment();
+        total.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * 開始時刻から現在までの時間を記録します。
+     *
+     * @param startNanos {@link System#nanoTime()}で取得した開始時刻
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @return 記録した回数
+     */
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * @return 記録した時間の合計(ナノ秒)
+     */
+    public long total() {
+        return total.sum();
+    }
+
+    /**
+     * @return 記録した時間の最大値(ナノ秒)
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * @return 記録した時間の平均(ナノ秒)。記録がない場合は0
+     */
+    public double mean() {
+        long n = count();
+        return n == 0 ? 0 : (double) total() / n;
+    }
+
+    /**
+     * 指定した割合の記録がその値以下になる時間を求めます。
+     * 値はバケットの上限で、実際の値より最大で1/{@value #SUB_BUCKETS}だけ大きくなります。
+     *
+     * @param percentile 0より大きく100以下の割合
+     * @return 時間(ナノ秒)。記録がない場合は0
+     */
+    public long percentile(double percentile) {
+        long[] counts = new long[BUCKET_COUNT];
+        long n = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            n += counts[i];
+        }
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(n * Math.min(percentile, 100) / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max());
+            }
+        }
+        return max();
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        total.reset();
+        max.reset();
+    }
+
+    static int bucketOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        // 最上位ビットの下のSUB_BUCKET_BITSビットでバケットを決める
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+        long sub = (bucket & (SUB_BUCKETS - 1)) + SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,142 @@
+package com.taskapp.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 名前を付けた{@link Counter}と{@link LatencyHistogram}を保持します。
+ * 同じ名前で取得すると同じインスタンスを返すため、計測する側は取得したインスタンスを定数として保持できます。
+ * 名前は「dataaccess.tasks.findAll」のように、計測する層・対象・操作をドットで区切って付けます。
+ */
+public final class MetricsRegistry {
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * アプリケーション全体で共有するレジストリを返します。
+     *
+     * @return 共有のレジストリ
+     */
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    /**
+     * @param name カウンターの名前
+     * @return 名前に対応するカウンター。存在しない場合は作成します
+     */
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, key -> new Counter());
+    }
+
+    /**
+     * @param name ヒストグラムの名前
+     * @return 名前に対応するヒストグラム。存在しない場合は作成します
+     */
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    /**
+     * 全てのカウンターとヒストグラムを0に戻します。取得済みのインスタンスはそのまま使えます。
+     */
+    public void reset() {
+        counters.values().forEach(Counter::reset);
+        histograms.values().forEach(LatencyHistogram::reset);
+    }
+
+    /**
+     * 計測値を名前順に並べた表形式の文字列にします。時間はマイクロ秒で表します。
+     * 一度も記録していないヒストグラムは含めません。
+     *
+     * @return 1行に1つの計測値を並べた文字列
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder();
+        for (Map.Entry<String, Counter> entry : new TreeMap<>(counters).entrySet()) {
+            report.append(String.format(Locale.ROOT, "%-40s %,d%n", entry.getKey(), entry.getValue().get()));
+        }
+        report.append(String.format(Locale.ROOT, "%-40s %10s %10s %10s %10s %10s%n",
+                "time(us)", "count", "mean", "p50", "p99", "max"));
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(histograms).entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            if (histogram.count() == 0) {
+                continue;
+            }
+            report.append(String.format(Locale.ROOT, "%-40s %10d %10.1f %10.1f %10.1f %10.1f%n",
+                    entry.getKey(), histogram.count(), histogram.mean() / 1000,
+                    histogram.percentile(50) / 1000.0, histogram.percentile(99) / 1000.0,
+                    histogram.max() / 1000.0));
+        }
+        return report.toString();
+    }
+
+    /**
+     * 全ての計測値をJSONにします。時間はナノ秒で表します。
+     *
+     * <pre>
+     * {"counters":{"io.fileOpens":3},
+     *  "histograms":{"dataaccess.tasks.findAll":{"count":1,"mean":..,"p50":..,"p90":..,"p99":..,"p999":..,"max":..}}}
+     * </pre>
+     *
+     * @return JSON文字列
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\"counters\":{");
+        String separator = "";
+        for (Map.Entry<String, Counter> entry : new TreeMap<>(counters).entrySet()) {
+            json.append(separator).append(quote(entry.getKey())).append(':').append(entry.getValue().get());
+            separator = ",";
+        }
+        json.append("},\"histograms\":{");
+        separator = "";
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(histograms).entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            json.append(separator).append(quote(entry.getKey()))
+                    .append(":{\"count\":").append(histogram.count())
+                    .append(",\"mean\":").append(Math.round(histogram.mean()))
+                    .append(",\"p50\":").append(histogram.percentile(50))
+                    .append(",\"p90\":").append(histogram.percentile(90))
+                    .append(",\"p99\":").append(histogram.percentile(99))
+                    .append(",\"p999\":").append(histogram.percentile(99.9))
+                    .append(",\"max\":").append(histogram.max())
+                    .append('}');
+            separator = ",";
+        }
+        return json.append("}}").toString();
+    }
+
+    /**
+     * 全ての計測値をJSONでファイルに書き出します。
+     *
+     * @param path 書き出すファイル。既に存在する場合は上書きします
+     * @throws IOException 書き込みに失敗した場合
+     */
+    public void writeJson(Path path) throws IOException {
+        Files.write(path, toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -0,0 +1,403 @@
+package com.taskapp.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.taskapp.config.AppConfig;
+import com.taskapp.dataaccess.TaskPage;
+import com.taskapp.dataaccess.TaskQuery;
+import com.taskapp.exception.AppException;
+import com.taskapp.logic.TaskLogic;
+import com.taskapp.logic.TaskRenderer;
+import com.taskapp.logic.UserLogic;
+import com.taskapp.model.User;
+
+/**
+ * {@link com.taskapp.ui.TaskUI}と同じ操作をHTTPで提供するサーバーです。
+ * リクエストは1件ごとに仮想スレッドで処理し、全てのセッションで1つの{@link TaskLogic}と{@link UserLogic}を共有します。
+ * セッションはログイン時に発行するトークンで識別し、スレッドやファイルを占有しません。
+ * 最後のリクエストから設定{@value #SESSION_TIMEOUT_PROPERTY}(分)が過ぎたセッションは無効になり、
+ * 同時に保持するセッションが設定{@value #MAX_SESSIONS_PROPERTY}の件数に達した場合は、最も長く使われていないものから取り除きます。
+ * 応答はUTF-8のテキストで、一覧の各行は既定ではメニューの「タスク一覧」と同じ形式です。
+ * 一覧のformatに"tsv"または"jsonl"を指定すると、他のツールで読み込める形式で返します。
+ *
+ * <pre>
+ * POST /login          email, password                    → トークン
+ * GET  /tasks          status, mine, after, limit, format → タスク一覧(続きがあればX-Next-Cursorヘッダー)
+ * POST /tasks          code, name, repUserCode            → 新規登録
+ * POST /tasks/status   code, status                       → ステータス変更
+ * POST /logout
+ * </pre>
+ * ログイン後のリクエストは{@code Authorization: Bearer <トークン>}ヘッダーを付けて送ります。
+ * パラメータはクエリ文字列、またはapplication/x-www-form-urlencodedの本文で渡します。
+ * ただしログインのメールアドレスとパスワードは、URLとしてアクセスログなどに残らないよう本文でだけ受け付けます。
+ */
+public class TaskServer {
+    /** 既定の待ち受けポート */
+    public static final int DEFAULT_PORT = 8080;
+
+    /** セッションの有効期間(分)を指定する設定のキー */
+    public static final String SESSION_TIMEOUT_PROPERTY = "taskapp.server.sessionTimeoutMinutes";
+
+    /** 既定のセッションの有効期間(分) */
+    public static final int DEFAULT_SESSION_TIMEOUT_MINUTES = 30;
+
+    /** 同時に保持するセッションの最大件数を指定する設定のキー */
+    public static final String MAX_SESSIONS_PROPERTY = "taskapp.server.maxSessions";
+
+    /** 既定のセッションの最大件数 */
+    public static final int DEFAULT_MAX_SESSIONS = 10_000;
+
+    private static final int TOKEN_BYTES = 24;
+
+    private final TaskLogic taskLogic;
+
+    private final UserLogic userLogic;
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    private final SecureRandom random = new SecureRandom();
+
+    /** トークンをキーとしたログイン中のセッション */
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    /** セッションの有効期間(ナノ秒) */
+    private final long sessionTimeoutNanos;
+
+    private final int maxSessions;
+
+    /**
+     * セッションの有効期間と最大件数は設定から読み込みます。
+     *
+     * @param address   待ち受けるアドレス。ポートに0を指定すると空いているポートを使います
+     * @param taskLogic 全てのセッションで共有するタスクのロジック
+     * @param userLogic 全てのセッションで共有するユーザーのロジック
+     * @throws IOException ポートを開けなかった場合
+     */
+    public TaskServer(InetSocketAddress address, TaskLogic taskLogic, UserLogic userLogic) throws IOException {
+        this(address, taskLogic, userLogic,
+                AppConfig.global().getLong(SESSION_TIMEOUT_PROPERTY, DEFAULT_SESSION_TIMEOUT_MINUTES),
+                TimeUnit.MINUTES,
+                AppConfig.global().getInt(MAX_SESSIONS_PROPERTY, DEFAULT_MAX_SESSIONS));
+    }
+
+    /**
+     * @param address        待ち受けるアドレス。ポートに0を指定すると空いているポートを使います
+     * @param taskLogic      全てのセッションで共有するタスクのロジック
+     * @param userLogic      全てのセッションで共有するユーザーのロジック
+     * @param sessionTimeout 最後のリクエストからセッションが無効になるまでの時間
+     * @param unit           sessionTimeoutの単位
+     * @param maxSessions    同時に保持するセッションの最大件数
+     * @throws IOException ポートを開けなかった場合
+     */
+    public TaskServer(InetSocketAddress address, TaskLogic taskLogic, UserLogic userLogic,
+            long sessionTimeout, TimeUnit unit, int maxSessions) throws IOException {
+        if (sessionTimeout <= 0) {
+            throw new IllegalArgumentException("セッションの有効期間は1以上で指定してください: " + sessionTimeout);
+        }
+        if (maxSessions < 1) {
+            throw new IllegalArgumentException("セッションの最大件数は1以上で指定してください: " + maxSessions);
+        }
+        this.taskLogic = taskLogic;
+        this.userLogic = userLogic;
+        this.sessionTimeoutNanos = unit.toNanos(sessionTimeout);
+        this.maxSessions = maxSessions;
+        this.server = HttpServer.create(address, 0);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/login", exchange -> handle(exchange, "POST", false, this::login));
+        server.createContext("/logout", exchange -> handle(exchange, "POST", true, this::logout));
+        server.createContext("/tasks/status", exchange -> handle(exchange, "POST", true, this::changeStatus));
+        server.createContext("/tasks", exchange -> {
+            if ("POST".equals(exchange.getRequestMethod())) {
+                handle(exchange, "POST", true, this::save);
+            } else {
+                handle(exchange, "GET", true, this::list);
+            }
+        });
+    }
+
+    /**
+     * 待ち受けを開始します。
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * 待ち受けを終了し、処理中のリクエストの完了を待ちます。
+     *
+     * @param delaySeconds 処理中のリクエストを待つ最大の秒数
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.close();
+    }
+
+    /**
+     * @return 待ち受けているアドレス
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    private String login(Request request) throws AppException {
+        String email = request.formParam("email");
+        String password = request.formParam("password");
+        if (email == null || password == null) {
+            throw new AppException("メールアドレスとパスワードはリクエストの本文で送信してください");
+        }
+        // 失敗回数は接続元ごとに数え、他の接続元から利用者を締め出せないようにする
+        String client = request.exchange.getRemoteAddress().getAddress().getHostAddress();
+        User user = userLogic.login(client, email, password);
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        synchronized (sessions) {
+            if (sessions.size() >= maxSessions) {
+                evictSessions(System.nanoTime());
+            }
+            sessions.put(token, new Session(user));
+        }
+        return token;
+    }
+
+    /**
+     * 期限切れのセッションを取り除きます。それでも最大件数に達している場合は、最も長く使われていないセッションを取り除きます。
+     *
+     * @param now 現在の{@link System#nanoTime()}
+     */
+    private void evictSessions(long now) {
+        String oldestToken = null;
+        long oldestAccess = 0;
+        for (Iterator<Map.Entry<String, Session>> it = sessions.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<String, Session> entry = it.next();
+            long lastAccess = entry.getValue().lastAccess;
+            if (now - lastAccess >= sessionTimeoutNanos) {
+                it.remove();
+            } else if (oldestToken == null || lastAccess - oldestAccess < 0) {
+                oldestToken = entry.getKey();
+                oldestAccess = lastAccess;
+            }
+        }
+        if (sessions.size() >= maxSessions && oldestToken != null) {
+            sessions.remove(oldestToken);
+        }
+    }
+
+    /**
+     * トークンに対応するログイン中のユーザーを返し、セッションの最終利用時刻を更新します。
+     *
+     * @param token トークン
+     * @return ログイン中のユーザー。トークンが不明、または期限切れの場合はnull
+     */
+    private User user(String token) {
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        if (now - session.lastAccess >= sessionTimeoutNanos) {
+            sessions.remove(token, session);
+            return null;
+        }
+        session.lastAccess = now;
+        return session.user;
+    }
+
+    private String logout(Request request) {
+        sessions.remove(request.token);
+        return "ログアウトしました。";
+    }
+
+    private String list(Request request) throws AppException {
+        TaskQuery query = new TaskQuery()
+                .status(request.intParam("status", TaskQuery.ANY))
+                .after(request.intParam("after", Integer.MIN_VALUE))
+                .limit(request.intParam("limit", TaskQuery.DEFAULT_LIMIT));
+        if ("true".equals(request.param("mine"))) {
+            query.repUserCode(request.user.getCode());
+        }
+        String format = request.param("format");
+        TaskRenderer renderer = new TaskRenderer(null,
+                format == null ? TaskRenderer.Format.TEXT : TaskRenderer.Format.of(format));
+        TaskPage page = taskLogic.findPage(query);
+        StringBuilder body = new StringBuilder();
+        renderer.appendAll(body, page.getTasks(), request.user);
+        if (page.hasNext()) {
+            request.exchange.getResponseHeaders().set("X-Next-Cursor", String.valueOf(page.getNextCursor()));
+        }
+        return body.toString();
+    }
+
+    private String save(Request request) throws AppException {
+        String name = request.param("name");
+        if (name == null || name.length() > 10) {
+            throw new AppException("タスク名は10文字以内で入力してください");
+        }
+        taskLogic.save(request.intParam("code"), name, request.intParam("repUserCode"), request.user);
+        return name + "の登録が完了しました。";
+    }
+
+    private String changeStatus(Request request) throws AppException {
+        int code = request.intParam("code");
+        int status = request.intParam("status");
+        if (status != 1 && status != 2) {
+            throw new AppException("ステータスは1・2の中から選択してください");
+        }
+        taskLogic.updateStatus(code, status, request.user);
+        return "ステータスの変更が完了しました。";
+    }
+
+    /**
+     * リクエストを検証してから処理を呼び出し、結果を応答します。
+     * {@link AppException}と不正な引数は400、ログインしていない場合は401、それ以外の実行時例外は500で応答します。
+     */
+    private void handle(HttpExchange exchange, String method, boolean requiresLogin, Handler handler)
+            throws IOException {
+        try {
+            if (!method.equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "");
+                return;
+            }
+            Request request = new Request(exchange);
+            if (requiresLogin && request.user == null) {
+                respond(exchange, 401, "ログインしてください");
+                return;
+            }
+            try {
+                respond(exchange, 200, handler.handle(request));
+            } catch (AppException | IllegalArgumentException e) {
+                respond(exchange, 400, e.getMessage());
+            } catch (RuntimeException e) {
+                // 内部の詳細は応答に含めない
+                e.printStackTrace();
+                respond(exchange, 500, "サーバーでエラーが発生しました");
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private interface Handler {
+        String handle(Request request) throws AppException;
+    }
+
+    /**
+     * ログイン中のユーザーと最後にリクエストを受けた時刻です。
+     */
+    private static final class Session {
+        private final User user;
+
+        /** 最後にリクエストを受けた{@link System#nanoTime()} */
+        private volatile long lastAccess;
+
+        private Session(User user) {
+            this.user = user;
+            this.lastAccess = System.nanoTime();
+        }
+    }
+
+    /**
+     * 1件のリクエストのパラメータとセッションです。
+     */
+    private final class Request {
+        private final HttpExchange exchange;
+        private final Map<String, String> params = new HashMap<>();
+
+        /** 本文で渡されたパラメータ。{@link #params}にも含まれます */
+        private final Map<String, String> form = new HashMap<>();
+        private final String token;
+        private final User user;
+
+        private Request(HttpExchange exchange) throws IOException {
+            this.exchange = exchange;
+            parse(exchange.getRequestURI().getRawQuery(), params);
+            try (InputStream in = exchange.getRequestBody()) {
+                parse(new String(in.readAllBytes(), StandardCharsets.UTF_8), form);
+            }
+            params.putAll(form);
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            this.token = authorization != null && authorization.startsWith("Bearer ")
+                    ? authorization.substring("Bearer ".length())
+                    : null;
+            this.user = token == null ? null : user(token);
+        }
+
+        private void parse(String encoded, Map<String, String> target) {
+            if (encoded == null || encoded.isEmpty()) {
+                return;
+            }
+            for (String pair : encoded.split("&")) {
+                int separator = pair.indexOf('=');
+                if (separator > 0) {
+                    target.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                            URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+                }
+            }
+        }
+
+        private String param(String name) {
+            return params.get(name);
+        }
+
+        /**
+         * 本文で渡されたパラメータだけから取得します。
+         */
+        private String formParam(String name) {
+            return form.get(name);
+        }
+
+        /**
+         * 必須の数値のパラメータを取得します。
+         *
+         * @throws AppException 指定がない、または数値でない場合
+         */
+        private int intParam(String name) throws AppException {
+            if (params.get(name) == null || params.get(name).isEmpty()) {
+                throw new AppException(name + "を入力してください");
+            }
+            return intParam(name, 0);
+        }
+
+        private int intParam(String name, int defaultValue) throws AppException {
+            String value = params.get(name);
+            if (value == null || value.isEmpty()) {
+                return defaultValue;
+            }
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw new AppException(name + "は半角の数字で入力してください");
+            }
+        }
+    }
+}
@@ -3,11 +3,18 @@ package com.taskapp.ui;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
 
+import com.taskapp.dataaccess.TaskPage;
+import com.taskapp.dataaccess.TaskQuery;
 import com.taskapp.dataaccess.UserDataAccess;
 import com.taskapp.exception.AppException;
 import com.taskapp.logic.TaskLogic;
+import com.taskapp.logic.TaskRenderer;
 import com.taskapp.logic.UserLogic;
+import com.taskapp.metrics.MetricsRegistry;
 import com.taskapp.model.User;
 
 public class TaskUI {
@@ -19,12 +26,28 @@ public class TaskUI {
 
     private User loginUser;
 
+    /** タスク一覧で1ページに表示する件数 */
+    private static final int PAGE_SIZE = 50;
+
+    /** 計測情報を書き出す既定のファイル名 */
+    private static final String METRICS_FILE = "metrics.json";
+
     public TaskUI() {
         reader = new BufferedReader(new InputStreamReader(System.in));
         userLogic = new UserLogic();
         taskLogic = new TaskLogic();
     }
 
+    /**
+     * 標準入力から入力を読み取り、指定したロジックを使います。
+     *
+     * @param userLogic ユーザーのロジック
+     * @param taskLogic タスクのロジック
+     */
+    public TaskUI(UserLogic userLogic, TaskLogic taskLogic) {
+        this(new BufferedReader(new InputStreamReader(System.in)), userLogic, taskLogic);
+    }
+
     /**
      * 自動採点用に必要なコンストラクタのため、皆さんはこのコンストラクタを利用・削除はしないでください
      * 
@@ -42,9 +65,10 @@ public class TaskUI {
      * メニューを表示し、ユーザーの入力に基づいてアクションを実行します。
      *
      * @see #inputLogin()
-     * @see com.taskapp.logic.TaskLogic#showAll(User)
+     * @see #showTaskList()
      * @see #selectSubMenu()
      * @see #inputNewInformation()
+     * @see #showMetrics()
      */
     public void displayMenu() {
         System.out.println("タスク管理アプリケーションにようこそ!!");
@@ -55,8 +79,8 @@ public class TaskUI {
         boolean flg = true;
         while (flg) {
             try {
-                System.out.println("以下1~3のメニューから好きな選択肢を選んでください。");
-                System.out.println("1. タスク一覧, 2. タスク新規登録, 3. ログアウト");
+                System.out.println("以下1~4のメニューから好きな選択肢を選んでください。");
+                System.out.println("1. タスク一覧, 2. タスク新規登録, 3. ログアウト, 4. 計測情報");
                 System.out.print("選択肢：");
                 String selectMenu = reader.readLine();
 
@@ -64,7 +88,7 @@ public class TaskUI {
 
                 switch (selectMenu) {
                     case "1":
-                        taskLogic.showAll(loginUser);
+                        showTaskList();
                         selectSubMenu();
                         break;
                     case "2":
@@ -75,8 +99,11 @@ public class TaskUI {
                         loginUser=null;
                         flg = false;
                         break;
+                    case "4":
+                        showMetrics();
+                        break;
                     default:
-                        System.out.println("選択肢が誤っています。1~3の中から選択してください。");
+                        System.out.println("選択肢が誤っています。1~4の中から選択してください。");
                         break;
                 }
             } catch (IOException e) {
@@ -89,6 +116,74 @@ public class TaskUI {
     }
     }
 
+    /**
+     * 絞り込み条件を受け取り、タスクを1ページずつ表示します。
+     * 続きのページがある場合は、表示を続けるかどうかを確認します。
+     *
+     * @see com.taskapp.logic.TaskLogic#showPage(User, TaskQuery)
+     */
+    public void showTaskList() {
+        TaskQuery query = new TaskQuery().limit(PAGE_SIZE);
+        try {
+            while (true) {
+                System.out.println("絞り込むステータスを選択してください(0. 未着手, 1. 着手中, 2. 完了, 空欄の場合は全て)：");
+                String inputStatus = reader.readLine();
+                if (inputStatus == null || inputStatus.isEmpty()) {
+                    break;
+                }
+                if (!Arrays.asList("0", "1", "2").contains(inputStatus)) {
+                    System.out.println("ステータスは0・1・2の中から選択してください");
+                    continue;
+                }
+                query.status(Integer.parseInt(inputStatus));
+                break;
+            }
+            System.out.println("自分が担当するタスクのみ表示しますか？(y/n)：");
+            if ("y".equals(reader.readLine())) {
+                query.repUserCode(loginUser.getCode());
+            }
+
+            while (true) {
+                TaskPage page = taskLogic.showPage(loginUser, query);
+                if (!page.hasNext()) {
+                    break;
+                }
+                System.out.println("次のページを表示しますか？(y/n)：");
+                if (!"y".equals(reader.readLine())) {
+                    break;
+                }
+                query.after(page.getNextCursor());
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 各処理の呼び出し回数・処理時間とファイルの入出力量を表示します。
+     * 指定があれば、同じ内容をJSONファイルに書き出します。
+     *
+     * @see com.taskapp.metrics.MetricsRegistry#report()
+     * @see com.taskapp.metrics.MetricsRegistry#writeJson(Path)
+     */
+    public void showMetrics() {
+        MetricsRegistry metrics = MetricsRegistry.global();
+        System.out.print(metrics.report());
+        try {
+            System.out.println("JSONファイルに書き出しますか？(y/n)：");
+            if (!"y".equals(reader.readLine())) {
+                return;
+            }
+            System.out.println("書き出すファイル名を入力してください(空欄の場合は" + METRICS_FILE + ")：");
+            String fileName = reader.readLine();
+            Path path = Paths.get(fileName == null || fileName.isEmpty() ? METRICS_FILE : fileName);
+            metrics.writeJson(path);
+            System.out.println(path + "に書き出しました。");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
     /**
      * ユーザーからのログイン情報を受け取り、ログイン処理を行います。
      *
@@ -119,6 +214,57 @@ public class TaskUI {
         }
     }
 
+    /**
+     * ログイン情報を受け取り、CSVファイルのタスクを一括登録します。
+     * ログインに失敗した場合は登録せずに終了します。
+     *
+     * @see com.taskapp.logic.UserLogic#login(String, String)
+     * @see com.taskapp.logic.TaskLogic#importFile(Path, User)
+     * @param path 一括登録するCSVファイル
+     */
+    public void inputImport(Path path) {
+        try {
+            System.out.println("メールアドレスを入力してください：");
+            String email = reader.readLine();
+
+            System.out.println("パスワードを入力してください：");
+            String password = reader.readLine();
+
+            loginUser = userLogic.login(email, password);
+            int count = taskLogic.importFile(path, loginUser);
+            System.out.println(count + "件のタスクの登録が完了しました。");
+        } catch (AppException e) {
+            System.out.println(e.getMessage());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * ログイン情報を受け取り、全てのタスクを指定した形式で標準出力に出力します。
+     * 出力を他のツールに渡せるよう、入力を促すメッセージとエラーは標準エラー出力に表示します。
+     *
+     * @see com.taskapp.logic.UserLogic#login(String, String)
+     * @see com.taskapp.logic.TaskLogic#showAll(User, TaskRenderer.Format)
+     * @param format 出力形式
+     */
+    public void inputExport(TaskRenderer.Format format) {
+        try {
+            System.err.println("メールアドレスを入力してください：");
+            String email = reader.readLine();
+
+            System.err.println("パスワードを入力してください：");
+            String password = reader.readLine();
+
+            loginUser = userLogic.login(email, password);
+            taskLogic.showAll(loginUser, format);
+        } catch (AppException e) {
+            System.err.println(e.getMessage());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
     /**
      * ユーザーからの新規タスク情報を受け取り、新規タスクを登録します。
      *
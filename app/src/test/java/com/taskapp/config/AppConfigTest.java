@@ -0,0 +1,46 @@
+package com.taskapp.config;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+
+public class AppConfigTest {
+    @Test
+    public void testLookupOrder() {
+        Map<String, String> system = new HashMap<>();
+        Map<String, String> environment = new HashMap<>();
+        Properties file = new Properties();
+        AppConfig config = new AppConfig(system::get, environment::get, file);
+
+        assertThat(config.dataDirectory()).isEqualTo(AppConfig.DEFAULT_DATA_DIRECTORY);
+
+        file.setProperty(AppConfig.DATA_DIRECTORY, "/from/file");
+        assertThat(config.dataDirectory()).isEqualTo("/from/file");
+
+        environment.put("TASKAPP_DATADIR", "/from/env");
+        assertThat(config.dataDirectory()).isEqualTo("/from/env");
+
+        system.put(AppConfig.DATA_DIRECTORY, "/from/system");
+        assertThat(config.dataDirectory()).isEqualTo("/from/system");
+        assertThat(config.dataFile("tasks.csv")).isEqualTo(Paths.get("/from/system", "tasks.csv").toString());
+    }
+
+    @Test
+    public void testTypedValues() {
+        Properties file = new Properties();
+        file.setProperty(AppConfig.PRELOAD, "TRUE");
+        file.setProperty(AppConfig.WARMUP_MILLIS, "250");
+        file.setProperty("taskapp.userCache.size", "many");
+        AppConfig config = new AppConfig(key -> null, key -> null, file);
+
+        assertThat(config.preload()).isTrue();
+        assertThat(config.warmupMillis()).isEqualTo(250);
+        assertThat(config.getInt("taskapp.userCache.size", 10)).isEqualTo(10);
+        assertThat(AppConfig.environmentName("taskapp.userCache.size")).isEqualTo("TASKAPP_USERCACHE_SIZE");
+    }
+}
@@ -0,0 +1,67 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Test;
+
+import com.taskapp.metrics.IoMetrics;
+import com.taskapp.metrics.MetricsRegistry;
+import com.taskapp.model.Task;
+
+public class BinaryStorageEngineTest extends StorageEngineContractTest {
+    @Override
+    protected StorageEngine createEngine(Path directory) {
+        return new BinaryStorageEngine(directory.toString());
+    }
+
+    @Test
+    public void testFindAllDoesNotRescanUnchangedFile() {
+        TaskRepository tasks = new BinaryTaskDataAccess(directory.resolve("tasks.bin").toString(),
+                new UserDataAccess(directory.resolve("users.csv").toString()));
+        tasks.save(new Task(1, "Task 1", 0, null));
+        tasks.save(new Task(2, "Task 2", 0, null));
+        assertThat(tasks.findAll()).hasSize(2);
+
+        tasks.update(new Task(1, "Task 1", 1, null));
+        tasks.save(new Task(3, "Task 3", 0, null));
+
+        // 自身の書き込みは保持している行に反映済みのため、ファイルを読み直さない
+        long read = MetricsRegistry.global().counter(IoMetrics.BYTES_READ).get();
+        assertThat(tasks.findAll()).extracting(Task::getStatus).containsExactly(1, 0, 0);
+        assertThat(tasks.find(new TaskQuery().status(0)).getTasks()).extracting(Task::getCode).containsExactly(2, 3);
+        assertThat(MetricsRegistry.global().counter(IoMetrics.BYTES_READ).get() - read).isZero();
+    }
+
+    @Test
+    public void testTornTailIsSkippedAndTruncated() throws IOException {
+        Path path = directory.resolve("tasks.bin");
+        UserDataAccess users = new UserDataAccess(directory.resolve("users.csv").toString());
+        new BinaryTaskDataAccess(path.toString(), users).save(new Task(1, "Task 1", 0, null));
+        long size = Files.size(path);
+
+        for (int length : new int[] { -5, Integer.MAX_VALUE, 100 }) {
+            // 長さが壊れている、または書き込み途中で終わっているレコード
+            Files.write(path, ByteBuffer.allocate(8).putInt(length).putInt(7).array(), StandardOpenOption.APPEND);
+            TaskRepository tasks = new BinaryTaskDataAccess(path.toString(), users);
+
+            assertThat(tasks.findAll()).extracting(Task::getCode).containsExactly(1);
+
+            // 追記の前に切り詰めるため、後から追記したレコードも読める
+            tasks.save(new Task(2, "Task 2", 0, null));
+            assertThat(new BinaryTaskDataAccess(path.toString(), users).findAll()).extracting(Task::getCode)
+                    .containsExactly(1, 2);
+            assertThat(tasks.findByCode(2).getName()).isEqualTo("Task 2");
+
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(size);
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class ChunkedListTest {
+    @Test
+    public void testOfKeepsOrder() {
+        List<Integer> elements = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            elements.add(i);
+        }
+
+        ChunkedList<Integer> list = ChunkedList.of(elements);
+
+        assertThat(list).hasSize(3000);
+        assertThat(list).isEqualTo(elements);
+        assertThatThrownBy(() -> list.get(3000)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    public void testEditLeavesOriginalUnchanged() {
+        List<String> elements = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            elements.add("e" + i);
+        }
+        ChunkedList<String> original = ChunkedList.of(elements);
+
+        ChunkedList.Editor<String> editor = original.edit();
+        editor.set(0, "first");
+        editor.set(1499, "last");
+        editor.add("added");
+        ChunkedList<String> edited = editor.build();
+
+        assertThat(original).isEqualTo(elements);
+        assertThat(edited).hasSize(1501);
+        assertThat(edited.get(0)).isEqualTo("first");
+        assertThat(edited.get(1)).isEqualTo("e1");
+        assertThat(edited.get(1499)).isEqualTo("last");
+        assertThat(edited.get(1500)).isEqualTo("added");
+
+        // 編集後のリストを元にした編集も、編集後のリストを変更しない
+        ChunkedList.Editor<String> next = edited.edit();
+        next.set(1500, "replaced");
+        assertThat(next.build().get(1500)).isEqualTo("replaced");
+        assertThat(edited.get(1500)).isEqualTo("added");
+    }
+
+    @Test
+    public void testAddToEmptyList() {
+        ChunkedList.Editor<Integer> editor = ChunkedList.<Integer>of(List.of()).edit();
+        for (int i = 0; i < 2049; i++) {
+            editor.add(i);
+        }
+
+        ChunkedList<Integer> list = editor.build();
+
+        assertThat(list).hasSize(2049);
+        assertThat(list.get(1024)).isEqualTo(1024);
+        assertThat(list.get(2048)).isEqualTo(2048);
+    }
+}
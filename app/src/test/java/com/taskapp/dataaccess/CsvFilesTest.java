@@ -0,0 +1,55 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CsvFilesTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testScanCodesMatchesCsvReader() throws IOException {
+        String content = "Code,Name,Status,Rep_User_Code\n"
+                + "1,taskA,0,1\n"
+                + "-5,\"neg\native\",0,1\n"
+                + "2147483647,max,0,1\n"
+                + "2147483648,over,0,1\n"
+                + "-2147483648,min,0,1\n"
+                + "-2147483649,under,0,1\n"
+                + "99999999999999999999,huge,0,1\n"
+                + "1-2,dash,0,1\n"
+                + "-,sign,0,1\n"
+                + "7,last,0,1";
+        Path path = directory.resolve("tasks.csv");
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+
+        List<String> scanned = new ArrayList<>();
+        long size = CsvFiles.scanCodes(path, 0, (code, offset) -> scanned.add(code + "@" + offset));
+
+        // 範囲外や数値でない行は、CsvReaderで読めない行と同じく通知しない
+        List<String> parsed = new ArrayList<>();
+        CsvReader reader = CsvReader.of(ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8)));
+        while (reader.nextRow()) {
+            long offset = reader.rowOffset();
+            try {
+                parsed.add(reader.nextInt() + "@" + offset);
+            } catch (NumberFormatException e) {
+                // 数値として読めない行
+            }
+        }
+        assertThat(scanned).isEqualTo(parsed);
+        assertThat(scanned).extracting(entry -> entry.substring(0, entry.indexOf('@')))
+                .containsExactly("1", "-5", "2147483647", "-2147483648", "7");
+        assertThat(size).isEqualTo(Files.size(path));
+    }
+}
@@ -0,0 +1,113 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CsvReaderTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testQuotedFieldWithEscapedQuotes() throws IOException {
+        CsvReader reader = reader("1,\"He said \"\"hi\"\", then left\",2\n");
+
+        assertThat(reader.nextRow()).isTrue();
+        assertThat(reader.nextInt()).isEqualTo(1);
+        assertThat(reader.nextString()).isEqualTo("He said \"hi\", then left");
+        assertThat(reader.nextInt()).isEqualTo(2);
+        assertThat(reader.hasField()).isFalse();
+        assertThat(reader.nextRow()).isFalse();
+    }
+
+    @Test
+    public void testEmbeddedNewlineInQuotedField() throws IOException {
+        CsvReader reader = reader("1,\"first\nsecond\",3\n2,plain,4\n");
+
+        assertThat(reader.nextRow()).isTrue();
+        assertThat(reader.nextInt()).isEqualTo(1);
+        assertThat(reader.nextString()).isEqualTo("first\nsecond");
+        assertThat(reader.nextInt()).isEqualTo(3);
+        assertThat(reader.nextRow()).isTrue();
+        assertThat(reader.nextInt()).isEqualTo(2);
+        assertThat(reader.nextString()).isEqualTo("plain");
+        assertThat(reader.nextInt()).isEqualTo(4);
+        assertThat(reader.nextRow()).isFalse();
+    }
+
+    @Test
+    public void testCrlfLineEndings() throws IOException {
+        CsvReader reader = reader("Code,Name\r\n1,taskA\r\n\r\n2,\"task\r\nB\"\r\n");
+
+        assertThat(reader.nextRow()).isTrue();
+        assertThat(reader.isIntField()).isFalse();
+        assertThat(reader.nextRow()).isTrue();
+        assertThat(reader.nextInt()).isEqualTo(1);
+        assertThat(reader.nextString()).isEqualTo("taskA");
+        // 空行は読み飛ばし、行末の\rは列に含めない
+        assertThat(reader.nextRow()).isTrue();
+        assertThat(reader.nextInt()).isEqualTo(2);
+        assertThat(reader.nextString()).isEqualTo("task\r\nB");
+        assertThat(reader.nextRow()).isFalse();
+    }
+
+    @Test
+    public void testNegativeNumbers() throws IOException {
+        CsvReader reader = reader("-5,0,-2147483648,2147483647,\"-7\"\n");
+
+        assertThat(reader.nextRow()).isTrue();
+        assertThat(reader.isIntField()).isTrue();
+        assertThat(reader.nextInt()).isEqualTo(-5);
+        assertThat(reader.nextInt()).isEqualTo(0);
+        assertThat(reader.nextInt()).isEqualTo(Integer.MIN_VALUE);
+        assertThat(reader.nextInt()).isEqualTo(Integer.MAX_VALUE);
+        assertThat(reader.nextInt()).isEqualTo(-7);
+    }
+
+    @Test
+    public void testOverflow() throws IOException {
+        for (String field : new String[] { "2147483648", "-2147483649", "99999999999999999999" }) {
+            CsvReader reader = reader(field + ",1\n");
+            assertThat(reader.nextRow()).isTrue();
+            assertThatThrownBy(reader::nextInt).isInstanceOf(NumberFormatException.class);
+        }
+        CsvReader reader = reader("-,1\n");
+        assertThat(reader.nextRow()).isTrue();
+        assertThatThrownBy(reader::nextInt).isInstanceOf(NumberFormatException.class);
+    }
+
+    @Test
+    public void testRowsLongerThanBuffer() throws IOException {
+        Path path = directory.resolve("tasks.csv");
+        Files.write(path, "1,\"a long,\nquoted name\",2\r\n22,b,3\n".getBytes(StandardCharsets.UTF_8));
+
+        // バッファより長い行は、バッファを広げて読み込む
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+                CsvReader reader = new CsvReader(channel, 0, 4, false)) {
+            assertThat(reader.nextRow()).isTrue();
+            assertThat(reader.rowOffset()).isZero();
+            assertThat(reader.nextInt()).isEqualTo(1);
+            assertThat(reader.nextString()).isEqualTo("a long,\nquoted name");
+            assertThat(reader.nextInt()).isEqualTo(2);
+            assertThat(reader.nextRow()).isTrue();
+            assertThat(reader.rowOffset()).isEqualTo(27);
+            assertThat(reader.nextInt()).isEqualTo(22);
+            assertThat(reader.nextString()).isEqualTo("b");
+            assertThat(reader.nextInt()).isEqualTo(3);
+            assertThat(reader.nextRow()).isFalse();
+        }
+    }
+
+    private static CsvReader reader(String content) {
+        return CsvReader.of(ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}
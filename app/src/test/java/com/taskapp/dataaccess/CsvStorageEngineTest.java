@@ -0,0 +1,30 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+public class CsvStorageEngineTest extends StorageEngineContractTest {
+    @Override
+    protected StorageEngine createEngine(Path directory) throws IOException {
+        if (!Files.exists(directory.resolve("tasks.csv"))) {
+            Files.writeString(directory.resolve("tasks.csv"), "Code,Name,Status,Rep_User_Code\n");
+            Files.writeString(directory.resolve("logs.csv"), "Task_Code,Change_User_Code,Status,Change_Date\n");
+        }
+        return new CsvStorageEngine(directory.toString());
+    }
+
+    @Test
+    public void testConfiguredEngineIsShared() {
+        StorageEngine engine = StorageEngine.configured();
+
+        // 引数のないコンストラクタ同士が、同じファイルに別々の索引や書き込みスレッドを持たない
+        assertThat(StorageEngine.configured()).isSameAs(engine);
+        assertThat(StorageEngine.configured().tasks()).isSameAs(engine.tasks());
+        assertThat(StorageEngine.create()).isNotSameAs(engine);
+    }
+}
@@ -0,0 +1,72 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class IntLongHashMapTest {
+    @Test
+    public void testPutGetAndOverwrite() {
+        IntLongHashMap map = new IntLongHashMap();
+        map.put(1, 100L);
+        map.put(-7, 200L);
+
+        assertThat(map.get(1)).isEqualTo(100L);
+        assertThat(map.get(-7)).isEqualTo(200L);
+        assertThat(map.size()).isEqualTo(2);
+
+        map.put(1, 300L);
+
+        assertThat(map.get(1)).isEqualTo(300L);
+        assertThat(map.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void testZeroKey() {
+        IntLongHashMap map = new IntLongHashMap();
+        assertThat(map.get(0)).isEqualTo(IntLongHashMap.MISSING);
+
+        map.put(0, 5L);
+        map.put(0, 6L);
+
+        assertThat(map.get(0)).isEqualTo(6L);
+        assertThat(map.size()).isEqualTo(1);
+
+        map.clear();
+
+        assertThat(map.get(0)).isEqualTo(IntLongHashMap.MISSING);
+        assertThat(map.size()).isZero();
+    }
+
+    @Test
+    public void testResizeKeepsAllKeys() {
+        IntLongHashMap map = new IntLongHashMap(4);
+        for (int key = -5_000; key <= 5_000; key++) {
+            map.put(key * 31, key * 10L);
+        }
+
+        assertThat(map.size()).isEqualTo(10_001);
+        for (int key = -5_000; key <= 5_000; key++) {
+            assertThat(map.get(key * 31)).isEqualTo(key * 10L);
+        }
+    }
+
+    @Test
+    public void testMissingKeys() {
+        IntLongHashMap map = new IntLongHashMap();
+        for (int key = 1; key <= 100; key++) {
+            map.put(key * 2, key);
+        }
+
+        for (int key = 1; key <= 100; key++) {
+            assertThat(map.get(key * 2 + 1)).isEqualTo(IntLongHashMap.MISSING);
+        }
+        assertThat(map.get(Integer.MIN_VALUE)).isEqualTo(IntLongHashMap.MISSING);
+        assertThat(map.get(Integer.MAX_VALUE)).isEqualTo(IntLongHashMap.MISSING);
+
+        map.clear();
+
+        assertThat(map.get(2)).isEqualTo(IntLongHashMap.MISSING);
+        assertThat(map.size()).isZero();
+    }
+}
@@ -0,0 +1,129 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.taskapp.model.Log;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+public class JournalTest {
+    private static final String TEST_FILE_PATH_USER = "src/test/resources/test_users.csv";
+
+    @TempDir
+    Path directory;
+
+    private User repUser;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Files.copy(Paths.get(TEST_FILE_PATH_USER), directory.resolve("users.csv"));
+        Files.writeString(directory.resolve("tasks.csv"), "Code,Name,Status,Rep_User_Code\n");
+        Files.writeString(directory.resolve("logs.csv"), "Task_Code,Change_User_Code,Status,Change_Date\n");
+        repUser = new UserDataAccess(directory.resolve("users.csv").toString()).findByCode(1);
+    }
+
+    @Test
+    public void testRecoverUnappliedEntry() {
+        // 記録後、データファイルへ反映する前に異常終了した状態を作る
+        Journal journal = new Journal(directory.resolve("journal.wal"));
+        long sequence = journal.commit(new JournalEntry()
+                .insertTask(new Task(1, "Task 1", 0, repUser))
+                .appendLog(new Log(1, 1, 0, LocalDate.of(2024, 1, 1))));
+        journal.close();
+        assertThat(sequence).isPositive();
+
+        CsvStorageEngine engine = new CsvStorageEngine(directory.toString());
+        try {
+            engine.journal();
+
+            Task task = engine.tasks().findByCode(1);
+            assertThat(task.getName()).isEqualTo("Task 1");
+            assertThat(engine.logs().findByTaskCode(1)).hasSize(1);
+        } finally {
+            engine.logs().close();
+        }
+    }
+
+    @Test
+    public void testReplayIsIdempotent() {
+        CsvStorageEngine engine = new CsvStorageEngine(directory.toString());
+        Task task = new Task(1, "Task 1", 1, repUser);
+        Log log = new Log(1, 1, 1, LocalDate.of(2024, 1, 1));
+        // 反映後、反映済みの印を書く前に異常終了した状態を作る
+        Journal journal = new Journal(directory.resolve("journal.wal"));
+        journal.commit(new JournalEntry().insertTask(task).appendLog(log));
+        journal.close();
+        engine.tasks().save(task);
+        engine.logs().save(log);
+        engine.logs().close();
+
+        CsvStorageEngine recovered = new CsvStorageEngine(directory.toString());
+        try {
+            recovered.journal();
+
+            assertThat(recovered.tasks().findAll()).hasSize(1);
+            assertThat(recovered.tasks().findByCode(1).getStatus()).isEqualTo(1);
+            assertThat(recovered.logs().findAll()).hasSize(1);
+        } finally {
+            recovered.logs().close();
+        }
+    }
+
+    @Test
+    public void testAppliedEntryIsNotReplayed() throws IOException {
+        CsvStorageEngine engine = new CsvStorageEngine(directory.toString());
+        Journal journal = engine.journal();
+        Log log = new Log(1, 1, 0, LocalDate.of(2024, 1, 1));
+        long sequence = journal.commit(new JournalEntry().appendLog(log));
+        engine.logs().save(log);
+        journal.applied(sequence);
+        journal.close();
+        engine.logs().deleteByTaskCode(1);
+        engine.logs().close();
+
+        CsvStorageEngine recovered = new CsvStorageEngine(directory.toString());
+        try {
+            recovered.journal();
+
+            assertThat(recovered.logs().findAll()).isEmpty();
+            assertThat(Files.size(directory.resolve("journal.wal"))).isEqualTo(RecordFile.HEADER_SIZE);
+        } finally {
+            recovered.logs().close();
+        }
+    }
+
+    @Test
+    public void testCheckpointKeepsPendingEntries() throws IOException {
+        Path path = directory.resolve("journal.wal");
+        Journal journal = new Journal(path, 1);
+        journal.commit(new JournalEntry().insertTask(new Task(1, "Task 1", 0, repUser)));
+        long sequence = journal.commit(new JournalEntry().insertTask(new Task(2, "Task 2", 0, repUser)));
+        long size = Files.size(path);
+
+        // 反映が終わっていないエントリーがあっても、反映済みのエントリーは取り除く
+        journal.applied(sequence);
+        assertThat(Files.size(path)).isLessThan(size);
+        assertThat(journal.commit(new JournalEntry().insertTask(new Task(3, "Task 3", 0, repUser))))
+                .isGreaterThan(sequence);
+        journal.close();
+
+        CsvStorageEngine engine = new CsvStorageEngine(directory.toString());
+        try {
+            engine.journal();
+
+            assertThat(engine.tasks().findAll()).extracting(Task::getCode).containsExactly(1, 3);
+        } finally {
+            engine.logs().close();
+        }
+    }
+}
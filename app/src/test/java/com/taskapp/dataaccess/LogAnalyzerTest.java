@@ -0,0 +1,68 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.SortedMap;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class LogAnalyzerTest {
+    private static final String LOGS = "Task_Code,Change_User_Code,Status,Change_Date\n"
+            + "1,1,0,2024-04-01\n"
+            + "2,1,0,2024-04-01\n"
+            + "1,2,1,2024-04-03\n"
+            + "3,2,0,2024-04-03\n"
+            + "1,2,2,2024-04-06\n"
+            + "2,1,1,2024-04-06\n"
+            + "2,1,2,2024-04-07\n"
+            + "3,2,x,2024-04-07\n";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testAnalyzeInChunks() throws IOException {
+        Path path = directory.resolve("logs.csv");
+        Files.write(path, LOGS.getBytes(StandardCharsets.UTF_8));
+
+        // 同じタスクのログが別々のチャンクに入るよう、小さいチャンクに分けて集計する
+        LogStatistics chunked = new LogAnalyzer(path, 16).analyze(ForkJoinPool.commonPool());
+        LogStatistics whole = new LogAnalyzer(path).analyze(ForkJoinPool.commonPool());
+
+        for (LogStatistics statistics : new LogStatistics[] { chunked, whole }) {
+            assertThat(statistics.getLogCount()).isEqualTo(7);
+            assertThat(statistics.getSkippedCount()).isEqualTo(1);
+            assertThat(statistics.getStartDays()).containsOnlyKeys(1, 2).containsEntry(1, 2).containsEntry(2, 5);
+            assertThat(statistics.getCompletionDays()).containsOnlyKeys(1, 2).containsEntry(1, 3).containsEntry(2, 1);
+            assertThat(statistics.getCompletionsByUser()).containsOnlyKeys(1, 2);
+            assertThat(statistics.getCompletionsByUser().get(1)).containsEntry(LocalDate.of(2024, 4, 7), 1);
+            assertThat(statistics.getCompletionsByUser().get(2)).containsEntry(LocalDate.of(2024, 4, 6), 1);
+
+            SortedMap<LocalDate, int[]> counts = statistics.getStatusCounts();
+            assertThat(counts).containsOnlyKeys(LocalDate.of(2024, 4, 1), LocalDate.of(2024, 4, 3),
+                    LocalDate.of(2024, 4, 6), LocalDate.of(2024, 4, 7));
+            assertThat(counts.get(LocalDate.of(2024, 4, 1))).containsExactly(2, 0, 0);
+            assertThat(counts.get(LocalDate.of(2024, 4, 3))).containsExactly(2, 1, 0);
+            assertThat(counts.get(LocalDate.of(2024, 4, 6))).containsExactly(1, 1, 1);
+            assertThat(counts.get(LocalDate.of(2024, 4, 7))).containsExactly(1, 0, 2);
+        }
+    }
+
+    @Test
+    public void testAnalyzeEmptyFile() throws IOException {
+        Path path = directory.resolve("logs.csv");
+        Files.write(path, new byte[0]);
+
+        LogStatistics statistics = new LogAnalyzer(path).analyze(ForkJoinPool.commonPool());
+
+        assertThat(statistics.getLogCount()).isZero();
+        assertThat(statistics.getStatusCounts()).isEmpty();
+    }
+}
@@ -10,7 +10,9 @@ import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -86,6 +88,75 @@ public class LogDataAccessTest {
         assertThat(logs).doesNotContain(log2);
     }
 
+    @Test
+    public void testSaveAfterAnotherInstanceDeletes() {
+        // Log#equalsはタスクコードだけで比較するため、既存の行にないコードを使う
+        Log log1 = new Log(11, 1, 1, LocalDate.now());
+        Log log2 = new Log(12, 2, 2, LocalDate.now());
+        Log log3 = new Log(13, 3, 0, LocalDate.now());
+        LogDataAccess other = new LogDataAccess(TEST_FILE_PATH);
+        try {
+            other.save(log1);
+            logDataAccess.save(log2);
+
+            // 削除でファイルが置き換えられても、もう一方のインスタンスは新しいファイルに追記する
+            logDataAccess.deleteByTaskCode(12);
+            other.save(log3);
+
+            List<Log> logs = readLogsFromFile(TEST_FILE_PATH);
+            assertThat(logs).contains(log1, log3);
+            assertThat(logs).doesNotContain(log2);
+            assertThat(logDataAccess.findByTaskCode(13)).contains(log3);
+        } finally {
+            other.close();
+        }
+    }
+
+    @Test
+    public void testFollowDeliversAppendedLogsFromCheckpoint() throws IOException {
+        Log log1 = new Log(1, 1, 1, LocalDate.now());
+        Log log2 = new Log(2, 2, 2, LocalDate.now());
+        Log log3 = new Log(3, 3, 0, LocalDate.now());
+        List<Log> received = Collections.synchronizedList(new ArrayList<>());
+
+        long checkpoint;
+        try (LogFeed feed = logDataAccess.follow(LogFeed.FROM_END, (log, next) -> received.add(log))) {
+            logDataAccess.save(log1);
+            logDataAccess.save(log2);
+            feed.poll();
+            assertThat(received).containsExactly(log1, log2);
+            checkpoint = feed.checkpoint();
+        }
+        assertThat(checkpoint).isEqualTo(Files.size(Paths.get(TEST_FILE_PATH)));
+
+        logDataAccess.save(log3);
+        received.clear();
+        try (LogFeed feed = logDataAccess.follow(checkpoint, (log, next) -> received.add(log))) {
+            feed.poll();
+            assertThat(received).containsExactly(log3);
+        }
+    }
+
+    @Test
+    public void testFollowRedeliversWhenListenerFails() {
+        Log log1 = new Log(1, 1, 1, LocalDate.now());
+        Log log2 = new Log(2, 2, 2, LocalDate.now());
+        List<Log> received = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean failed = new AtomicBoolean();
+
+        try (LogFeed feed = logDataAccess.follow(LogFeed.FROM_END, (log, next) -> {
+            if (log.equals(log2) && failed.compareAndSet(false, true)) {
+                throw new IllegalStateException("一時的な失敗");
+            }
+            received.add(log);
+        })) {
+            logDataAccess.saveAll(List.of(log1, log2));
+            feed.poll();
+            feed.poll();
+            assertThat(received).containsExactly(log1, log2);
+        }
+    }
+
     private List<Log> readLogsFromFile(String filePath) {
         List<Log> logs = new ArrayList<>();
         try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
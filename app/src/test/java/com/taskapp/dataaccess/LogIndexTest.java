@@ -0,0 +1,132 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.taskapp.metrics.IoMetrics;
+import com.taskapp.metrics.MetricsRegistry;
+import com.taskapp.model.Log;
+
+public class LogIndexTest {
+    private static final String HEADER = "Task_Code,Change_User_Code,Status,Change_Date\n";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testRebuildWhenCsvIsReplaced() throws IOException {
+        Path path = directory.resolve("logs.csv");
+        String before = HEADER + "1,1,0,2024-01-10\n2,1,0,2024-01-10\n";
+        Files.write(path, before.getBytes(StandardCharsets.UTF_8));
+        assertThat(new LogIndex(path).offsets(1)).containsExactly(offsetsOf(before, 1));
+
+        // 以前より大きいファイルに置き換えられても、保存された索引の続きとして読み足さない
+        String after = HEADER + "3,1,0,2024-01-10\n1,2,1,2024-01-11\n3,2,1,2024-01-12\n";
+        Files.write(path, after.getBytes(StandardCharsets.UTF_8));
+        LogIndex index = new LogIndex(path);
+
+        assertThat(index.offsets(1)).containsExactly(offsetsOf(after, 1));
+        assertThat(index.offsets(2)).isEmpty();
+        assertThat(index.offsets(3)).containsExactly(offsetsOf(after, 3));
+    }
+
+    @Test
+    public void testAppendFromReadsOnlyAppendedRows() throws IOException {
+        Path path = directory.resolve("logs.csv");
+        StringBuilder content = new StringBuilder(HEADER);
+        for (int i = 1; i <= 1000; i++) {
+            content.append(i).append(",1,0,2024-01-10\n");
+        }
+        Files.write(path, content.toString().getBytes(StandardCharsets.UTF_8));
+        new LogIndex(path).offsets(1);
+
+        String appended = "7,2,1,2024-01-11\n1001,2,0,2024-01-11\n";
+        Files.write(path, appended.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        content.append(appended);
+        long read = MetricsRegistry.global().counter(IoMetrics.BYTES_READ).get();
+        LogIndex index = new LogIndex(path);
+
+        assertThat(index.offsets(7)).containsExactly(offsetsOf(content.toString(), 7));
+        assertThat(index.offsets(1001)).containsExactly(offsetsOf(content.toString(), 1001));
+        // 読み込んだのは索引ファイルと追記された部分だけで、CSV全体は走査していない
+        assertThat(MetricsRegistry.global().counter(IoMetrics.BYTES_READ).get() - read)
+                .isLessThan(Files.size(path));
+    }
+
+    @Test
+    public void testRemovedShiftsFollowingOffsets() throws IOException {
+        Path path = directory.resolve("logs.csv");
+        Files.write(path, HEADER.getBytes(StandardCharsets.UTF_8));
+        LogDataAccess logDataAccess = new LogDataAccess(path.toString());
+        try {
+            List<Log> logs = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                logs.add(new Log(1, 1, i, LocalDate.of(2024, 1, 10 + i)));
+                logs.add(new Log(2, 1, i, LocalDate.of(2024, 1, 10 + i)));
+                logs.add(new Log(3, 1, i, LocalDate.of(2024, 1, 10 + i)));
+            }
+            logDataAccess.saveAll(logs);
+            assertThat(logDataAccess.findByTaskCode(2)).hasSize(3);
+
+            logDataAccess.deleteByTaskCode(2);
+        } finally {
+            logDataAccess.close();
+        }
+
+        // 保存された索引を読み込んだ結果が、削除後のCSVを走査した結果と一致する
+        String content = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+        LogIndex index = new LogIndex(path);
+        for (int code = 1; code <= 3; code++) {
+            assertThat(index.offsets(code)).containsExactly(offsetsOf(content, code));
+        }
+    }
+
+    @Test
+    public void testFindByTaskCodeAfterDelete() {
+        Path path = directory.resolve("logs.csv");
+        LogDataAccess logDataAccess = new LogDataAccess(path.toString());
+        try {
+            logDataAccess.save(new Log(1, 1, 0, LocalDate.of(2024, 1, 10)));
+            logDataAccess.save(new Log(2, 1, 0, LocalDate.of(2024, 1, 10)));
+            logDataAccess.save(new Log(3, 1, 0, LocalDate.of(2024, 1, 10)));
+            logDataAccess.save(new Log(2, 2, 1, LocalDate.of(2024, 1, 11)));
+            logDataAccess.save(new Log(3, 2, 2, LocalDate.of(2024, 1, 12)));
+
+            logDataAccess.deleteByTaskCode(2);
+
+            assertThat(logDataAccess.findByTaskCode(2)).isEmpty();
+            assertThat(logDataAccess.findByTaskCode(1)).extracting(Log::getStatus).containsExactly(0);
+            assertThat(logDataAccess.findByTaskCode(3)).extracting(Log::getStatus).containsExactly(0, 2);
+            assertThat(logDataAccess.findByTaskCode(3)).extracting(Log::getChangeDate)
+                    .containsExactly(LocalDate.of(2024, 1, 10), LocalDate.of(2024, 1, 12));
+        } finally {
+            logDataAccess.close();
+        }
+    }
+
+    /**
+     * CSVの内容から、指定したタスクコードの行の先頭位置を求めます。
+     */
+    private static long[] offsetsOf(String content, int code) {
+        List<Long> offsets = new ArrayList<>();
+        long offset = 0;
+        for (String line : content.split("\n")) {
+            if (line.startsWith(code + ",")) {
+                offsets.add(offset);
+            }
+            offset += line.getBytes(StandardCharsets.UTF_8).length + 1;
+        }
+        return offsets.stream().mapToLong(Long::longValue).toArray();
+    }
+}
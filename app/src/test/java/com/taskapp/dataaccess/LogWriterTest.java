@@ -0,0 +1,149 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.taskapp.metrics.Counter;
+import com.taskapp.metrics.MetricsRegistry;
+
+public class LogWriterTest {
+    private static final Counter BATCHES = MetricsRegistry.global().counter(LogWriter.BATCHES_METRIC);
+
+    private static final Counter FSYNCS = MetricsRegistry.global().counter(LogWriter.FSYNCS_METRIC);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testBatchesAppendsWithinInterval() throws IOException {
+        Path path = directory.resolve("logs.csv");
+        long batches = BATCHES.get();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        try (LogWriter writer = new LogWriter(path, 200, 5, false, new LogIndex(path))) {
+            for (int i = 1; i <= 12; i++) {
+                futures.add(writer.append(i, i + ",1,0,2024-01-10"));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        }
+
+        // 書き込み間隔の間に届いた行は最大件数ずつまとめて書き込まれる
+        assertThat(BATCHES.get() - batches).isEqualTo(3);
+        List<String> lines = Files.readAllLines(path);
+        assertThat(lines).hasSize(12);
+        for (int i = 1; i <= 12; i++) {
+            assertThat(lines.get(i - 1)).isEqualTo(i + ",1,0,2024-01-10");
+        }
+    }
+
+    @Test
+    public void testFuturePerEntry() {
+        Path path = directory.resolve("logs.csv");
+        try (LogWriter writer = new LogWriter(path, 2, 256, false, new LogIndex(path))) {
+            CompletableFuture<Void> single = writer.append(1, "1,1,0,2024-01-10");
+            CompletableFuture<Void> multiple = writer.appendAll(new int[] { 2, 3 },
+                    new String[] { "2,1,0,2024-01-10", "3,1,0,2024-01-10" });
+
+            assertThat(single.join()).isNull();
+            assertThat(multiple.join()).isNull();
+        }
+
+        // 書き込みに失敗した場合は、その行のFutureが例外で完了する
+        try (LogWriter writer = new LogWriter(directory, 2, 256, false, new LogIndex(directory))) {
+            CompletableFuture<Void> failed = writer.append(1, "1,1,0,2024-01-10");
+
+            assertThatThrownBy(failed::join).isInstanceOf(CompletionException.class);
+            assertThat(failed.isCompletedExceptionally()).isTrue();
+        }
+    }
+
+    @Test
+    public void testFsyncOncePerBatch() {
+        Path path = directory.resolve("logs.csv");
+        long batches = BATCHES.get();
+        long fsyncs = FSYNCS.get();
+        try (LogWriter writer = new LogWriter(path, 2, 256, true, new LogIndex(path))) {
+            writer.append(1, "1,1,0,2024-01-10").join();
+            writer.append(2, "2,1,0,2024-01-10").join();
+        }
+        assertThat(FSYNCS.get() - fsyncs).isEqualTo(BATCHES.get() - batches).isEqualTo(2);
+
+        fsyncs = FSYNCS.get();
+        try (LogWriter writer = new LogWriter(path, 2, 256, false, new LogIndex(path))) {
+            writer.append(3, "3,1,0,2024-01-10").join();
+        }
+        assertThat(FSYNCS.get() - fsyncs).isZero();
+    }
+
+    @Test
+    public void testCloseDrainsQueuedEntries() throws IOException {
+        Path path = directory.resolve("logs.csv");
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        LogWriter writer = new LogWriter(path, 10_000, 256, false, new LogIndex(path));
+        for (int i = 1; i <= 3; i++) {
+            futures.add(writer.append(i, i + ",1,0,2024-01-10"));
+        }
+
+        // 書き込み間隔を待たずに、キューに残っている行を書き込んでから終了する
+        long start = System.nanoTime();
+        writer.close();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(5_000);
+
+        for (CompletableFuture<Void> future : futures) {
+            assertThat(future.isDone()).isTrue();
+            assertThat(future.isCompletedExceptionally()).isFalse();
+        }
+        assertThat(Files.readAllLines(path)).hasSize(3);
+        assertThatThrownBy(writer.append(4, "4,1,0,2024-01-10")::join).hasCauseInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void testAppendRacingCloseNeverHangs() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int round = 0; round < 20; round++) {
+                Path path = directory.resolve("logs" + round + ".csv");
+                LogWriter writer = new LogWriter(path, 1, 16, false, new LogIndex(path));
+                List<Future<List<CompletableFuture<Void>>>> appenders = new ArrayList<>();
+                for (int t = 0; t < 4; t++) {
+                    appenders.add(executor.submit(() -> {
+                        List<CompletableFuture<Void>> futures = new ArrayList<>();
+                        for (int i = 0; i < 200; i++) {
+                            futures.add(writer.append(i, i + ",1,0,2024-01-10"));
+                        }
+                        return futures;
+                    }));
+                }
+                writer.close();
+
+                // 終了と重なった行も、書き込まれるか例外で完了するかのどちらかになる
+                int written = 0;
+                for (Future<List<CompletableFuture<Void>>> appender : appenders) {
+                    for (CompletableFuture<Void> future : appender.get(10, TimeUnit.SECONDS)) {
+                        assertThat(future.isDone()).isTrue();
+                        if (!future.isCompletedExceptionally()) {
+                            written++;
+                        }
+                    }
+                }
+                assertThat(Files.exists(path) ? Files.readAllLines(path).size() : 0).isEqualTo(written);
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+}
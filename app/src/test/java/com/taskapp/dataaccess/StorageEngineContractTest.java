@@ -0,0 +1,170 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.taskapp.model.Log;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * 全ての{@link StorageEngine}が満たすべき振る舞いのテストです。
+ * エンジンごとにこのクラスを継承し、{@link #createEngine(Path)}を実装します。
+ */
+public abstract class StorageEngineContractTest {
+    private static final String TEST_FILE_PATH_USER = "src/test/resources/test_users.csv";
+
+    @TempDir
+    Path directory;
+
+    private StorageEngine engine;
+
+    private User repUser;
+
+    /**
+     * タスク・ログが1件もない状態のエンジンを作成します。
+     * users.csvは作成済みのディレクトリが渡されます。
+     *
+     * @param directory データファイルを置くディレクトリ
+     * @return 作成したエンジン
+     * @throws IOException ファイルの準備に失敗した場合
+     */
+    protected abstract StorageEngine createEngine(Path directory) throws IOException;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Files.copy(Paths.get(TEST_FILE_PATH_USER), directory.resolve("users.csv"));
+        engine = createEngine(directory);
+        repUser = engine.users().findByCode(1);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        engine.logs().close();
+    }
+
+    @Test
+    public void testFindUser() {
+        User user = engine.users().findByCode(1);
+
+        assertThat(user).isNotNull();
+        assertThat(engine.users().findByEmailAndPassword(user.getEmail(), user.getPassword())).isEqualTo(user);
+        assertThat(engine.users().findByEmailAndPassword(user.getEmail(), "wrong")).isNull();
+    }
+
+    @Test
+    public void testSaveAndFindByCode() {
+        engine.tasks().save(new Task(1, "Task 1", 0, repUser));
+        engine.tasks().save(new Task(2, "タスク,\"2\"", 1, repUser));
+
+        Task found = engine.tasks().findByCode(2);
+
+        assertThat(found.getCode()).isEqualTo(2);
+        assertThat(found.getName()).isEqualTo("タスク,\"2\"");
+        assertThat(found.getStatus()).isEqualTo(1);
+        assertThat(found.getRepUser()).isEqualTo(repUser);
+        assertThat(engine.tasks().findByCode(3)).isNull();
+    }
+
+    @Test
+    public void testUpdate() {
+        engine.tasks().save(new Task(1, "Task 1", 0, repUser));
+        engine.tasks().save(new Task(2, "Task 2", 0, repUser));
+
+        engine.tasks().update(new Task(1, "Task 1", 1, repUser));
+        engine.tasks().update(new Task(2, "Updated Task 2", 2, repUser));
+        engine.tasks().update(new Task(3, "Task 3", 0, repUser));
+
+        List<Task> tasks = engine.tasks().findAll();
+        assertThat(tasks).extracting(Task::getCode).containsExactly(1, 2);
+        assertThat(tasks).extracting(Task::getName).containsExactly("Task 1", "Updated Task 2");
+        assertThat(tasks).extracting(Task::getStatus).containsExactly(1, 2);
+        assertThat(engine.tasks().findByCode(2).getName()).isEqualTo("Updated Task 2");
+    }
+
+    @Test
+    public void testSaveAll() {
+        engine.tasks().save(new Task(1, "Task 1", 0, repUser));
+        engine.tasks().saveAll(List.of(new Task(2, "Task 2", 0, repUser), new Task(3, "Task 3", 1, repUser)));
+        engine.logs().saveAll(List.of(new Log(2, 1, 0, LocalDate.of(2024, 1, 1)),
+                new Log(3, 1, 1, LocalDate.of(2024, 1, 1))));
+
+        assertThat(engine.tasks().findAll()).extracting(Task::getCode).containsExactly(1, 2, 3);
+        assertThat(engine.tasks().findByCode(3).getStatus()).isEqualTo(1);
+        assertThat(engine.logs().findByTaskCode(3)).extracting(Log::getStatus).containsExactly(1);
+    }
+
+    @Test
+    public void testFindPage() {
+        User otherUser = engine.users().findByCode(2);
+        engine.tasks().save(new Task(5, "Task 5", 0, repUser));
+        engine.tasks().save(new Task(3, "Task 3", 0, otherUser));
+        engine.tasks().save(new Task(1, "Task 1", 0, repUser));
+        engine.tasks().save(new Task(4, "Task 4", 1, repUser));
+        engine.tasks().save(new Task(2, "Task 2", 0, repUser));
+        engine.tasks().update(new Task(4, "Task 4 renamed", 0, repUser));
+
+        TaskQuery query = new TaskQuery().status(0).repUserCode(1).limit(2);
+        TaskPage first = engine.tasks().find(query);
+        assertThat(first.getTasks()).extracting(Task::getCode).containsExactly(1, 2);
+        assertThat(first.getTasks()).extracting(Task::getRepUser).containsOnly(repUser);
+        assertThat(first.hasNext()).isTrue();
+
+        TaskPage second = engine.tasks().find(query.after(first.getNextCursor()));
+        assertThat(second.getTasks()).extracting(Task::getCode).containsExactly(4, 5);
+        assertThat(second.getTasks()).extracting(Task::getName).containsExactly("Task 4 renamed", "Task 5");
+        assertThat(second.hasNext()).isFalse();
+
+        TaskPage other = engine.tasks().find(new TaskQuery().repUserCode(2));
+        assertThat(other.getTasks()).extracting(Task::getName).containsExactly("Task 3");
+        assertThat(engine.tasks().find(new TaskQuery().status(2)).getTasks()).isEmpty();
+    }
+
+    @Test
+    public void testPersistence() throws IOException {
+        engine.tasks().save(new Task(1, "Task 1", 0, repUser));
+        engine.tasks().update(new Task(1, "Task 1 renamed", 1, repUser));
+        engine.logs().save(new Log(1, 1, 1, LocalDate.of(2024, 1, 2)));
+        engine.logs().close();
+
+        StorageEngine reopened = createEngine(directory);
+        try {
+            Task task = reopened.tasks().findByCode(1);
+            assertThat(task.getName()).isEqualTo("Task 1 renamed");
+            assertThat(task.getStatus()).isEqualTo(1);
+            assertThat(reopened.logs().findAll()).extracting(Log::getChangeDate)
+                    .containsExactly(LocalDate.of(2024, 1, 2));
+        } finally {
+            reopened.logs().close();
+        }
+    }
+
+    @Test
+    public void testLogs() {
+        engine.logs().save(new Log(1, 1, 0, LocalDate.of(2024, 1, 1)));
+        engine.logs().save(new Log(2, 2, 0, LocalDate.of(2024, 1, 2)));
+        engine.logs().save(new Log(1, 1, 1, LocalDate.of(2024, 1, 3)));
+
+        List<Log> logs = engine.logs().findByTaskCode(1);
+        assertThat(logs).extracting(Log::getStatus).containsExactly(0, 1);
+        assertThat(logs).extracting(Log::getChangeDate)
+                .containsExactly(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 3));
+        assertThat(engine.logs().findAll()).extracting(Log::getTaskCode).containsExactly(1, 2, 1);
+
+        engine.logs().deleteByTaskCode(1);
+
+        assertThat(engine.logs().findAll()).extracting(Log::getTaskCode).containsExactly(2);
+        assertThat(engine.logs().findByTaskCode(1)).isEmpty();
+    }
+}
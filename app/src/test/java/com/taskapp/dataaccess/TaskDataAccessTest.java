@@ -9,14 +9,22 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
+import com.taskapp.metrics.IoMetrics;
+import com.taskapp.metrics.MetricsRegistry;
 import com.taskapp.model.Task;
 import com.taskapp.model.User;
 
@@ -129,6 +137,235 @@ public class TaskDataAccessTest {
         assertThat(tasks).doesNotContain(task2);
     }
 
+    @Test
+    public void testUpdateSameLengthInPlace() throws IOException {
+        Path path = Paths.get(TEST_FILE_PATH);
+        long size = Files.size(path);
+
+        taskDataAccess.update(new Task(3, "taskC", 1, userDataAccess.findByCode(2)));
+
+        // 同じバイト数の行は元の位置に上書きされ、ファイルは伸びない
+        assertThat(Files.size(path)).isEqualTo(size);
+        assertThat(Files.readAllLines(path)).containsExactly("Code,Name,Status,Rep_User_Code", "1,taskA,0,1",
+                "2,taskB,0,2", "3,taskC,1,2", "4,taskD,1,2");
+        assertThat(taskDataAccess.findByCode(3).getStatus()).isEqualTo(1);
+        assertThat(taskDataAccess.findAll().get(2).getStatus()).isEqualTo(1);
+    }
+
+    @Test
+    public void testWriteTaskWithoutRepUser() throws IOException {
+        Path path = Paths.get(TEST_FILE_PATH);
+        Files.write(path, "\n9,orphan,0,99\n".getBytes(), StandardOpenOption.APPEND);
+        Task orphan = taskDataAccess.findByCode(9);
+        assertThat(orphan.getRepUser()).isNull();
+
+        // 担当ユーザーが見つからないタスクを更新しても、元の担当ユーザーコードを引き継ぐ
+        orphan.setStatus(1);
+        taskDataAccess.update(orphan);
+        assertThat(Files.readAllLines(path).get(5)).isEqualTo("9,orphan,1,99");
+
+        taskDataAccess.save(new Task(10, "nobody", 0, null));
+        assertThat(Files.readAllLines(path).get(6)).isEqualTo("10,nobody,0," + TaskDataAccess.NO_REP_USER);
+        assertThat(taskDataAccess.findByCode(10).getRepUser()).isNull();
+        assertThat(taskDataAccess.findAll()).extracting(Task::getStatus).containsExactly(0, 0, 2, 1, 1, 0);
+    }
+
+    @Test
+    public void testUpdateDifferentLengthAppends() throws IOException {
+        Path path = Paths.get(TEST_FILE_PATH);
+        long size = Files.size(path);
+
+        taskDataAccess.update(new Task(2, "Renamed taskB", 1, userDataAccess.findByCode(2)));
+
+        // バイト数が変わる行は末尾に追記され、元の行は古い行として残る
+        List<String> lines = Files.readAllLines(path);
+        assertThat(Files.size(path)).isGreaterThan(size);
+        assertThat(lines).hasSize(6);
+        assertThat(lines.get(2)).isEqualTo("2,taskB,0,2");
+        assertThat(lines.get(5)).isEqualTo("2,Renamed taskB,1,2");
+
+        Task found = taskDataAccess.findByCode(2);
+        assertThat(found.getName()).isEqualTo("Renamed taskB");
+        assertThat(found.getStatus()).isEqualTo(1);
+        List<Task> tasks = taskDataAccess.findAll();
+        assertThat(tasks).hasSize(4);
+        assertThat(tasks.get(1).getName()).isEqualTo("Renamed taskB");
+        assertThat(tasks.get(1).getStatus()).isEqualTo(1);
+    }
+
+    @Test
+    public void testFindAllAfterFileGrows() throws IOException {
+        assertThat(taskDataAccess.findAll()).hasSize(4);
+
+        // 他のプロセスによる追記を想定し、DataAccessを経由せずに書き込む
+        Files.writeString(Paths.get(TEST_FILE_PATH), System.lineSeparator() + "5,\"Task,5\",1,1",
+                StandardOpenOption.APPEND);
+
+        List<Task> tasks = taskDataAccess.findAll();
+        assertThat(tasks).hasSize(5);
+        assertThat(tasks.get(4).getName()).isEqualTo("Task,5");
+    }
+
+    @Test
+    public void testCompact() throws IOException {
+        User repUser = new User(1, "鈴木一郎", "test1@example.com", "password1");
+        taskDataAccess.update(new Task(1, "Updated Task 1", 1, repUser));
+        taskDataAccess.update(new Task(2, "Updated Task 2", 2, repUser));
+        Files.writeString(Paths.get(TEST_FILE_PATH), System.lineSeparator() + "3,taskC,2,com.taskapp.model.User@1",
+                StandardOpenOption.APPEND);
+        List<Task> before = taskDataAccess.findAll();
+
+        taskDataAccess.compact();
+
+        List<String> lines = Files.readAllLines(Paths.get(TEST_FILE_PATH));
+        assertThat(lines).containsExactly("Code,Name,Status,Rep_User_Code", "1,Updated Task 1,1,1",
+                "2,Updated Task 2,2,1", "3,taskC,2,2", "4,taskD,1,2");
+        assertThat(taskDataAccess.findAll()).isEqualTo(before);
+        assertThat(taskDataAccess.findByCode(2).getName()).isEqualTo("Updated Task 2");
+    }
+
+    @Test
+    public void testCompactInBackground() throws Exception {
+        User repUser = new User(1, "鈴木一郎", "test1@example.com", "password1");
+        TaskDataAccess compacting = new TaskDataAccess(TEST_FILE_PATH, userDataAccess, 0.5, 10);
+
+        for (int i = 0; i < 20; i++) {
+            compacting.update(new Task(1, "Task 1 " + i, 0, repUser));
+        }
+
+        // 古い行が閾値を超えたため、バックグラウンドで詰め直される
+        long deadline = System.currentTimeMillis() + 5000;
+        while (Files.readAllLines(Paths.get(TEST_FILE_PATH)).size() > 10 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(Files.readAllLines(Paths.get(TEST_FILE_PATH)).size()).isLessThanOrEqualTo(10);
+        assertThat(compacting.findByCode(1).getName()).isEqualTo("Task 1 19");
+        assertThat(compacting.findAll()).hasSize(4);
+    }
+
+    @Test
+    public void testConcurrentUpdate() throws Exception {
+        User repUser = new User(1, "鈴木一郎", "test1@example.com", "password1");
+        int threads = 8;
+        int tasksPerThread = 25;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int first = 100 + t * tasksPerThread;
+                futures.add(executor.submit(() -> {
+                    for (int code = first; code < first + tasksPerThread; code++) {
+                        taskDataAccess.save(new Task(code, "Task " + code, 0, repUser));
+                    }
+                    for (int status = 1; status <= 2; status++) {
+                        for (int code = first; code < first + tasksPerThread; code++) {
+                            Task task = taskDataAccess.findByCode(code);
+                            // 名前の長さを変えて、上書きではなく追記になる更新も混ぜる
+                            taskDataAccess.update(new Task(code, task.getName() + "!", status, repUser));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+
+        // Taskのequalsはコードのみを比較するため、名前とステータスは個別に確認する
+        for (TaskDataAccess dataAccess : List.of(taskDataAccess, new TaskDataAccess(TEST_FILE_PATH, userDataAccess))) {
+            List<Task> tasks = dataAccess.findAll();
+            assertThat(tasks).hasSize(4 + threads * tasksPerThread);
+            for (Task task : tasks.subList(4, tasks.size())) {
+                assertThat(task.getName()).isEqualTo("Task " + task.getCode() + "!!");
+                assertThat(task.getStatus()).isEqualTo(2);
+            }
+        }
+    }
+
+    @Test
+    public void testFindAllAfterWritesDoesNotRereadFile() {
+        User repUser = userDataAccess.findByCode(1);
+        assertThat(taskDataAccess.findAll()).hasSize(4);
+
+        taskDataAccess.update(new Task(1, "taskA", 2, repUser));
+        taskDataAccess.update(new Task(2, "Renamed taskB", 1, repUser));
+        taskDataAccess.save(new Task(5, "taskE", 0, repUser));
+        long read = MetricsRegistry.global().counter(IoMetrics.BYTES_READ).get();
+        List<Task> tasks = taskDataAccess.findAll();
+
+        // 書き込みはスナップショットに反映済みのため、ファイルを読み直さない
+        assertThat(MetricsRegistry.global().counter(IoMetrics.BYTES_READ).get() - read).isZero();
+        assertThat(tasks).hasSize(5);
+        assertThat(tasks.get(0).getStatus()).isEqualTo(2);
+        assertThat(tasks.get(1).getName()).isEqualTo("Renamed taskB");
+        assertThat(tasks.get(4).getName()).isEqualTo("taskE");
+        assertThat(new TaskDataAccess(TEST_FILE_PATH, userDataAccess).findAll()).isEqualTo(tasks);
+    }
+
+    @Test
+    public void testFindAllDuringSameCodeUpdates() throws Exception {
+        User repUser = userDataAccess.findByCode(1);
+        int threads = 8;
+        int updatesPerThread = 100;
+        taskDataAccess.findAll();
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        try {
+            Future<Integer> reader = executor.submit(() -> {
+                int reads = 0;
+                while (writing.get()) {
+                    List<Task> tasks = taskDataAccess.findAll();
+                    assertThat(tasks).extracting(Task::getCode).containsExactly(1, 2, 3, 4);
+                    assertConsistent(tasks.get(0));
+                    reads++;
+                }
+                return reads;
+            });
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                writers.add(executor.submit(() -> {
+                    for (int i = 0; i < updatesPerThread; i++) {
+                        // 同じコードに、上書きになる更新と追記になる更新を混ぜる
+                        int status = (thread + i) % 3;
+                        String suffix = "!".repeat(i % 3);
+                        taskDataAccess.update(new Task(1, "task " + status + suffix, status, repUser));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+            writing.set(false);
+            assertThat(reader.get()).isPositive();
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+
+        Task latest = taskDataAccess.findByCode(1);
+        assertConsistent(latest);
+        for (TaskDataAccess dataAccess : List.of(taskDataAccess, new TaskDataAccess(TEST_FILE_PATH, userDataAccess))) {
+            Task task = dataAccess.findAll().get(0);
+            assertThat(task.getName()).isEqualTo(latest.getName());
+            assertThat(task.getStatus()).isEqualTo(latest.getStatus());
+        }
+    }
+
+    /**
+     * 名前とステータスが同じ更新で書き込まれたものであることを確認します。
+     */
+    private static void assertConsistent(Task task) {
+        if (!task.getName().equals("taskA")) {
+            assertThat(task.getName()).startsWith("task " + task.getStatus());
+        }
+    }
+
     private List<Task> readTasksFromFile(String filePath) {
         List<Task> tasks = new ArrayList<>();
         try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
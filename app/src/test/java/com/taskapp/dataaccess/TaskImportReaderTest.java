@@ -0,0 +1,53 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TaskImportReaderTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testReadInChunks() throws IOException {
+        StringBuilder csv = new StringBuilder("Code,Name,Status,Rep_User_Code\n");
+        for (int i = 1; i <= 100; i++) {
+            csv.append(i).append(',').append(i % 10 == 0 ? "\"Task\n" + i + "\"" : "Task " + i).append(",0,1\n");
+        }
+        Path path = directory.resolve("import.csv");
+        Files.write(path, csv.toString().getBytes(StandardCharsets.UTF_8));
+
+        // 改行を含む列の途中で分割されないよう、小さいチャンクに分けて読み込む
+        List<TaskImportReader.Row> rows = new TaskImportReader(path, 16).read(ForkJoinPool.commonPool());
+
+        assertThat(rows).hasSize(100);
+        assertThat(rows).extracting(TaskImportReader.Row::getError).containsOnlyNulls();
+        for (int i = 0; i < rows.size(); i++) {
+            assertThat(rows.get(i).getCode()).isEqualTo(i + 1);
+        }
+        assertThat(rows.get(9).getName()).isEqualTo("Task\n10");
+        assertThat(rows.get(10).getName()).isEqualTo("Task 11");
+    }
+
+    @Test
+    public void testReadMalformedRows() throws IOException {
+        Path path = directory.resolve("import.csv");
+        Files.write(path, "1,Task 1,0,1\nx,Task 2,0,1\n3,Task 3,done,1\n".getBytes(StandardCharsets.UTF_8));
+
+        List<TaskImportReader.Row> rows = new TaskImportReader(path).read(ForkJoinPool.commonPool());
+
+        assertThat(rows).hasSize(3);
+        assertThat(rows.get(0).getError()).isNull();
+        assertThat(rows.get(0).getRepUserCode()).isEqualTo(1);
+        assertThat(rows.get(1).getError()).isNotNull();
+        assertThat(rows.get(2).getError()).isNotNull();
+    }
+}
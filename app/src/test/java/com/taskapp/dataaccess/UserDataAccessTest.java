@@ -2,9 +2,15 @@ package com.taskapp.dataaccess;
 
 import static org.assertj.core.api.Assertions.*;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import com.taskapp.model.User;
 
@@ -12,6 +18,9 @@ public class UserDataAccessTest {
     private static final String TEST_FILE_PATH = "src/test/resources/test_users.csv";
     private UserDataAccess userDataAccess;
 
+    @TempDir
+    Path tempDir;
+
     @BeforeEach
     public void setUp() {
         userDataAccess = new UserDataAccess(TEST_FILE_PATH);
@@ -35,4 +44,51 @@ public class UserDataAccessTest {
 
         assertThat(actualUser).isEqualToComparingFieldByField(expectedUser);
     }
+
+    @Test
+    public void testFindByEmailAndPasswordWithSharedEmail() throws Exception {
+        Path path = tempDir.resolve("users.csv");
+        Files.write(path, ("Code,Name,Email,Password\n1,鈴木一郎,shared@example.com,password1\n"
+                + "2,鈴木二郎,shared@example.com,password2\n").getBytes(StandardCharsets.UTF_8));
+        UserDataAccess dataAccess = new UserDataAccess(path.toString(), new UserCache(10));
+
+        assertThat(dataAccess.findByEmailAndPassword("shared@example.com", "password1").getCode()).isEqualTo(1);
+        assertThat(dataAccess.findByEmailAndPassword("shared@example.com", "password2").getCode()).isEqualTo(2);
+        assertThat(dataAccess.findByEmailAndPassword("shared@example.com", "password3")).isNull();
+    }
+
+    @Test
+    public void testReloadSharesUnchangedUsers() throws Exception {
+        Path path = tempDir.resolve("users.csv");
+        Files.write(path, ("Code,Name,Email,Password\n1,鈴木一郎,test1@example.com,password1\n"
+                + "2,鈴木二郎,test2@example.com,password2\n").getBytes(StandardCharsets.UTF_8));
+        UserCache cache = new UserCache(10);
+        UserDataAccess dataAccess = new UserDataAccess(path.toString(), cache);
+        User first = dataAccess.findByCode(1);
+        User second = dataAccess.findByCode(2);
+
+        // 索引に使われない重複した行を追記して、読み込み直させる
+        Files.write(path, "2,鈴木二郎,test2@example.com,changed\n".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        assertThat(dataAccess.findByCode(1)).isSameAs(first);
+        assertThat(dataAccess.findByCode(2)).isSameAs(second);
+        assertThat(new UserDataAccess(path.toString(), cache).findByCode(1)).isSameAs(first);
+        assertThat(cache.hitCount()).isEqualTo(4);
+        assertThat(cache.missCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testUserCacheEvictsLeastRecentlyUsed() {
+        UserCache cache = new UserCache(2);
+        User first = cache.intern(new User(1, "a", "a@example.com", "a"));
+        cache.intern(new User(2, "b", "b@example.com", "b"));
+        cache.intern(new User(1, "a", "a@example.com", "a"));
+        cache.intern(new User(3, "c", "c@example.com", "c"));
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.evictionCount()).isEqualTo(1);
+        assertThat(cache.intern(new User(1, "a", "a@example.com", "a"))).isSameAs(first);
+        assertThat(cache.intern(new User(1, "a", "a@example.com", "new"))).isNotSameAs(first);
+    }
 }
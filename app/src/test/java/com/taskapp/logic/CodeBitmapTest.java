@@ -0,0 +1,71 @@
+package com.taskapp.logic;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+public class CodeBitmapTest {
+
+    @Test
+    public void testAddRemoveContains() {
+        CodeBitmap bitmap = new CodeBitmap();
+
+        assertThat(bitmap.add(70000)).isTrue();
+        assertThat(bitmap.add(3)).isTrue();
+        assertThat(bitmap.add(3)).isFalse();
+
+        assertThat(bitmap.contains(3)).isTrue();
+        assertThat(bitmap.contains(4)).isFalse();
+        assertThat(bitmap.toArray()).containsExactly(3, 70000);
+
+        assertThat(bitmap.remove(70000)).isTrue();
+        assertThat(bitmap.remove(70000)).isFalse();
+        assertThat(bitmap.cardinality()).isEqualTo(1);
+        assertThat(bitmap.remove(3)).isTrue();
+        assertThat(bitmap.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void testDenseContainer() {
+        CodeBitmap bitmap = new CodeBitmap();
+        // 配列コンテナの上限を超えてビットマップコンテナに切り替わる
+        IntStream.range(0, 10000).forEach(bitmap::add);
+
+        assertThat(bitmap.cardinality()).isEqualTo(10000);
+        assertThat(bitmap.toArray()).containsExactly(IntStream.range(0, 10000).toArray());
+
+        IntStream.range(0, 9000).forEach(bitmap::remove);
+
+        assertThat(bitmap.toArray()).containsExactly(IntStream.range(9000, 10000).toArray());
+    }
+
+    @Test
+    public void testAnd() {
+        Random random = new Random(1);
+        CodeBitmap left = new CodeBitmap();
+        CodeBitmap right = new CodeBitmap();
+        TreeSet<Integer> expected = new TreeSet<>();
+        TreeSet<Integer> rightCodes = new TreeSet<>();
+        for (int i = 0; i < 20000; i++) {
+            rightCodes.add(random.nextInt(200000));
+        }
+        rightCodes.forEach(right::add);
+        for (int i = 0; i < 50000; i++) {
+            int code = random.nextInt(200000);
+            left.add(code);
+            if (rightCodes.contains(code)) {
+                expected.add(code);
+            }
+        }
+
+        CodeBitmap result = left.and(right);
+
+        assertThat(result.toArray()).containsExactly(expected.stream().mapToInt(Integer::intValue).toArray());
+        assertThat(left.andCardinality(right)).isEqualTo(expected.size());
+        assertThat(right.cardinality()).isEqualTo(rightCodes.size());
+    }
+}
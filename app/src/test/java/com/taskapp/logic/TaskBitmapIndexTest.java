@@ -0,0 +1,36 @@
+package com.taskapp.logic;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.taskapp.dataaccess.TaskQuery;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+public class TaskBitmapIndexTest {
+    @Test
+    public void testTasksWithoutRepUserAreCountedByStatus() {
+        User user = new User(1, "鈴木一郎", "test1@example.com", "password1");
+        TaskBitmapIndex index = new TaskBitmapIndex(List.of(
+                new Task(1, "taskA", 0, user),
+                new Task(2, "taskB", 0, null),
+                new Task(3, "taskC", 2, null)));
+
+        // 担当ユーザーが見つからないタスクも、ステータスでの絞り込みと件数に含まれる
+        assertThat(index.count(TaskQuery.ANY, TaskQuery.ANY)).isEqualTo(3);
+        assertThat(index.count(0, TaskQuery.ANY)).isEqualTo(2);
+        assertThat(index.select(0, TaskQuery.ANY).toArray()).containsExactly(1, 2);
+        assertThat(index.select(TaskQuery.ANY, TaskQuery.ANY).toArray()).containsExactly(1, 2, 3);
+        assertThat(index.count(TaskQuery.ANY, 1)).isEqualTo(1);
+        assertThat(index.count(0, 1)).isEqualTo(1);
+        assertThat(index.contains(3)).isTrue();
+
+        index.changeStatus(2, 0, 1);
+
+        assertThat(index.count(0, TaskQuery.ANY)).isEqualTo(1);
+        assertThat(index.count(1, TaskQuery.ANY)).isEqualTo(1);
+    }
+}
@@ -4,17 +4,28 @@ import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import com.taskapp.dataaccess.Journal;
 import com.taskapp.dataaccess.LogDataAccess;
 import com.taskapp.dataaccess.TaskDataAccess;
+import com.taskapp.dataaccess.TaskPage;
+import com.taskapp.dataaccess.TaskQuery;
 import com.taskapp.dataaccess.UserDataAccess;
 import com.taskapp.exception.AppException;
 import com.taskapp.model.Log;
@@ -59,6 +70,123 @@ public class TaskLogicTest {
         assertThat(tasks).hasSize(2);
     }
 
+    @Test
+    public void testShowPage() {
+        User loginUser = new User(1, "John", "", "");
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(new Task(1, "Task 1", 1, loginUser));
+        tasks.add(new Task(3, "Task 3", 1, loginUser));
+        TaskQuery query = new TaskQuery().status(1).repUserCode(1).limit(2);
+        when(taskDataAccess.find(query)).thenReturn(new TaskPage(tasks, true));
+
+        TaskPage page = taskLogic.showPage(loginUser, query);
+
+        verify(taskDataAccess).find(query);
+        verify(taskDataAccess, never()).findAll();
+        assertThat(page.hasNext()).isTrue();
+        assertThat(page.getNextCursor()).isEqualTo(3);
+    }
+
+    @Test
+    public void testFindTaskCodes() throws AppException {
+        User loginUser = new User(1, "John", "", "");
+        User otherUser = new User(2, "Alice", "", "");
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(new Task(1, "Task 1", 0, loginUser));
+        tasks.add(new Task(2, "Task 2", 1, otherUser));
+        tasks.add(new Task(3, "Task 3", 1, loginUser));
+        when(taskDataAccess.findAll()).thenReturn(tasks);
+
+        assertThat(taskLogic.findTaskCodes(1, 1)).containsExactly(3);
+        assertThat(taskLogic.countTasks(1, TaskQuery.ANY)).isEqualTo(2);
+
+        when(userDataAccess.findByCode(2)).thenReturn(otherUser);
+        taskLogic.save(4, "Task 4", 2, loginUser);
+        when(taskDataAccess.findByCode(1)).thenReturn(new Task(1, "Task 1", 0, loginUser));
+        taskLogic.changeStatus(1, 1, loginUser);
+
+        assertThat(taskLogic.findTaskCodes(1, 1)).containsExactly(1, 3);
+        assertThat(taskLogic.findTaskCodes(0, TaskQuery.ANY)).containsExactly(4);
+        assertThat(taskLogic.countTasks(TaskQuery.ANY, 2)).isEqualTo(2);
+        assertThat(taskLogic.countTasks(TaskQuery.ANY, TaskQuery.ANY)).isEqualTo(4);
+        verify(taskDataAccess, times(1)).findAll();
+    }
+
+    @Test
+    public void testIndexIsRebuiltWhenTasksChangeElsewhere(@TempDir Path directory) throws IOException {
+        Path tasksPath = directory.resolve("tasks.csv");
+        Files.copy(Paths.get("src/test/resources/test_users.csv"), directory.resolve("users.csv"));
+        Files.writeString(tasksPath, "Code,Name,Status,Rep_User_Code\n1,Task 1,0,1\n");
+        Files.writeString(directory.resolve("logs.csv"), "Task_Code,Change_User_Code,Status,Change_Date\n");
+        UserDataAccess users = new UserDataAccess(directory.resolve("users.csv").toString());
+        LogDataAccess logs = new LogDataAccess(directory.resolve("logs.csv").toString());
+        try {
+            TaskLogic logic = new TaskLogic(new TaskDataAccess(tasksPath.toString(), users), logs, users);
+            assertThat(logic.findTaskCodes(0, TaskQuery.ANY)).containsExactly(1);
+
+            // 別のインスタンスが追記・更新した
+            TaskDataAccess other = new TaskDataAccess(tasksPath.toString(), users);
+            other.save(new Task(2, "Task 2", 0, users.findByCode(1)));
+            other.update(new Task(1, "Task 1", 1, users.findByCode(1)));
+            assertThat(logic.findTaskCodes(0, TaskQuery.ANY)).containsExactly(2);
+            assertThat(logic.findTaskCodes(1, TaskQuery.ANY)).containsExactly(1);
+
+            // ファイルが置き換えられた
+            Files.writeString(tasksPath, "Code,Name,Status,Rep_User_Code\n3,Task 3,2,1\n");
+            assertThat(logic.findTaskCodes(TaskQuery.ANY, TaskQuery.ANY)).containsExactly(3);
+        } finally {
+            logs.close();
+        }
+    }
+
+    @Test
+    public void testSaveAll() throws AppException {
+        User loginUser = new User(1, "John", "", "");
+        User repUser = new User(2, "Alice", "", "");
+        when(userDataAccess.findByCodes(Set.of(2))).thenReturn(Map.of(2, repUser));
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(new Task(1, "Task 1", 0, new User(2, null, null, null)));
+        tasks.add(new Task(2, "Task 2", 1, new User(2, null, null, null)));
+
+        assertThat(taskLogic.saveAll(tasks, loginUser)).isEqualTo(2);
+
+        verify(taskDataAccess).saveAll(argThat(saved -> saved.size() == 2 && saved.get(1).getRepUser() == repUser));
+        verify(logDataAccess).saveAll(argThat(logs -> logs.size() == 2 && logs.get(1).getStatus() == 1));
+        verify(taskDataAccess, never()).save(any(Task.class));
+    }
+
+    @Test
+    public void testSaveAllRejectsUnknownUser() {
+        User loginUser = new User(1, "John", "", "");
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(new Task(1, "Task 1", 0, new User(9, null, null, null)));
+
+        assertThatThrownBy(() -> taskLogic.saveAll(tasks, loginUser))
+                .isInstanceOf(AppException.class)
+                .hasMessageContaining("存在するユーザーコードを入力してください");
+        verify(taskDataAccess, never()).saveAll(anyList());
+        verify(logDataAccess, never()).saveAll(anyList());
+    }
+
+    @Test
+    public void testSaveAllRejectsExistingCode() {
+        User loginUser = new User(1, "John", "", "");
+        User repUser = new User(2, "Alice", "", "");
+        when(userDataAccess.findByCodes(Set.of(2))).thenReturn(Map.of(2, repUser));
+        when(taskDataAccess.findByCode(1)).thenReturn(new Task(1, "Task 1", 0, repUser));
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(new Task(1, "Task 1", 0, new User(2, null, null, null)));
+        tasks.add(new Task(2, "Task 2", 0, new User(2, null, null, null)));
+
+        // 登録済みかどうかは保存先のタスクで判定し、一覧用の索引は作らない
+        assertThatThrownBy(() -> taskLogic.saveAll(tasks, loginUser))
+                .isInstanceOf(AppException.class)
+                .hasMessageContaining("1件目：既に登録されているタスクコードです");
+        verify(taskDataAccess, never()).findAll();
+        verify(taskDataAccess, never()).saveAll(anyList());
+        verify(logDataAccess, never()).saveAll(anyList());
+    }
+
     @Tag("Q3")
     @Test
     public void testSave() throws AppException {
@@ -82,6 +210,30 @@ public class TaskLogicTest {
         verify(logDataAccess).save(any(Log.class));
     }
 
+    @Test
+    public void testFailedWriteIsReplayedOnRecovery(@TempDir Path directory) {
+        Path journalPath = directory.resolve("journal.wal");
+        Journal journal = new Journal(journalPath);
+        taskLogic = new TaskLogic(taskDataAccess, logDataAccess, userDataAccess, journal);
+        User loginUser = new User(1, "John", "", "");
+        User repUser = new User(2, "Alice", "", "");
+        when(userDataAccess.findByCode(2)).thenReturn(repUser);
+        doThrow(new UncheckedIOException(new IOException("disk full"))).when(taskDataAccess).save(any(Task.class));
+
+        assertThatThrownBy(() -> taskLogic.save(1, "Task 1", 2, loginUser))
+                .isInstanceOf(AppException.class)
+                .hasMessageContaining("変更を保存できませんでした");
+        verify(logDataAccess, never()).save(any(Log.class));
+        journal.close();
+
+        // 反映済みにしていないため、次回起動時に反映し直される
+        TaskDataAccess recoveredTasks = mock(TaskDataAccess.class);
+        LogDataAccess recoveredLogs = mock(LogDataAccess.class);
+        new Journal(journalPath).recover(recoveredTasks, recoveredLogs, userDataAccess);
+        verify(recoveredTasks).save(argThat(task -> task.getCode() == 1 && task.getRepUser() == repUser));
+        verify(recoveredLogs).save(argThat(log -> log.getTaskCode() == 1 && log.getChangeUserCode() == 1));
+    }
+
     @Tag("Q4")
     @Test
     public void testChangeStatus() throws AppException {
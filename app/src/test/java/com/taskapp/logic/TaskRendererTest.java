@@ -0,0 +1,72 @@
+package com.taskapp.logic;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+public class TaskRendererTest {
+    private final User user1 = new User(1, "鈴木一郎", "test1@example.com", "password1");
+    private final User user2 = new User(2, "鈴木二郎", "test2@example.com", "password2");
+
+    @Test
+    public void testText() {
+        String output = render(TaskRenderer.Format.TEXT,
+                List.of(new Task(1, "Task One", 0, user1), new Task(2, "Task Two", 2, null)));
+
+        assertThat(output).isEqualTo("タスク名：Task One, 担当者名：あなたが担当しています, ステータス：未着手"
+                + System.lineSeparator());
+    }
+
+    @Test
+    public void testTsvEscapesSeparators() {
+        String output = render(TaskRenderer.Format.TSV,
+                List.of(new Task(1, "a\tb\\c", 1, user2), new Task(2, "Task", 5, null)));
+
+        assertThat(output.split(System.lineSeparator())).containsExactly(
+                "1\ta\\tb\\\\c\t1\t着手中\t2\t鈴木二郎",
+                "2\tTask\t5\t不明\t\t");
+    }
+
+    @Test
+    public void testJsonLines() {
+        String output = render(TaskRenderer.Format.JSON_LINES,
+                List.of(new Task(1, "say \"hi\"", 2, user2), new Task(2, "Task", 0, null)));
+
+        assertThat(output.split(System.lineSeparator())).containsExactly(
+                "{\"code\":1,\"name\":\"say \\\"hi\\\"\",\"status\":2,\"statusLabel\":\"完了\","
+                        + "\"repUserCode\":2,\"repUserName\":\"鈴木二郎\"}",
+                "{\"code\":2,\"name\":\"Task\",\"status\":0,\"statusLabel\":\"未着手\","
+                        + "\"repUserCode\":null,\"repUserName\":null}");
+    }
+
+    @Test
+    public void testRenderLargerThanBuffer() {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            tasks.add(new Task(i, "Task" + i, i % 3, user2));
+        }
+
+        String output = render(TaskRenderer.Format.TSV, tasks);
+
+        String[] lines = output.split(System.lineSeparator());
+        assertThat(output.length()).isGreaterThan(TaskRenderer.FLUSH_THRESHOLD);
+        assertThat(lines).hasSize(10000);
+        assertThat(lines[9999]).isEqualTo("9999\tTask9999\t0\t未着手\t2\t鈴木二郎");
+    }
+
+    private String render(TaskRenderer.Format format, List<Task> tasks) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+        new TaskRenderer(out, format).render(tasks, user1);
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
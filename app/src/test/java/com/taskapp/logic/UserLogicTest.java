@@ -48,4 +48,37 @@ public class UserLogicTest {
         assertThat(result).isEqualToComparingFieldByField(user);
     }
 
+    @Test
+    public void testLoginWithSharedEmail() throws AppException {
+        User first = new User(1, "John", "shared@example.com", "password1");
+        User second = new User(2, "Jane", "shared@example.com", "password2");
+        when(userDataAccess.findByEmailAndPassword("shared@example.com", "password1")).thenReturn(first);
+        when(userDataAccess.findByEmailAndPassword("shared@example.com", "password2")).thenReturn(second);
+
+        // メールアドレスが同じでも、パスワードが一致するユーザーとしてログインできる
+        assertThat(userLogic.login("shared@example.com", "password1")).isSameAs(first);
+        assertThat(userLogic.login("shared@example.com", "password2")).isSameAs(second);
+        assertThat(userLogic.login("shared@example.com", "password1")).isSameAs(first);
+    }
+
+    @Test
+    public void testLoginRateLimit() throws AppException {
+        User user = new User(1, "John", "john@example.com", "password");
+        when(userDataAccess.findByEmailAndPassword("john@example.com", "password")).thenReturn(user);
+
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(() -> userLogic.login("192.0.2.1", " John@Example.com", "wrong"))
+                    .hasMessage("既に登録されているメールアドレス、パスワードを入力してください");
+        }
+
+        assertThatThrownBy(() -> userLogic.login("192.0.2.1", "john@example.com", "password"))
+                .isInstanceOf(AppException.class)
+                .hasMessage("ログインの失敗が続いたため、しばらくしてから再度お試しください");
+        verify(userDataAccess, never()).findByEmailAndPassword("john@example.com", "password");
+
+        // 失敗が続いたクライアント以外や、コンソールからのログインは制限しない
+        assertThat(userLogic.login("192.0.2.2", "john@example.com", "password")).isSameAs(user);
+        assertThat(userLogic.login("john@example.com", "password")).isSameAs(user);
+    }
+
 }
@@ -0,0 +1,80 @@
+package com.taskapp.metrics;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MetricsRegistryTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testSameNameReturnsSameInstance() {
+        MetricsRegistry registry = new MetricsRegistry();
+
+        assertThat(registry.counter("a")).isSameAs(registry.counter("a"));
+        assertThat(registry.histogram("a")).isSameAs(registry.histogram("a"));
+    }
+
+    @Test
+    public void testBucketsCoverAllValues() {
+        for (long value : new long[] { 0, 1, 31, 32, 33, 63, 64, 1000, 123_456_789L, Long.MAX_VALUE }) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            // 値はそのバケットの範囲に含まれ、1つ前のバケットの上限より大きい
+            assertThat(LatencyHistogram.upperBound(bucket)).isGreaterThanOrEqualTo(value);
+            if (bucket > 0) {
+                assertThat(LatencyHistogram.upperBound(bucket - 1)).isLessThan(value);
+            }
+        }
+    }
+
+    @Test
+    public void testPercentileWithinPrecision() {
+        LatencyHistogram histogram = new MetricsRegistry().histogram("latency");
+        Random random = new Random(1);
+        long[] values = new long[10000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1000 + random.nextInt(1_000_000);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        assertThat(histogram.count()).isEqualTo(values.length);
+        assertThat(histogram.max()).isEqualTo(values[values.length - 1]);
+        for (double percentile : new double[] { 50, 90, 99 }) {
+            long exact = values[(int) Math.ceil(values.length * percentile / 100) - 1];
+            assertThat(histogram.percentile(percentile))
+                    .isBetween(exact, exact + exact / LatencyHistogram.SUB_BUCKETS);
+        }
+    }
+
+    @Test
+    public void testJsonAndReset() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("io.fileOpens").add(3);
+        registry.histogram("dataaccess.tasks.findAll").record(2000);
+        Path path = tempDir.resolve("metrics.json");
+
+        registry.writeJson(path);
+
+        String json = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+        assertThat(json).startsWith("{\"counters\":{\"io.fileOpens\":3}")
+                .contains("\"dataaccess.tasks.findAll\":{\"count\":1,\"mean\":2000,")
+                .contains("\"max\":2000}");
+        assertThat(registry.report()).contains("io.fileOpens").contains("dataaccess.tasks.findAll");
+
+        registry.reset();
+
+        assertThat(registry.counter("io.fileOpens").get()).isZero();
+        assertThat(registry.histogram("dataaccess.tasks.findAll").count()).isZero();
+        assertThat(registry.report()).doesNotContain("dataaccess.tasks.findAll");
+    }
+}
@@ -0,0 +1,253 @@
+package com.taskapp.server;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.taskapp.dataaccess.CsvStorageEngine;
+import com.taskapp.dataaccess.StorageEngine;
+import com.taskapp.dataaccess.TaskPage;
+import com.taskapp.dataaccess.TaskQuery;
+import com.taskapp.logic.TaskLogic;
+import com.taskapp.logic.UserLogic;
+import com.taskapp.model.Log;
+
+public class TaskServerTest {
+    private static final String TEST_FILE_PATH_USER = "src/test/resources/test_users.csv";
+
+    @TempDir
+    Path directory;
+
+    private StorageEngine engine;
+
+    private TaskServer server;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Files.copy(Paths.get(TEST_FILE_PATH_USER), directory.resolve("users.csv"));
+        Files.writeString(directory.resolve("tasks.csv"), "Code,Name,Status,Rep_User_Code\n");
+        Files.writeString(directory.resolve("logs.csv"), "Task_Code,Change_User_Code,Status,Change_Date\n");
+        engine = new CsvStorageEngine(directory.toString());
+        server = new TaskServer(new InetSocketAddress("localhost", 0), new TaskLogic(engine),
+                new UserLogic(engine.users()));
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+        engine.logs().close();
+    }
+
+    @Test
+    public void testSessionOperations() throws Exception {
+        HttpResponse<String> login = post("/login", null, "email=test1%40example.com&password=password1");
+        assertThat(login.statusCode()).isEqualTo(200);
+        String token = login.body();
+
+        assertThat(post("/tasks", token, "code=1&name=Task+1&repUserCode=1").statusCode()).isEqualTo(200);
+        assertThat(post("/tasks", token, "code=2&name=Task+2&repUserCode=2").statusCode()).isEqualTo(200);
+        assertThat(post("/tasks/status", token, "code=1&status=1").statusCode()).isEqualTo(200);
+
+        HttpResponse<String> list = get("/tasks?mine=true", token);
+        assertThat(list.statusCode()).isEqualTo(200);
+        assertThat(list.body()).isEqualTo("タスク名：Task 1, 担当者名：あなたが担当しています, ステータス：着手中\n");
+
+        HttpResponse<String> invalid = post("/tasks/status", token, "code=1&status=1");
+        assertThat(invalid.statusCode()).isEqualTo(400);
+        assertThat(invalid.body()).isEqualTo("ステータスは、前のステータスより1つ先のもののみを選択してください");
+
+        assertThat(post("/logout", token, "").statusCode()).isEqualTo(200);
+        assertThat(get("/tasks", token).statusCode()).isEqualTo(401);
+    }
+
+    @Test
+    public void testConcurrentStatusChange() throws Exception {
+        String owner = post("/login", null, "email=test1%40example.com&password=password1").body();
+        int tasks = 10;
+        for (int code = 1; code <= tasks; code++) {
+            assertThat(post("/tasks", owner, "code=" + code + "&name=Task&repUserCode=1").statusCode()).isEqualTo(200);
+        }
+        int sessions = 16;
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < sessions; i++) {
+            String form = i % 2 == 0
+                    ? "email=test1%40example.com&password=password1"
+                    : "email=test2%40example.com&password=password2";
+            tokens.add(post("/login", null, form).body());
+        }
+
+        // 全てのセッションから同時に同じステータス変更を送っても、成功するのは1つだけ
+        ExecutorService executor = Executors.newFixedThreadPool(sessions);
+        try {
+            for (int code = 1; code <= tasks; code++) {
+                String form = "code=" + code + "&status=1";
+                CountDownLatch ready = new CountDownLatch(1);
+                List<Future<Integer>> responses = new ArrayList<>();
+                for (String token : tokens) {
+                    responses.add(executor.submit(() -> {
+                        ready.await();
+                        return post("/tasks/status", token, form).statusCode();
+                    }));
+                }
+                ready.countDown();
+                List<Integer> statuses = new ArrayList<>();
+                for (Future<Integer> response : responses) {
+                    statuses.add(response.get(10, TimeUnit.SECONDS));
+                }
+                assertThat(statuses.stream().filter(status -> status == 200).count()).isEqualTo(1);
+                assertThat(statuses.stream().filter(status -> status == 400).count()).isEqualTo(sessions - 1);
+                assertThat(engine.logs().findByTaskCode(code)).extracting(Log::getStatus).containsExactly(0, 1);
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testMissingParameters() throws Exception {
+        String token = post("/login", null, "email=test1%40example.com&password=password1").body();
+
+        HttpResponse<String> noCode = post("/tasks", token, "name=Task+1&repUserCode=1");
+        assertThat(noCode.statusCode()).isEqualTo(400);
+        assertThat(noCode.body()).isEqualTo("codeを入力してください");
+        assertThat(post("/tasks", token, "code=1&name=Task+1").statusCode()).isEqualTo(400);
+        assertThat(post("/tasks", token, "code=1&name=Task+1&repUserCode=1").statusCode()).isEqualTo(200);
+
+        HttpResponse<String> noStatus = post("/tasks/status", token, "code=1");
+        assertThat(noStatus.statusCode()).isEqualTo(400);
+        assertThat(noStatus.body()).isEqualTo("statusを入力してください");
+        assertThat(post("/tasks/status", token, "code=&status=1").statusCode()).isEqualTo(400);
+        assertThat(engine.logs().findByTaskCode(1)).extracting(Log::getStatus).containsExactly(0);
+    }
+
+    @Test
+    public void testSessionExpiresWhenIdle() throws Exception {
+        restart(500, 10);
+        String token = post("/login", null, "email=test1%40example.com&password=password1").body();
+
+        // リクエストのたびに有効期間が延びる
+        for (int i = 0; i < 3; i++) {
+            Thread.sleep(150);
+            assertThat(get("/tasks", token).statusCode()).isEqualTo(200);
+        }
+        Thread.sleep(1000);
+        assertThat(get("/tasks", token).statusCode()).isEqualTo(401);
+    }
+
+    @Test
+    public void testOldestSessionIsEvictedWhenFull() throws Exception {
+        restart(60_000, 2);
+        String first = post("/login", null, "email=test1%40example.com&password=password1").body();
+        Thread.sleep(10);
+        String second = post("/login", null, "email=test2%40example.com&password=password2").body();
+        Thread.sleep(10);
+        assertThat(get("/tasks", first).statusCode()).isEqualTo(200);
+
+        // 上限に達したら、最も長く使われていないセッションを取り除く
+        String third = post("/login", null, "email=test1%40example.com&password=password1").body();
+        assertThat(get("/tasks", second).statusCode()).isEqualTo(401);
+        assertThat(get("/tasks", first).statusCode()).isEqualTo(200);
+        assertThat(get("/tasks", third).statusCode()).isEqualTo(200);
+    }
+
+    @Test
+    public void testLoginFailure() throws Exception {
+        HttpResponse<String> login = post("/login", null, "email=test1%40example.com&password=wrong");
+
+        assertThat(login.statusCode()).isEqualTo(400);
+        assertThat(get("/tasks", "unknown").statusCode()).isEqualTo(401);
+    }
+
+    @Test
+    public void testLoginRateLimitPerClient() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertThat(post("/login", null, "email=test1%40example.com&password=wrong").statusCode()).isEqualTo(400);
+        }
+
+        HttpResponse<String> login = post("/login", null, "email=test1%40example.com&password=password1");
+        assertThat(login.statusCode()).isEqualTo(400);
+        assertThat(login.body()).isEqualTo("ログインの失敗が続いたため、しばらくしてから再度お試しください");
+        assertThat(post("/login", null, "email=test2%40example.com&password=password2").statusCode())
+                .isEqualTo(200);
+    }
+
+    @Test
+    public void testLoginRequiresCredentialsInBody() throws Exception {
+        HttpResponse<String> login = post("/login?email=test1%40example.com&password=password1", null, "");
+
+        assertThat(login.statusCode()).isEqualTo(400);
+        assertThat(login.body()).isEqualTo("メールアドレスとパスワードはリクエストの本文で送信してください");
+    }
+
+    @Test
+    public void testUnexpectedErrorIsInternalServerError() throws Exception {
+        server.stop(0);
+        TaskLogic broken = new TaskLogic(engine) {
+            @Override
+            public TaskPage findPage(TaskQuery query) {
+                throw new IllegalStateException("broken");
+            }
+        };
+        server = new TaskServer(new InetSocketAddress("localhost", 0), broken, new UserLogic(engine.users()));
+        server.start();
+        String token = post("/login", null, "email=test1%40example.com&password=password1").body();
+
+        HttpResponse<String> list = get("/tasks", token);
+        assertThat(list.statusCode()).isEqualTo(500);
+        assertThat(list.body()).doesNotContain("broken");
+        assertThat(post("/tasks", token, "code=1&name=Task+1&repUserCode=1").statusCode()).isEqualTo(200);
+    }
+
+    private void restart(long sessionTimeoutMillis, int maxSessions) throws IOException {
+        server.stop(0);
+        server = new TaskServer(new InetSocketAddress("localhost", 0), new TaskLogic(engine),
+                new UserLogic(engine.users()), sessionTimeoutMillis, TimeUnit.MILLISECONDS, maxSessions);
+        server.start();
+    }
+
+    private HttpResponse<String> get(String path, String token) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri(path)).GET();
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String token, String form) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.getAddress().getPort() + path);
+    }
+}